@@ -7,7 +7,11 @@ public class GlobalInfo {
 
     public static final String HOME_DIR = System.getProperty("user.home");
     public static final String TEMP_DIR = HOME_DIR + "/.Bike3S";
-    public static String DEBUG_DIR = TEMP_DIR;
+
+    /**
+     * Directory where debug logs are written. It isn't read from the configuration file.
+     */
+    private transient String debugDir = TEMP_DIR;
 
     /**
      * It is the time period during a reservation is valid or active.
@@ -49,6 +53,41 @@ public class GlobalInfo {
      */
     private String graphManagerType;
 
+    /**
+     * Implementation of the pending events set used by the simulation engine
+     */
+    private String eventSchedulerType = "PRIORITY_QUEUE";
+
+    /**
+     * It is what the simulation records: the full history (JSON or BINARY) or only the indicators (METRICS)
+     */
+    private String historyType = "JSON";
+
+    /**
+     * It is the maximum number of entities and events which the json history can have pending to
+     * be processed in the background. When it's reached, the simulation waits. If it's 0, the
+     * history is processed in the simulation thread.
+     */
+    private int historyQueueCapacity = 4096;
+
+    /**
+     * It is the maximum number of shortest routes which are kept to not calculate them again.
+     * If it's 0, the routes aren't cached.
+     */
+    private int routeCacheSize = 0;
+
+    /**
+     * It is the size, in degrees, of the grid cells to which the route cache quantizes the points
+     * which aren't stations. If it's 0, the points must be exactly the same to reuse a route.
+     */
+    private double routeCacheGridSize = 0;
+
+    /**
+     * It is the file of the routes between the stations calculated in advance for the map and
+     * the stations of the simulation. If it's null, all the routes are calculated by the graph manager.
+     */
+    private String stationRouteMatrix;
+
 
     public int getReservationTime() {
         return reservationTime;
@@ -70,6 +109,10 @@ public class GlobalInfo {
         return randomSeed;
     }
 
+    public void setRandomSeed(long randomSeed) {
+        this.randomSeed = randomSeed;
+    }
+
     public BoundingBox getBoundingBox() {
         return boundingBox;
     }
@@ -82,6 +125,14 @@ public class GlobalInfo {
         this.historyOutputPath = historyOutputPath;
     }
 
+    public String getDebugDir() {
+        return debugDir;
+    }
+
+    public void setDebugDir(String debugDir) {
+        this.debugDir = debugDir;
+    }
+
     public JsonObject getRecommendationSystemTypeJsonDescription() {
         return recommendationSystemType;
     }
@@ -90,4 +141,48 @@ public class GlobalInfo {
         return graphManagerType;
     }
 
+    public String getEventSchedulerType() {
+        return eventSchedulerType;
+    }
+
+    public String getHistoryType() {
+        return historyType;
+    }
+
+    public void setHistoryType(String historyType) {
+        this.historyType = historyType;
+    }
+
+    public int getHistoryQueueCapacity() {
+        return historyQueueCapacity;
+    }
+
+    public void setHistoryQueueCapacity(int historyQueueCapacity) {
+        this.historyQueueCapacity = historyQueueCapacity;
+    }
+
+    public int getRouteCacheSize() {
+        return routeCacheSize;
+    }
+
+    public void setRouteCacheSize(int routeCacheSize) {
+        this.routeCacheSize = routeCacheSize;
+    }
+
+    public double getRouteCacheGridSize() {
+        return routeCacheGridSize;
+    }
+
+    public void setRouteCacheGridSize(double routeCacheGridSize) {
+        this.routeCacheGridSize = routeCacheGridSize;
+    }
+
+    public String getStationRouteMatrix() {
+        return stationRouteMatrix;
+    }
+
+    public void setStationRouteMatrix(String stationRouteMatrix) {
+        this.stationRouteMatrix = stationRouteMatrix;
+    }
+
 }
@@ -0,0 +1,234 @@
+package es.urjc.ia.bikesurbanfleets.common.graphs;
+
+import es.urjc.ia.bikesurbanfleets.common.graphs.exceptions.GeoRouteCreationException;
+import es.urjc.ia.bikesurbanfleets.common.graphs.exceptions.GraphHopperIntegrationException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class is a graph manager which keeps the last calculated shortest routes of another one,
+ * so the routes which the users repeat, e.g. between the same stations, are only calculated once.
+ * When the cache is full, the least recently used route is evicted.
+ * The routes are identified by their vehicle and their endpoints. An endpoint which is a
+ * registered station is identified by the station, and any other point by the cell of a grid
+ * which contains it. If the grid size is 0, the points are identified by their exact coordinates,
+ * and the returned routes are the same as the ones of the wrapped graph manager. Otherwise, a
+ * route calculated between two points is also used for any other points of the same cells, and
+ * its first and last points are replaced by the requested ones.
+ * The rest of the methods aren't cached.
+ * @author IAgroup
+ *
+ */
+public class CachedGraphManager implements GraphManager {
+
+    private GraphManager graphManager;
+
+    private int maxRoutes;
+
+    /**
+     * It is the size, in degrees, of the cells of the grid which the points are quantized to.
+     */
+    private double gridSize;
+
+    /**
+     * These are the identifiers of the stations, by their position.
+     */
+    private Map<GeoPoint, Integer> stations = new HashMap<>();
+
+    private LinkedHashMap<RouteKey, GeoRoute> routes;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * @param graphManager It is the graph manager which calculates the routes which aren't cached.
+     * @param maxRoutes It is the maximum number of routes which are kept.
+     * @param gridSize It is the size, in degrees, of the grid cells which the points are
+     * quantized to, or 0 to use their exact coordinates.
+     */
+    public CachedGraphManager(GraphManager graphManager, int maxRoutes, double gridSize) {
+        if (maxRoutes <= 0) {
+            throw new IllegalArgumentException("The route cache must have room for at least one route");
+        }
+        if (gridSize < 0) {
+            throw new IllegalArgumentException("The grid size of the route cache can't be negative");
+        }
+        this.graphManager = graphManager;
+        this.maxRoutes = maxRoutes;
+        this.gridSize = gridSize;
+        this.routes = new LinkedHashMap<RouteKey, GeoRoute>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<RouteKey, GeoRoute> eldest) {
+                if (size() > CachedGraphManager.this.maxRoutes) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * It makes the routes from or to the position of a station be identified by the station.
+     */
+    public synchronized void registerStation(int id, GeoPoint position) {
+        stations.put(position, id);
+    }
+
+    public GraphManager getGraphManager() {
+        return graphManager;
+    }
+
+    @Override
+    public GeoRoute obtainShortestRouteBetween(GeoPoint originPoint, GeoPoint destinationPoint, String vehicle)
+            throws GraphHopperIntegrationException, GeoRouteCreationException {
+        if (originPoint.equals(destinationPoint)) {
+            return graphManager.obtainShortestRouteBetween(originPoint, destinationPoint, vehicle);
+        }
+        RouteKey key;
+        GeoRoute route;
+        synchronized (this) {
+            key = new RouteKey(vehicle, endpoint(originPoint), endpoint(destinationPoint));
+            route = routes.get(key);
+            if (route != null) {
+                hits++;
+            } else {
+                misses++;
+            }
+        }
+        if (route == null) {
+            route = graphManager.obtainShortestRouteBetween(originPoint, destinationPoint, vehicle);
+            synchronized (this) {
+                routes.put(key, route);
+            }
+            return route;
+        }
+        return withEndpoints(route, originPoint, destinationPoint);
+    }
+
+    @Override
+    public List<GeoRoute> obtainAllRoutesBetween(GeoPoint originPoint, GeoPoint destinationPoint, String vehicle)
+            throws GeoRouteCreationException, GraphHopperIntegrationException {
+        return graphManager.obtainAllRoutesBetween(originPoint, destinationPoint, vehicle);
+    }
+
+    @Override
+    public boolean hasAlternativesRoutes(GeoPoint startPosition, GeoPoint endPosition, String vehicle)
+            throws GraphHopperIntegrationException, GeoRouteCreationException {
+        return graphManager.hasAlternativesRoutes(startPosition, endPosition, vehicle);
+    }
+
+    @Override
+    public double[] travelTimesFrom(GeoPoint origin, List<GeoPoint> targets, String vehicle, double maxTime)
+            throws GraphHopperIntegrationException {
+        return graphManager.travelTimesFrom(origin, targets, vehicle, maxTime);
+    }
+
+    /**
+     * @return the number of routes which have been found in the cache.
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * @return the number of routes which have been calculated by the wrapped graph manager.
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * @return the number of routes which have been removed to make room for newer ones.
+     */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    public synchronized int size() {
+        return routes.size();
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "Route cache: " + hits + " hits, " + misses + " misses, " + evictions + " evictions, "
+                + routes.size() + "/" + maxRoutes + " routes";
+    }
+
+    /**
+     * @return the identifier of an endpoint: the station identifier, as a negative number so it
+     * doesn't collide with the cells, or its exact or quantized coordinates.
+     */
+    private long[] endpoint(GeoPoint point) {
+        Integer station = stations.get(point);
+        if (station != null) {
+            return new long[] {Long.MIN_VALUE, station};
+        }
+        if (gridSize == 0) {
+            return new long[] {Double.doubleToLongBits(point.getLatitude()), Double.doubleToLongBits(point.getLongitude())};
+        }
+        return new long[] {(long) Math.floor(point.getLatitude() / gridSize), (long) Math.floor(point.getLongitude() / gridSize)};
+    }
+
+    /**
+     * @return the cached route if its endpoints are the requested ones, or a copy of it which
+     * starts and ends at them.
+     */
+    private GeoRoute withEndpoints(GeoRoute route, GeoPoint originPoint, GeoPoint destinationPoint)
+            throws GeoRouteCreationException {
+        List<GeoPoint> points = route.getPoints();
+        int last = points.size() - 1;
+        if (points.get(0).equals(originPoint) && points.get(last).equals(destinationPoint)) {
+            return route;
+        }
+        List<GeoPoint> newPoints = new ArrayList<>(points);
+        newPoints.set(0, originPoint);
+        newPoints.set(last, destinationPoint);
+        return new GeoRoute(newPoints);
+    }
+
+    private static final class RouteKey {
+
+        private final String vehicle;
+        private final long originLatitude;
+        private final long originLongitude;
+        private final long destinationLatitude;
+        private final long destinationLongitude;
+
+        RouteKey(String vehicle, long[] origin, long[] destination) {
+            this.vehicle = vehicle;
+            this.originLatitude = origin[0];
+            this.originLongitude = origin[1];
+            this.destinationLatitude = destination[0];
+            this.destinationLongitude = destination[1];
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj)
+                return true;
+            if (!(obj instanceof RouteKey))
+                return false;
+            RouteKey other = (RouteKey) obj;
+            return originLatitude == other.originLatitude && originLongitude == other.originLongitude
+                    && destinationLatitude == other.destinationLatitude
+                    && destinationLongitude == other.destinationLongitude
+                    && vehicle.equals(other.vehicle);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = vehicle.hashCode();
+            result = 31 * result + Long.hashCode(originLatitude);
+            result = 31 * result + Long.hashCode(originLongitude);
+            result = 31 * result + Long.hashCode(destinationLatitude);
+            result = 31 * result + Long.hashCode(destinationLongitude);
+            return result;
+        }
+    }
+}
@@ -2,12 +2,14 @@ package es.urjc.ia.bikesurbanfleets.common.graphs;
 
 import com.google.gson.annotations.Expose;
 
+import java.io.Serializable;
+
 /**
  * This class represents a geographic point.
  * @author IAgroup
  *
  */
-public class GeoPoint {
+public class GeoPoint implements Serializable {
 
     /**
      * It is the earth radius in meters.
@@ -131,6 +133,14 @@ public class GeoPoint {
         return (geoPoint.latitude == this.latitude && geoPoint.longitude == this.longitude);
     }
 
+    /**
+     * Adding 0.0 turns -0.0 into 0.0, as they're equal points.
+     */
+    @Override
+    public int hashCode() {
+        return 31 * Double.hashCode(latitude + 0.0) + Double.hashCode(longitude + 0.0);
+    }
+
     @Override
     public String toString() {
         String result = "Latitude: " + latitude;
@@ -1,35 +1,52 @@
 package es.urjc.ia.bikesurbanfleets.common.graphs;
 
-import com.google.gson.annotations.Expose;
+import com.google.gson.TypeAdapter;
+import com.google.gson.annotations.JsonAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
 import es.urjc.ia.bikesurbanfleets.common.graphs.exceptions.GeoRouteCreationException;
 import es.urjc.ia.bikesurbanfleets.common.graphs.exceptions.GeoRouteException;
 
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.RandomAccess;
 
 /**
  * This class represents a geographic route.
+ * The coordinates of its points are kept in arrays, and the points are only created when they're
+ * read through {@link #getPoints()}.
  * @author IAgroup
  *
  */
-public class GeoRoute {
+@JsonAdapter(GeoRoute.RouteJsonAdapter.class)
+public class GeoRoute implements Serializable {
     /**
-     * These are the points which forms the route.
+     * These are the latitudes of the points which form the route.
      */
-    @Expose
-    private List<GeoPoint> points;
+    private double[] latitudes;
 
     /**
-     * This is the distance of the entire route.
+     * These are the longitudes of the points which form the route.
      */
-    @Expose
-    private double totalDistance;
+    private double[] longitudes;
 
     /**
-     * These are the distances between the diferent pairs of geographic points of the route.
-     * The number of subroutes is the number of points of the route minus one.
+     * These are the distances from the first point of the route to each of its points, so the
+     * distance between two consecutive points i and i+1 is the difference of their distances.
+     * The last one is the distance of the entire route.
      */
-    private List<Double> intermediateDistances;
+    private double[] cumulativeDistances;
+
+    /**
+     * It is the hash code of the route, computed the first time it's needed as the points
+     * of a route don't change once it's created.
+     */
+    private transient int hash;
 
     /**
      * It creates a route which has at least 2 points.
@@ -40,74 +57,98 @@ public class GeoRoute {
             throw new GeoRouteCreationException("Routes should have more than two points");
         }
         else {
-            this.points = geoPointList;
-            this.intermediateDistances = new ArrayList<>();
+            int size = geoPointList.size();
+            this.latitudes = new double[size];
+            this.longitudes = new double[size];
+            for(int i = 0; i < size; i++) {
+                GeoPoint point = geoPointList.get(i);
+                latitudes[i] = point.getLatitude();
+                longitudes[i] = point.getLongitude();
+            }
             calculateDistances();
         }
     }
 
+    private GeoRoute(double[] latitudes, double[] longitudes) {
+        this.latitudes = latitudes;
+        this.longitudes = longitudes;
+        calculateDistances();
+    }
+
+    /**
+     * @return a read only view of the points of the route, whose points are created as they're read.
+     */
     public List<GeoPoint> getPoints() {
-        return points;
+        return new Points();
     }
 
     public double getTotalDistance() {
-        return totalDistance;
+        return cumulativeDistances[cumulativeDistances.length - 1];
+    }
+
+    private GeoPoint pointAt(int i) {
+        return new GeoPoint(latitudes[i], longitudes[i]);
     }
 
     /**
-     * It calculates the distances of the different sections of the route and its total distance.
+     * It calculates the distances from the first point of the route to each of its points.
      */
     private void calculateDistances() {
-        Double totalDistance = 0.0;
-        for(int i = 0; i < points.size()-1; i++) {
-            GeoPoint currentPoint = points.get(i);
-            GeoPoint nextPoint = points.get(i+1);
-            Double currentDistance = currentPoint.distanceTo(nextPoint);
-            intermediateDistances.add(currentDistance);
-            totalDistance += currentDistance;
+        cumulativeDistances = new double[latitudes.length];
+        GeoPoint currentPoint = pointAt(0);
+        for(int i = 1; i < latitudes.length; i++) {
+            GeoPoint nextPoint = pointAt(i);
+            cumulativeDistances[i] = cumulativeDistances[i-1] + currentPoint.distanceTo(nextPoint);
+            currentPoint = nextPoint;
         }
-        this.totalDistance = totalDistance;
     }
 
     /**
      * Given the speed at which the route is traveled and the time during which the entity
-     * has been traveling, it calculates the section of the route that the entity has traveled.
+     * has been traveling, it calculates the point of the route that the entity has reached.
+     * The section of the route which contains it is found by a binary search of the distances.
      * @param finalTime It is the time during which the entity has been traveling.
      * @param velocity It is the speed at which the entity travels.
-     * @return the traveled subroute.
+     * @return the reached point.
      */
     public GeoPoint calculatePositionByTimeAndVelocity(double finalTime, double velocity) throws GeoRouteException, GeoRouteCreationException {
-        double totalDistance = 0.0;
-        double currentTime = 0.0;
-        double currentDistance = 0.0;
-        GeoPoint currentPoint = null;
-        GeoPoint nextPoint = null;
-        int i = 0;
-        while(i < points.size()-1 && currentTime < finalTime) {
-            currentPoint = points.get(i);
-            nextPoint = points.get(i+1);
-            currentDistance = intermediateDistances.get(i);
-            totalDistance += currentDistance;
-            currentTime += currentDistance/velocity;
-            i++;
-        }
-        if(currentTime < finalTime) {
+        double traveledDistance = finalTime*velocity;
+        int last = cumulativeDistances.length - 1;
+        if(cumulativeDistances[last] < traveledDistance) {
             throw new GeoRouteException("Can't create intermediate position");
         }
-        double x = totalDistance - finalTime*velocity;
+        if(traveledDistance <= 0) {
+            return pointAt(0);
+        }
+        // first point which is at least at the traveled distance from the start of the route
+        int next = Arrays.binarySearch(cumulativeDistances, 1, last + 1, traveledDistance);
+        if(next < 0) {
+            next = -next - 1;
+        }
+        else {
+            while(next > 1 && cumulativeDistances[next-1] == traveledDistance) {
+                next--;
+            }
+        }
+        double currentDistance = cumulativeDistances[next] - cumulativeDistances[next-1];
+        double x = cumulativeDistances[next] - traveledDistance;
         double intermedDistance = currentDistance - x;
-        GeoPoint newPoint = currentPoint.reachedPoint(intermedDistance, nextPoint);
-        return newPoint;
+        return pointAt(next-1).reachedPoint(intermedDistance, pointAt(next));
     }
 
     public GeoRoute concatRoute(GeoRoute route) throws GeoRouteCreationException {
-        List<GeoPoint> newPoints = new ArrayList<>();
-        this.points.stream().forEach(point -> newPoints.add(point));
-        route.points.stream().forEach(point -> newPoints.add(point));
-        return new GeoRoute(newPoints);
-
+        int size = latitudes.length;
+        double[] newLatitudes = Arrays.copyOf(latitudes, size + route.latitudes.length);
+        double[] newLongitudes = Arrays.copyOf(longitudes, size + route.longitudes.length);
+        System.arraycopy(route.latitudes, 0, newLatitudes, size, route.latitudes.length);
+        System.arraycopy(route.longitudes, 0, newLongitudes, size, route.longitudes.length);
+        return new GeoRoute(newLatitudes, newLongitudes);
     }
 
+    /**
+     * Two routes are equal if they have the same points, compared as {@link GeoPoint#equals},
+     * and the same distance.
+     */
     @Override
     public boolean equals(Object obj) {
         if (this == obj)
@@ -117,27 +158,126 @@ public class GeoRoute {
         if (getClass() != obj.getClass())
             return false;
         GeoRoute other = (GeoRoute) obj;
-        if (Double.doubleToLongBits(totalDistance) != Double.doubleToLongBits(other.totalDistance))
+        if (Double.doubleToLongBits(getTotalDistance()) != Double.doubleToLongBits(other.getTotalDistance()))
             return false;
-        if (points == null) {
-            if (other.points != null)
-                return false;
-        } else if (!points.equals(other.points))
+        if (latitudes.length != other.latitudes.length)
             return false;
+        for (int i = 0; i < latitudes.length; i++) {
+            if (latitudes[i] != other.latitudes[i] || longitudes[i] != other.longitudes[i])
+                return false;
+        }
         return true;
     }
 
+    /**
+     * It is the same hash code as the one of the list of the points, without creating them.
+     */
+    @Override
+    public int hashCode() {
+        int result = hash;
+        if (result == 0) {
+            int pointsHash = 1;
+            for (int i = 0; i < latitudes.length; i++) {
+                int pointHash = 31 * Double.hashCode(latitudes[i] + 0.0) + Double.hashCode(longitudes[i] + 0.0);
+                pointsHash = 31 * pointsHash + pointHash;
+            }
+            result = 31 * pointsHash + Double.hashCode(getTotalDistance());
+            hash = result;
+        }
+        return result;
+    }
+
     @Override
     public String toString() {
         String result = "Points: \n";
-        for(GeoPoint p: points) {
-            result += p.getLatitude() + "," + p.getLongitude() + "\n";
+        for(int i = 0; i < latitudes.length; i++) {
+            result += latitudes[i] + "," + longitudes[i] + "\n";
         }
-        result += "Distance: " + totalDistance + " meters \n";
+        result += "Distance: " + getTotalDistance() + " meters \n";
         result += "Distances between points: ";
-        for(Double d: intermediateDistances) {
-            result += d + "\n";
+        for(int i = 1; i < cumulativeDistances.length; i++) {
+            result += (cumulativeDistances[i] - cumulativeDistances[i-1]) + "\n";
         }
         return result;
     }
-}
\ No newline at end of file
+
+    private class Points extends AbstractList<GeoPoint> implements RandomAccess {
+
+        @Override
+        public GeoPoint get(int index) {
+            return pointAt(index);
+        }
+
+        @Override
+        public int size() {
+            return latitudes.length;
+        }
+    }
+
+    /**
+     * It keeps the json of the routes as it was when they were stored as a list of points: their
+     * points, as latitude and longitude objects, and their total distance.
+     */
+    static class RouteJsonAdapter extends TypeAdapter<GeoRoute> {
+
+        @Override
+        public void write(JsonWriter out, GeoRoute route) throws IOException {
+            if (route == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("points").beginArray();
+            for (int i = 0; i < route.latitudes.length; i++) {
+                out.beginObject();
+                out.name("latitude").value(route.latitudes[i]);
+                out.name("longitude").value(route.longitudes[i]);
+                out.endObject();
+            }
+            out.endArray();
+            out.name("totalDistance").value(route.getTotalDistance());
+            out.endObject();
+        }
+
+        @Override
+        public GeoRoute read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            List<GeoPoint> points = new ArrayList<>();
+            in.beginObject();
+            while (in.hasNext()) {
+                if (in.nextName().equals("points")) {
+                    in.beginArray();
+                    while (in.hasNext()) {
+                        GeoPoint point = new GeoPoint();
+                        in.beginObject();
+                        while (in.hasNext()) {
+                            String name = in.nextName();
+                            if (name.equals("latitude")) {
+                                point.setLatitude(in.nextDouble());
+                            } else if (name.equals("longitude")) {
+                                point.setLongitude(in.nextDouble());
+                            } else {
+                                in.skipValue();
+                            }
+                        }
+                        in.endObject();
+                        points.add(point);
+                    }
+                    in.endArray();
+                } else {
+                    // the total distance is calculated from the points
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+            try {
+                return new GeoRoute(points);
+            } catch (GeoRouteCreationException e) {
+                throw new IOException(e.getMessage(), e);
+            }
+        }
+    }
+}
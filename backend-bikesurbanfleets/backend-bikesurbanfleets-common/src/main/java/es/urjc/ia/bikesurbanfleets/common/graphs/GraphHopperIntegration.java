@@ -4,8 +4,20 @@ import com.graphhopper.GHRequest;
 import com.graphhopper.GHResponse;
 import com.graphhopper.GraphHopper;
 import com.graphhopper.PathWrapper;
+import com.graphhopper.coll.GHIntObjectHashMap;
 import com.graphhopper.reader.osm.GraphHopperOSM;
+import com.graphhopper.routing.QueryGraph;
+import com.graphhopper.routing.util.DefaultEdgeFilter;
+import com.graphhopper.routing.util.EdgeFilter;
 import com.graphhopper.routing.util.EncodingManager;
+import com.graphhopper.routing.util.FlagEncoder;
+import com.graphhopper.routing.weighting.FastestWeighting;
+import com.graphhopper.routing.weighting.Weighting;
+import com.graphhopper.storage.SPTEntry;
+import com.graphhopper.storage.index.LocationIndex;
+import com.graphhopper.storage.index.QueryResult;
+import com.graphhopper.util.EdgeExplorer;
+import com.graphhopper.util.EdgeIterator;
 import com.graphhopper.util.PointList;
 import com.graphhopper.util.shapes.GHPoint3D;
 import es.urjc.ia.bikesurbanfleets.common.config.GlobalInfo;
@@ -19,8 +31,17 @@ import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
 
+/**
+ * This class calculates the routes with a GraphHopper graph. It keeps no state between calls, so
+ * an instance can be used by several threads at the same time.
+ * @author IAgroup
+ *
+ */
 @GraphManagerType("GRAPH_HOPPER")
 public class GraphHopperIntegration implements GraphManager {
 
@@ -33,18 +54,21 @@ public class GraphHopperIntegration implements GraphManager {
 
     private final String GRAPHHOPPER_DIR = GlobalInfo.TEMP_DIR + "/graphhopper_files";
 
-    private GraphHopper hopper;
-    private GHResponse rsp;
-
-    private GeoPoint startPosition;
-    private GeoPoint endPosition;
+    /**
+     * It is the loaded graph. It's only read when routing, so it can be shared by several threads.
+     */
+    private final GraphHopper hopper;
 
     public GraphHopperIntegration(GraphProperties properties) throws IOException {
+        this(properties.mapDir);
+    }
+
+    public GraphHopperIntegration(String mapDir) throws IOException {
         //Check the last map loaded
         boolean sameMap;
         try {
             CheckSum csum = new CheckSum();
-            sameMap = csum.md5CheckSum(new File(properties.mapDir));
+            sameMap = csum.md5CheckSum(new File(mapDir));
         }
         catch (Exception e) {
             sameMap = false;
@@ -55,13 +79,31 @@ public class GraphHopperIntegration implements GraphManager {
             FileUtils.deleteDirectory(new File(GRAPHHOPPER_DIR));
         }
         this.hopper = new GraphHopperOSM().forServer();
-        hopper.setDataReaderFile(properties.mapDir);
+        hopper.setDataReaderFile(mapDir);
         hopper.setGraphHopperLocation(GRAPHHOPPER_DIR);
         hopper.setEncodingManager(new EncodingManager("foot, bike"));
         hopper.importOrLoad();
     }
 
-    private GeoRoute responseGHToRoute(PathWrapper path) throws GeoRouteCreationException{
+    /**
+     * It creates a graph manager which uses the graph already loaded by another one, so the map
+     * isn't imported again. As a graph manager keeps no state between calls, the same instance
+     * can also be used by several threads at the same time.
+     * @param loadedGraph graph manager whose graph is shared.
+     */
+    public GraphHopperIntegration(GraphHopperIntegration loadedGraph) {
+        this.hopper = loadedGraph.hopper;
+    }
+
+    /**
+     * @return the path of the map file which the graph has been imported from.
+     */
+    public String getMapPath() {
+        return hopper.getDataReaderFile();
+    }
+
+    private GeoRoute responseGHToRoute(PathWrapper path, GeoPoint startPosition, GeoPoint endPosition)
+            throws GeoRouteCreationException{
         List<GeoPoint> geoPointList = new ArrayList<>();
         PointList ghPointList = path.getPoints();
         geoPointList.add(startPosition);
@@ -78,43 +120,44 @@ public class GraphHopperIntegration implements GraphManager {
         return route;
     }
 
+    private GHResponse calculateRoutes(GeoPoint startPosition, GeoPoint endPosition, String vehicle) throws GraphHopperIntegrationException  {
+        GHRequest req = new GHRequest(
+                startPosition.getLatitude(), startPosition.getLongitude(),
+                endPosition.getLatitude(), endPosition.getLongitude())
+                .setWeighting("fastest")
+                .setVehicle(vehicle);
+        GHResponse rsp = hopper.route(req);
 
-    private void calculateRoutes(GeoPoint startPosition, GeoPoint endPosition, String vehicle) throws GraphHopperIntegrationException  {
-        if(!startPosition.equals(this.startPosition) || !endPosition.equals(this.endPosition)) {
-            GHRequest req = new GHRequest(
-                    startPosition.getLatitude(), startPosition.getLongitude(),
-                    endPosition.getLatitude(), endPosition.getLongitude())
-                    .setWeighting("fastest")
-                    .setVehicle(vehicle);
-            GHResponse rsp = hopper.route(req);
-
-            if(rsp.hasErrors()) {
-                for(Throwable exception: rsp.getErrors()) {
-                    throw new GraphHopperIntegrationException(exception.getMessage());
-                }
+        if(rsp.hasErrors()) {
+            for(Throwable exception: rsp.getErrors()) {
+                throw new GraphHopperIntegrationException(exception.getMessage());
             }
-            this.rsp = rsp;
-            this.startPosition = startPosition;
-            this.endPosition = endPosition;
         }
+        return rsp;
     }
 
-    @Override
-    public GeoRoute obtainShortestRouteBetween(GeoPoint startPosition, GeoPoint endPosition, String vehicle) throws GraphHopperIntegrationException, GeoRouteCreationException {
-        if(startPosition.equals(endPosition)) {
-            return new GeoRoute(Arrays.asList(startPosition, endPosition));
-        }
+    /**
+     * If the vehicle can't go between the points, the routes are calculated on foot.
+     */
+    private GHResponse calculateRoutesOrWalk(GeoPoint startPosition, GeoPoint endPosition, String vehicle) throws GraphHopperIntegrationException {
         try {
-            calculateRoutes(startPosition, endPosition, vehicle);
+            return calculateRoutes(startPosition, endPosition, vehicle);
         }
         catch(GraphHopperIntegrationException exception) {
             if(exception.getMessage().equals("Connection between locations not found")) {
-                calculateRoutes(startPosition, endPosition, "foot");
+                return calculateRoutes(startPosition, endPosition, "foot");
             }
             else throw new GraphHopperIntegrationException(exception.getMessage());
         }
-        PathWrapper path = rsp.getBest();
-        return responseGHToRoute(path);
+    }
+
+    @Override
+    public GeoRoute obtainShortestRouteBetween(GeoPoint startPosition, GeoPoint endPosition, String vehicle) throws GraphHopperIntegrationException, GeoRouteCreationException {
+        if(startPosition.equals(endPosition)) {
+            return new GeoRoute(Arrays.asList(startPosition, endPosition));
+        }
+        GHResponse rsp = calculateRoutesOrWalk(startPosition, endPosition, vehicle);
+        return responseGHToRoute(rsp.getBest(), startPosition, endPosition);
     }
 
     @Override
@@ -126,27 +169,111 @@ public class GraphHopperIntegration implements GraphManager {
             newRoutes.add(newRoute);
             return newRoutes;
         }
-        try {
-            calculateRoutes(startPosition, endPosition, vehicle);
-        }
-        catch(GraphHopperIntegrationException exception) {
-            if(exception.getMessage().equals("Connection between locations not found")) {
-                calculateRoutes(startPosition, endPosition, "foot");
-            }
-            else throw new GraphHopperIntegrationException(exception.getMessage());
-        }
+        GHResponse rsp = calculateRoutesOrWalk(startPosition, endPosition, vehicle);
         List<GeoRoute> routes = new ArrayList<>();
         for(PathWrapper p: rsp.getAll()) {
-            routes.add(responseGHToRoute(p));
+            routes.add(responseGHToRoute(p, startPosition, endPosition));
         }
         return routes;
     }
 
     @Override
     public boolean hasAlternativesRoutes(GeoPoint startPosition, GeoPoint endPosition, String vehicle) throws GraphHopperIntegrationException {
-        calculateRoutes(startPosition, endPosition, vehicle);
-        return rsp.hasAlternatives();
+        return calculateRoutes(startPosition, endPosition, vehicle).hasAlternatives();
     }
 
-}
+    /**
+     * The travel times are found by one Dijkstra search over the graph, with the fastest weighting
+     * as the routes, which stops when all the targets have been reached or the maximum time has
+     * been exceeded. The weight of an edge
+     * with the fastest weighting is the time in seconds to travel it. The points are snapped to
+     * the closest roads, so the distances from the points to their roads aren't included.
+     */
+    @Override
+    public double[] travelTimesFrom(GeoPoint origin, List<GeoPoint> targets, String vehicle, double maxTime)
+            throws GraphHopperIntegrationException {
+        if(maxTime < 0) {
+            throw new IllegalArgumentException("The maximum travel time can't be negative");
+        }
+        EncodingManager encodingManager = hopper.getEncodingManager();
+        if(!encodingManager.supports(vehicle)) {
+            throw new GraphHopperIntegrationException("Vehicle " + vehicle + " is not supported");
+        }
+        FlagEncoder encoder = encodingManager.getEncoder(vehicle);
+        EdgeFilter edgeFilter = new DefaultEdgeFilter(encoder);
+        LocationIndex locationIndex = hopper.getLocationIndex();
+
+        double[] times = new double[targets.size()];
+        Arrays.fill(times, Double.POSITIVE_INFINITY);
+        QueryResult originResult = locationIndex.findClosest(origin.getLatitude(), origin.getLongitude(), edgeFilter);
+        if(!originResult.isValid()) {
+            return times;
+        }
+        List<QueryResult> results = new ArrayList<>();
+        results.add(originResult);
+        QueryResult[] targetResults = new QueryResult[targets.size()];
+        for(int i = 0; i < targets.size(); i++) {
+            GeoPoint target = targets.get(i);
+            QueryResult result = locationIndex.findClosest(target.getLatitude(), target.getLongitude(), edgeFilter);
+            if(result.isValid()) {
+                targetResults[i] = result;
+                results.add(result);
+            }
+        }
+        QueryGraph graph = new QueryGraph(hopper.getGraphHopperStorage());
+        graph.lookup(results);
+
+        // the lookup replaces the closest nodes by the virtual ones of the snapped points
+        Map<Integer, List<Integer>> targetsByNode = new HashMap<>();
+        int pendingTargets = 0;
+        for(int i = 0; i < targetResults.length; i++) {
+            if(targetResults[i] != null) {
+                targetsByNode.computeIfAbsent(targetResults[i].getClosestNode(), node -> new ArrayList<>()).add(i);
+                pendingTargets++;
+            }
+        }
 
+        Weighting weighting = new FastestWeighting(encoder);
+        EdgeExplorer explorer = graph.createEdgeExplorer(new DefaultEdgeFilter(encoder, false, true));
+        GHIntObjectHashMap<SPTEntry> entries = new GHIntObjectHashMap<>();
+        PriorityQueue<SPTEntry> queue = new PriorityQueue<>();
+        SPTEntry start = new SPTEntry(EdgeIterator.NO_EDGE, originResult.getClosestNode(), 0);
+        entries.put(start.adjNode, start);
+        queue.add(start);
+        while(!queue.isEmpty() && pendingTargets > 0) {
+            SPTEntry current = queue.poll();
+            if(entries.get(current.adjNode) != current) {
+                continue;
+            }
+            // the entries are polled by ascending time, so the pending targets are farther
+            if(current.weight > maxTime) {
+                break;
+            }
+            List<Integer> reachedTargets = targetsByNode.remove(current.adjNode);
+            if(reachedTargets != null) {
+                for(int target: reachedTargets) {
+                    times[target] = current.weight;
+                }
+                pendingTargets -= reachedTargets.size();
+            }
+            EdgeIterator edge = explorer.setBaseNode(current.adjNode);
+            while(edge.next()) {
+                if(edge.getEdge() == current.edge) {
+                    continue;
+                }
+                double weight = current.weight + weighting.calcWeight(edge, false, current.edge);
+                if(Double.isInfinite(weight) || weight > maxTime) {
+                    continue;
+                }
+                SPTEntry entry = entries.get(edge.getAdjNode());
+                if(entry == null || weight < entry.weight) {
+                    entry = new SPTEntry(edge.getEdge(), edge.getAdjNode(), weight);
+                    entries.put(entry.adjNode, entry);
+                    queue.add(entry);
+                }
+            }
+        }
+        return times;
+    }
+
+}
@@ -30,4 +30,16 @@ public interface GraphManager {
      * @throws GeoRouteCreationException
      */
     boolean hasAlternativesRoutes(GeoPoint startPosition, GeoPoint endPosition, String vehicle) throws GraphHopperIntegrationException, GeoRouteCreationException;
+
+    /**
+     * It calculates the travel times from a point to several ones at the cost of a single search,
+     * e.g. to rank candidate stations by the real network instead of the straight line distance.
+     * @param maxTime the travel time in seconds beyond which the search stops, so only the
+     * surroundings of the origin are explored.
+     * @return the travel time in seconds to each target, in the same order, or infinity for the
+     * targets which can't be reached within the maximum time.
+     * @throws GraphHopperIntegrationException
+     */
+    double[] travelTimesFrom(GeoPoint origin, List<GeoPoint> targets, String vehicle, double maxTime)
+            throws GraphHopperIntegrationException;
 }
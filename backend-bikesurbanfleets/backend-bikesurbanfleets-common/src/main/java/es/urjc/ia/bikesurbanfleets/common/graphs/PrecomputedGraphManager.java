@@ -0,0 +1,60 @@
+package es.urjc.ia.bikesurbanfleets.common.graphs;
+
+import es.urjc.ia.bikesurbanfleets.common.graphs.exceptions.GeoRouteCreationException;
+import es.urjc.ia.bikesurbanfleets.common.graphs.exceptions.GraphHopperIntegrationException;
+
+import java.util.List;
+
+/**
+ * This class is a graph manager which reads the shortest routes between two stations from a
+ * {@link StationRouteMatrix}, and asks another graph manager for the rest of the routes.
+ * @author IAgroup
+ *
+ */
+public class PrecomputedGraphManager implements GraphManager {
+
+    private GraphManager graphManager;
+
+    private StationRouteMatrix matrix;
+
+    public PrecomputedGraphManager(GraphManager graphManager, StationRouteMatrix matrix) {
+        this.graphManager = graphManager;
+        this.matrix = matrix;
+    }
+
+    public GraphManager getGraphManager() {
+        return graphManager;
+    }
+
+    public StationRouteMatrix getMatrix() {
+        return matrix;
+    }
+
+    @Override
+    public GeoRoute obtainShortestRouteBetween(GeoPoint originPoint, GeoPoint destinationPoint, String vehicle)
+            throws GraphHopperIntegrationException, GeoRouteCreationException {
+        GeoRoute route = matrix.route(originPoint, destinationPoint, vehicle);
+        if (route == null) {
+            route = graphManager.obtainShortestRouteBetween(originPoint, destinationPoint, vehicle);
+        }
+        return route;
+    }
+
+    @Override
+    public List<GeoRoute> obtainAllRoutesBetween(GeoPoint originPoint, GeoPoint destinationPoint, String vehicle)
+            throws GeoRouteCreationException, GraphHopperIntegrationException {
+        return graphManager.obtainAllRoutesBetween(originPoint, destinationPoint, vehicle);
+    }
+
+    @Override
+    public boolean hasAlternativesRoutes(GeoPoint startPosition, GeoPoint endPosition, String vehicle)
+            throws GraphHopperIntegrationException, GeoRouteCreationException {
+        return graphManager.hasAlternativesRoutes(startPosition, endPosition, vehicle);
+    }
+
+    @Override
+    public double[] travelTimesFrom(GeoPoint origin, List<GeoPoint> targets, String vehicle, double maxTime)
+            throws GraphHopperIntegrationException {
+        return graphManager.travelTimesFrom(origin, targets, vehicle, maxTime);
+    }
+}
@@ -0,0 +1,376 @@
+package es.urjc.ia.bikesurbanfleets.common.graphs;
+
+import es.urjc.ia.bikesurbanfleets.common.graphs.exceptions.GeoRouteCreationException;
+import org.apache.commons.codec.digest.DigestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * This class contains the shortest routes between every pair of stations, for several vehicles,
+ * calculated in advance by a graph manager and written to a file. The file is memory-mapped, so
+ * a route between two stations is read without routing, and the simulations running at the same
+ * time, even in different processes, share one copy of the file in memory.
+ * The file is identified by the checksum of the map and the hash of the station positions, so it
+ * can't be used with another map or another station layout.
+ * Layout of the file:
+ * - header: magic number, version, map checksum, layout hash, number of stations, vehicles.
+ * - index: for each origin station, vehicle and destination station, the first point of its
+ *   route and its distance. The number of points of a route is the first point of the next entry
+ *   minus its own first point, so an extra entry with the total of points closes the index.
+ *   A route which couldn't be calculated has no points and a NaN distance.
+ * - points: the latitude and the longitude of the points of all the routes.
+ * The file is only read with absolute positions, so it can be shared by several threads.
+ * @author IAgroup
+ *
+ */
+public final class StationRouteMatrix {
+
+    private static final int MAGIC = 0x42335352;
+
+    private static final int VERSION = 1;
+
+    private static final int ENTRY_BYTES = 16;
+
+    private static final int POINT_BYTES = 16;
+
+    /**
+     * It is the size of the parts in which the points are mapped, as a mapping can't be larger
+     * than 2 GB. It's a multiple of the size of a point, so no point is split.
+     */
+    private static final long CHUNK_BYTES = 1L << 30;
+
+    private String mapChecksum;
+    private String layoutHash;
+    private int stationCount;
+    private List<String> vehicles;
+
+    /**
+     * These are the indexes of the stations, by their position.
+     */
+    private Map<GeoPoint, Integer> stations;
+
+    private MappedByteBuffer index;
+    private MappedByteBuffer[] points;
+
+    private StationRouteMatrix() {
+    }
+
+    /**
+     * It maps a station route matrix file.
+     * @param file It is a file written by {@link #write}.
+     * @param mapChecksum It is the checksum of the map which the simulation uses.
+     * @param stationPositions They're the positions of the stations, in the same order as when
+     * the file was written.
+     */
+    public static StationRouteMatrix open(File file, String mapChecksum, List<GeoPoint> stationPositions)
+            throws IOException {
+        StationRouteMatrix matrix = new StationRouteMatrix();
+        try (RandomAccessFile input = new RandomAccessFile(file, "r")) {
+            if (input.readInt() != MAGIC) {
+                throw new IllegalArgumentException(file + " isn't a station route matrix");
+            }
+            int version = input.readInt();
+            if (version != VERSION) {
+                throw new IllegalArgumentException("The version " + version + " of the station route matrix "
+                        + file + " isn't supported");
+            }
+            matrix.mapChecksum = input.readUTF();
+            matrix.layoutHash = input.readUTF();
+            matrix.stationCount = input.readInt();
+            int vehicleCount = input.readInt();
+            List<String> vehicles = new ArrayList<>(vehicleCount);
+            for (int i = 0; i < vehicleCount; i++) {
+                vehicles.add(input.readUTF());
+            }
+            matrix.vehicles = Collections.unmodifiableList(vehicles);
+            if (!matrix.mapChecksum.equals(mapChecksum)) {
+                throw new IllegalArgumentException("The station route matrix " + file
+                        + " was calculated for another map");
+            }
+            if (!matrix.layoutHash.equals(layoutHash(stationPositions))) {
+                throw new IllegalArgumentException("The station route matrix " + file
+                        + " was calculated for another station layout");
+            }
+
+            long indexStart = align(input.getFilePointer());
+            long indexBytes = indexBytes(matrix.stationCount, vehicleCount);
+            FileChannel channel = input.getChannel();
+            matrix.index = channel.map(FileChannel.MapMode.READ_ONLY, indexStart, indexBytes);
+            long pointsStart = indexStart + indexBytes;
+            long pointsBytes = channel.size() - pointsStart;
+            int chunks = (int) ((pointsBytes + CHUNK_BYTES - 1) / CHUNK_BYTES);
+            matrix.points = new MappedByteBuffer[chunks];
+            for (int i = 0; i < chunks; i++) {
+                long start = i * CHUNK_BYTES;
+                matrix.points[i] = channel.map(FileChannel.MapMode.READ_ONLY, pointsStart + start,
+                        Math.min(CHUNK_BYTES, pointsBytes - start));
+            }
+        }
+        matrix.stations = new HashMap<>();
+        for (int i = 0; i < stationPositions.size(); i++) {
+            matrix.stations.putIfAbsent(stationPositions.get(i), i);
+        }
+        return matrix;
+    }
+
+    public String getMapChecksum() {
+        return mapChecksum;
+    }
+
+    public int getStationCount() {
+        return stationCount;
+    }
+
+    public List<String> getVehicles() {
+        return vehicles;
+    }
+
+    /**
+     * @return the index of the station at a position, or -1 if there's no station there.
+     */
+    public int stationAt(GeoPoint position) {
+        Integer station = stations.get(position);
+        return station == null ? -1 : station;
+    }
+
+    /**
+     * @return the route between the stations at two positions, or null if any of them isn't a
+     * station, the vehicle isn't in the matrix or the route couldn't be calculated.
+     */
+    public GeoRoute route(GeoPoint originPoint, GeoPoint destinationPoint, String vehicle)
+            throws GeoRouteCreationException {
+        int origin = stationAt(originPoint);
+        int destination = stationAt(destinationPoint);
+        int vehicleIndex = vehicles.indexOf(vehicle);
+        if (origin < 0 || destination < 0 || vehicleIndex < 0) {
+            return null;
+        }
+        int entry = entry(origin, vehicleIndex, destination);
+        long firstPoint = index.getLong(entry * ENTRY_BYTES);
+        int count = (int) (index.getLong((entry + 1) * ENTRY_BYTES) - firstPoint);
+        if (count == 0) {
+            return null;
+        }
+        List<GeoPoint> route = new ArrayList<>(count);
+        for (long point = firstPoint; point < firstPoint + count; point++) {
+            long offset = point * POINT_BYTES;
+            MappedByteBuffer chunk = points[(int) (offset / CHUNK_BYTES)];
+            int position = (int) (offset % CHUNK_BYTES);
+            route.add(new GeoPoint(chunk.getDouble(position), chunk.getDouble(position + 8)));
+        }
+        return new GeoRoute(route);
+    }
+
+    /**
+     * @return the distance of the route between two stations, given by their indexes, or NaN if
+     * the route couldn't be calculated.
+     */
+    public double distance(int origin, int destination, String vehicle) {
+        int vehicleIndex = vehicles.indexOf(vehicle);
+        if (vehicleIndex < 0) {
+            throw new IllegalArgumentException("The station route matrix has no routes for " + vehicle);
+        }
+        return index.getDouble(entry(origin, vehicleIndex, destination) * ENTRY_BYTES + 8);
+    }
+
+    private int entry(int origin, int vehicle, int destination) {
+        return (origin * vehicles.size() + vehicle) * stationCount + destination;
+    }
+
+    /**
+     * @return a hash which identifies the positions of the stations and their order.
+     */
+    public static String layoutHash(List<GeoPoint> stationPositions) {
+        ByteBuffer buffer = ByteBuffer.allocate(stationPositions.size() * POINT_BYTES);
+        for (GeoPoint position : stationPositions) {
+            buffer.putDouble(position.getLatitude());
+            buffer.putDouble(position.getLongitude());
+        }
+        return DigestUtils.md5Hex(buffer.array());
+    }
+
+    /**
+     * It calculates the routes between all the stations and writes them to a file. The routes
+     * from each station are calculated in parallel, so the graph manager must be thread safe.
+     * The file is written to a temporary file and then moved, so a file which is being written
+     * is never read.
+     * @param mapChecksum It is the checksum of the map of the graph manager.
+     * @param threads It is the number of threads which calculate the routes.
+     * @return the number of routes which couldn't be calculated.
+     */
+    public static int write(File file, String mapChecksum, List<GeoPoint> stationPositions, List<String> vehicles,
+                            GraphManager graph, int threads) throws IOException, InterruptedException {
+        int stationCount = stationPositions.size();
+        long entries = (long) stationCount * stationCount * vehicles.size();
+        if (indexBytes(stationCount, vehicles.size()) > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("There are too many stations for a station route matrix");
+        }
+
+        ByteArrayOutputStream headerBytes = new ByteArrayOutputStream();
+        DataOutputStream header = new DataOutputStream(headerBytes);
+        header.writeInt(MAGIC);
+        header.writeInt(VERSION);
+        header.writeUTF(mapChecksum);
+        header.writeUTF(layoutHash(stationPositions));
+        header.writeInt(stationCount);
+        header.writeInt(vehicles.size());
+        for (String vehicle : vehicles) {
+            header.writeUTF(vehicle);
+        }
+        header.flush();
+
+        File temporaryFile = new File(file.getPath() + ".tmp");
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        int failedRoutes = 0;
+        try (FileChannel channel = FileChannel.open(temporaryFile.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.write(ByteBuffer.wrap(headerBytes.toByteArray()), 0);
+            long indexStart = align(headerBytes.size());
+            RegionWriter index = new RegionWriter(channel, indexStart);
+            RegionWriter points = new RegionWriter(channel, indexStart + indexBytes(stationCount, vehicles.size()));
+            long pointCount = 0;
+
+            // the rows are calculated in parallel, but written in order, with a bounded number of pending rows
+            Deque<Future<GeoRoute[][]>> pending = new ArrayDeque<>();
+            int nextOrigin = 0;
+            while (nextOrigin < stationCount || !pending.isEmpty()) {
+                while (nextOrigin < stationCount && pending.size() < threads * 2) {
+                    int origin = nextOrigin++;
+                    pending.add(executor.submit(() -> calculateRow(graph, stationPositions, origin, vehicles)));
+                }
+                GeoRoute[][] row;
+                try {
+                    row = pending.poll().get();
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("Error calculating the station routes", e.getCause());
+                }
+                for (GeoRoute[] vehicleRoutes : row) {
+                    for (GeoRoute route : vehicleRoutes) {
+                        index.putLong(pointCount);
+                        if (route == null) {
+                            index.putDouble(Double.NaN);
+                            failedRoutes++;
+                            continue;
+                        }
+                        index.putDouble(route.getTotalDistance());
+                        for (GeoPoint point : route.getPoints()) {
+                            points.putDouble(point.getLatitude());
+                            points.putDouble(point.getLongitude());
+                        }
+                        pointCount += route.getPoints().size();
+                    }
+                }
+            }
+            index.putLong(pointCount);
+            index.putDouble(Double.NaN);
+            index.flush();
+            points.flush();
+            if (index.position() != indexStart + (entries + 1) * ENTRY_BYTES) {
+                throw new IllegalStateException("The index of the station route matrix is incomplete");
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        Files.move(temporaryFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        return failedRoutes;
+    }
+
+    /**
+     * @return the routes from a station to all the stations, by vehicle, with null for the
+     * routes which can't be calculated.
+     */
+    private static GeoRoute[][] calculateRow(GraphManager graph, List<GeoPoint> stationPositions, int origin,
+                                             List<String> vehicles) {
+        GeoRoute[][] row = new GeoRoute[vehicles.size()][stationPositions.size()];
+        GeoPoint originPoint = stationPositions.get(origin);
+        for (int vehicle = 0; vehicle < vehicles.size(); vehicle++) {
+            for (int destination = 0; destination < stationPositions.size(); destination++) {
+                try {
+                    row[vehicle][destination] = graph.obtainShortestRouteBetween(originPoint,
+                            stationPositions.get(destination), vehicles.get(vehicle));
+                } catch (Exception e) {
+                    row[vehicle][destination] = null;
+                }
+            }
+        }
+        return row;
+    }
+
+    private static long indexBytes(int stationCount, int vehicleCount) {
+        return ((long) stationCount * stationCount * vehicleCount + 1) * ENTRY_BYTES;
+    }
+
+    private static long align(long position) {
+        return (position + 7) & ~7L;
+    }
+
+    /**
+     * This class writes a region of the file sequentially, through a buffer.
+     */
+    private static final class RegionWriter {
+
+        private FileChannel channel;
+        private long position;
+        private ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+
+        RegionWriter(FileChannel channel, long position) {
+            this.channel = channel;
+            this.position = position;
+        }
+
+        void putLong(long value) throws IOException {
+            ensureRoom();
+            buffer.putLong(value);
+        }
+
+        void putDouble(double value) throws IOException {
+            ensureRoom();
+            buffer.putDouble(value);
+        }
+
+        long position() {
+            return position + buffer.position();
+        }
+
+        private void ensureRoom() throws IOException {
+            if (buffer.remaining() < 8) {
+                flush();
+            }
+        }
+
+        /**
+         * The buffer is used as a {@link Buffer}, as the covariant methods of newer JDKs don't
+         * exist in Java 8.
+         */
+        void flush() throws IOException {
+            ((Buffer) buffer).flip();
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+            ((Buffer) buffer).clear();
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package es.urjc.ia.bikesurbanfleets.common.index;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * This annotation marks the annotations whose annotated classes are listed in the type index
+ * at build time, so they can be found without scanning the classpath.
+ * @author IAgroup
+ *
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.ANNOTATION_TYPE)
+public @interface Indexed {
+}
@@ -0,0 +1,78 @@
+package es.urjc.ia.bikesurbanfleets.common.index;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * This annotation processor writes the type index of a module. For each annotation marked as
+ * {@link Indexed}, it writes a file with the names of the classes of the module annotated with it.
+ * It is registered as a service, so it runs in every module which has the common module in its
+ * classpath.
+ * @author IAgroup
+ *
+ */
+@SupportedAnnotationTypes("*")
+public class IndexedTypeProcessor extends AbstractProcessor {
+
+    /**
+     * These are the names of the annotated classes, by annotation name.
+     */
+    private Map<String, Set<String>> types = new TreeMap<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (TypeElement annotation : annotations) {
+            if (annotation.getAnnotation(Indexed.class) == null) {
+                continue;
+            }
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (element.getKind().isClass()) {
+                    String className = processingEnv.getElementUtils().getBinaryName((TypeElement) element).toString();
+                    types.computeIfAbsent(annotation.getQualifiedName().toString(), name -> new TreeSet<>())
+                            .add(className);
+                }
+            }
+        }
+
+        if (roundEnv.processingOver()) {
+            writeIndex();
+        }
+        // other processors can still process the same annotations
+        return false;
+    }
+
+    private void writeIndex() {
+        for (Map.Entry<String, Set<String>> entry : types.entrySet()) {
+            try {
+                FileObject file = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "",
+                        TypeIndex.INDEX_DIRECTORY + entry.getKey());
+                try (PrintWriter writer = new PrintWriter(file.openWriter())) {
+                    for (String className : entry.getValue()) {
+                        writer.println(className);
+                    }
+                }
+            } catch (IOException e) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                        "Error writing the type index of " + entry.getKey() + ": " + e.getMessage());
+            }
+        }
+    }
+}
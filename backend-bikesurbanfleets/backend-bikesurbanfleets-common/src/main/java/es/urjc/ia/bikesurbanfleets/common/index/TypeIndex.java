@@ -0,0 +1,118 @@
+package es.urjc.ia.bikesurbanfleets.common.index;
+
+import org.reflections.Reflections;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.annotation.Annotation;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * This class finds the classes annotated with an {@link Indexed} annotation. It reads the type
+ * index written at build time by {@link IndexedTypeProcessor}, so the classpath isn't scanned.
+ * The classpath is only scanned, once, if a type isn't in the index, e.g. a type of a plugin
+ * compiled without the processor, or if the scan is activated with the system property
+ * {@value #SCAN_PROPERTY}.
+ * @author IAgroup
+ *
+ */
+public class TypeIndex {
+
+    public static final String INDEX_DIRECTORY = "META-INF/bikesurbanfleets/index/";
+
+    public static final String SCAN_PROPERTY = "bikesurbanfleets.scanClasspath";
+
+    private static final Map<Class<? extends Annotation>, Set<Class<?>>> indexedTypes = new ConcurrentHashMap<>();
+    private static final Map<Class<? extends Annotation>, Set<Class<?>>> scannedTypes = new ConcurrentHashMap<>();
+
+    private static Reflections reflections;
+
+    private TypeIndex() {
+    }
+
+    /**
+     * @return the classes annotated with the annotation, from the index and, if the scan is
+     * activated, from the classpath.
+     */
+    public static Set<Class<?>> getAnnotatedTypes(Class<? extends Annotation> annotation) {
+        Set<Class<?>> types = indexedTypes.computeIfAbsent(annotation, TypeIndex::readIndex);
+        if (Boolean.getBoolean(SCAN_PROPERTY)) {
+            Set<Class<?>> allTypes = new LinkedHashSet<>(types);
+            allTypes.addAll(scanAnnotatedTypes(annotation));
+            return allTypes;
+        }
+        return types;
+    }
+
+    /**
+     * It finds the class whose annotation has the given type name.
+     * @param annotation the annotation of the type.
+     * @param typeName the function which returns the type name of an annotation, e.g. its value.
+     * @param type the type name to look for.
+     * @return the class of the type or null if it doesn't exist.
+     */
+    public static <A extends Annotation> Class<?> findType(Class<A> annotation, Function<A, String> typeName,
+                                                           String type) {
+        Class<?> typeClass = findType(getAnnotatedTypes(annotation), annotation, typeName, type);
+        if (typeClass == null) {
+            typeClass = findType(scanAnnotatedTypes(annotation), annotation, typeName, type);
+        }
+        return typeClass;
+    }
+
+    private static <A extends Annotation> Class<?> findType(Set<Class<?>> types, Class<A> annotation,
+                                                            Function<A, String> typeName, String type) {
+        for (Class<?> typeClass : types) {
+            if (typeName.apply(typeClass.getAnnotation(annotation)).equals(type)) {
+                return typeClass;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the classes annotated with the annotation found by scanning the classpath.
+     */
+    public static Set<Class<?>> scanAnnotatedTypes(Class<? extends Annotation> annotation) {
+        return scannedTypes.computeIfAbsent(annotation, key -> {
+            synchronized (TypeIndex.class) {
+                if (reflections == null) {
+                    reflections = new Reflections();
+                }
+                return Collections.unmodifiableSet(reflections.getTypesAnnotatedWith(key));
+            }
+        });
+    }
+
+    private static Set<Class<?>> readIndex(Class<? extends Annotation> annotation) {
+        Set<Class<?>> types = new LinkedHashSet<>();
+        ClassLoader classLoader = annotation.getClassLoader();
+        try {
+            Enumeration<URL> indexes = classLoader.getResources(INDEX_DIRECTORY + annotation.getName());
+            while (indexes.hasMoreElements()) {
+                URL index = indexes.nextElement();
+                try (BufferedReader reader = new BufferedReader(
+                        new InputStreamReader(index.openStream(), StandardCharsets.UTF_8))) {
+                    String className;
+                    while ((className = reader.readLine()) != null) {
+                        if (!className.trim().isEmpty()) {
+                            types.add(Class.forName(className.trim(), false, classLoader));
+                        }
+                    }
+                }
+            }
+        } catch (IOException | ClassNotFoundException e) {
+            throw new IllegalStateException("Error reading the type index of " + annotation.getName(), e);
+        }
+        return Collections.unmodifiableSet(types);
+    }
+}
@@ -1,5 +1,7 @@
 package es.urjc.ia.bikesurbanfleets.common.interfaces;
 
+import java.io.Serializable;
+
 /**
 /**
  * This interface represents all the objects at the simulation problem domain.
@@ -8,7 +10,7 @@ package es.urjc.ia.bikesurbanfleets.common.interfaces;
  *
  */
 
-public interface Entity {
+public interface Entity extends Serializable {
     int getId();
 
     String toString();
@@ -1,5 +1,6 @@
 package es.urjc.ia.bikesurbanfleets.common.interfaces;
 
+import java.io.Serializable;
 import java.util.List;
 /**
  * This interface provides the common behaviour of events.
@@ -7,7 +8,7 @@ import java.util.List;
  * @author IAgroup
  *
  */
-public interface Event extends Comparable<Event> {
+public interface Event extends Comparable<Event>, Serializable {
     /**
      * @return the time instant when the event will ocurr.
      */
@@ -15,10 +16,11 @@ public interface Event extends Comparable<Event> {
     
     /**
      * It proccesses the event so that the relevant changes at the system occur.
-     * @return a list of generated events as a consequence of event execution.
+     * @param newEvents the events generated as a consequence of event execution are added to it.
+     * It is provided by the simulation engine, which reuses it for all the events.
      * @throws Exception
      */
-    List<Event> execute() throws Exception;
+    void execute(List<Event> newEvents) throws Exception;
     
     /**
      * @return a list with all the entities that are updated (but not created) in the event.
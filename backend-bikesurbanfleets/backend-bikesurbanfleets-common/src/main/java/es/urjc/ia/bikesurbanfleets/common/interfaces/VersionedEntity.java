@@ -0,0 +1,16 @@
+package es.urjc.ia.bikesurbanfleets.common.interfaces;
+
+/**
+ * This interface represents the entities which count the modifications of their state, so the
+ * history only takes a new copy of an entity when it has been modified since the previous one.
+ * Every method which modifies the state of the entity must increase its version.
+ * @author IAgroup
+ *
+ */
+public interface VersionedEntity extends Entity {
+
+    /**
+     * @return a number which changes every time the state of the entity is modified.
+     */
+    int getVersion();
+}
@@ -34,9 +34,22 @@ public class CheckSum {
         
     }
     
+    /**
+     * @return the checksum of the last map which has been checked, or null if no map has been.
+     */
+    public String getMd5() {
+        return md5;
+    }
+
+    public static String md5Hex(File file) throws IOException {
+        try (FileInputStream input = new FileInputStream(file)) {
+            return DigestUtils.md5Hex(input);
+        }
+    }
+
     public boolean md5CheckSum(File file) throws IOException {
         Gson gson = new Gson();
-        String newMd5 = DigestUtils.md5Hex(new FileInputStream(file));
+        String newMd5 = md5Hex(file);
         if(md5 == null || !md5.equals(newMd5)) {
             this.md5 = newMd5;
             FileWriter fileWriter = new FileWriter(new File(GlobalInfo.TEMP_DIR + "/mapMd5.txt"));
@@ -1,11 +1,13 @@
 package es.urjc.ia.bikesurbanfleets.common.util;
 
+import java.io.Serializable;
+
 /**
  * This class is used to automatically generate identifiers for the different entities at the system.
  * @author IAgroup
  *
  */
-public class IdGenerator {
+public class IdGenerator implements Serializable {
 
     private int counter = 1;
 
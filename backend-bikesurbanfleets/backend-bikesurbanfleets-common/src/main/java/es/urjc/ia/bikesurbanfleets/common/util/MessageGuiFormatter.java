@@ -1,14 +1,13 @@
 package es.urjc.ia.bikesurbanfleets.common.util;
 
 import org.apache.commons.lang3.exception.ExceptionUtils;
-import org.apache.commons.math3.util.Precision;
 
 import java.util.Arrays;
 
 public class MessageGuiFormatter {
 
     private static String ERROR_PATTERN = "[Error]";
-    private static String PERCENTAGE_PATTERN = "[Percentage]";
+    private static String PROGRESS_PATTERN = "[Progress]";
 
     /**
      * Takes a string and separate it in a list of string that will be sended one by one
@@ -27,7 +26,11 @@ public class MessageGuiFormatter {
         System.out.println(ERROR_PATTERN);
     }
 
-    public static void showPercentageForGui(double percentage) {
-        System.out.println(PERCENTAGE_PATTERN + Precision.round(percentage, 2));
+    /**
+     * Sends to the gui via stdout a progress line of the simulation
+     * @param progress the progress as a json object
+     */
+    public static void showProgressForGui(String progress) {
+        System.out.println(PROGRESS_PATTERN + progress);
     }
 }
@@ -8,16 +8,35 @@ package es.urjc.ia.bikesurbanfleets.common.util;
 import com.google.gson.Gson;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
 import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * This class has just a static method that reads json definitions of parameters from a json text
  * to overwrite the values of the fields of the passed objetc with the values defined in json
+ * The fields of a parameters class are looked up once, the first time an object of the class
+ * is read, and kept as setters, so reading the parameters of many objects of the same class,
+ * e.g. users, doesn't use reflection again.
  * @author IAgroup
  *
  */
 public class ParameterReader {
-    
+
+    /**
+     * Gson instances are thread safe, so all the parameters are read with the same one.
+     */
+    private static final Gson gson = new Gson();
+
+    /**
+     * These are the setters of the fields of each parameters class, by field name.
+     */
+    private static final Map<Class<?>, Map<String, FieldSetter>> setters = new ConcurrentHashMap<>();
+
     //it takes a jsonobjetc that must have the following form:
     //  ...{
     //    "typeName": "USER_PAPERAT2018_OBHOLGER",
@@ -27,13 +46,13 @@ public class ParameterReader {
     //              ...
     //      }
     //  }
-    // the method takes the object param and substitutues the values of its fields, if these values 
+    // the method takes the object param and substitutues the values of its fields, if these values
     // are the same as defined in the json definition
     // For example, if param.parameter1 exists, it will have the value value_par1 after wards
     // if there is no parameter entry, the object is not altered
     // parameters that do not exist in either para o the json definition are ignired
     public static void getParameters(JsonObject jsondefinition, Object param) throws IllegalArgumentException, IllegalAccessException {
-        if (param == null) 
+        if (param == null)
             return;
         //read specific parameters
         JsonObject jsonparameters = jsondefinition.getAsJsonObject("parameters");
@@ -43,17 +62,55 @@ public class ParameterReader {
         }
 
         //if parameters are present substitute their values with the values from the parameters specified in jason
-        Field[] fields = param.getClass().getDeclaredFields();
-        JsonElement aux;
-        Gson gson = new Gson();
-        for (Field f : fields) {
-            aux = jsonparameters.get(f.getName());
-            if (aux != null) {
+        Map<String, FieldSetter> fieldSetters = getSetters(param.getClass());
+        for (Map.Entry<String, JsonElement> parameter : jsonparameters.entrySet()) {
+            FieldSetter setter = fieldSetters.get(parameter.getKey());
+            if (setter != null) {
+                setter.set(param, parameter.getValue());
+            }
+        }
+    }
+
+    private static Map<String, FieldSetter> getSetters(Class<?> paramClass) throws IllegalAccessException {
+        Map<String, FieldSetter> fieldSetters = setters.get(paramClass);
+        if (fieldSetters == null) {
+            fieldSetters = new HashMap<>();
+            for (Field f : paramClass.getDeclaredFields()) {
+                // the reference to the enclosing object of an inner class is not a parameter
+                if (f.isSynthetic() || Modifier.isStatic(f.getModifiers())) {
+                    continue;
+                }
                 f.setAccessible(true);
-                f.set(param, gson.fromJson(aux, f.getType()));
+                fieldSetters.put(f.getName(), new FieldSetter(MethodHandles.lookup().unreflectSetter(f), f.getType()));
+            }
+            setters.put(paramClass, fieldSetters);
+        }
+        return fieldSetters;
+    }
+
+    /**
+     * It sets the value of a field from its json value.
+     */
+    private static class FieldSetter {
+
+        private MethodHandle setter;
+        private Class<?> type;
+
+        private FieldSetter(MethodHandle setter, Class<?> type) {
+            this.setter = setter.asType(setter.type().changeParameterType(0, Object.class)
+                    .changeParameterType(1, Object.class));
+            this.type = type;
+        }
+
+        private void set(Object param, JsonElement value) {
+            try {
+                setter.invokeExact(param, gson.fromJson(value, type));
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException(e);
             }
         }
-        return;
     }
 
 }
@@ -5,13 +5,14 @@
  */
 package es.urjc.ia.bikesurbanfleets.common.util;
 
+import java.io.Serializable;
 import java.util.Random;
 
 /**
  *
  * @author holger
  */
-public class SimpleRandom {
+public class SimpleRandom implements Serializable {
     private Random random;
 
     public SimpleRandom(long seed) {
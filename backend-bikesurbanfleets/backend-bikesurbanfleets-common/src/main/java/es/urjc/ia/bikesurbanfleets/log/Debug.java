@@ -1,6 +1,5 @@
 package es.urjc.ia.bikesurbanfleets.log;
 
-import es.urjc.ia.bikesurbanfleets.common.config.GlobalInfo;
 import es.urjc.ia.bikesurbanfleets.common.interfaces.Entity;
 import es.urjc.ia.bikesurbanfleets.common.interfaces.Event;
 import org.apache.commons.io.FileUtils;
@@ -11,20 +10,36 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+
+/**
+ * It writes the log files of the entities of a simulation if debug mode is activated.
+ * Each simulation has its own instance, which writes in its own debug directory.
+ * @author IAgroup
+ *
+ */
 public class Debug {
 
-    public static boolean DEBUG_MODE;
-    private static FileWriterMap fileWriterMap = new FileWriterMap();
-    private static final Path DEBUG_PATH = Paths.get(GlobalInfo.DEBUG_DIR + "/debug_logs");
+    private final boolean debugMode;
+    private final FileWriterMap fileWriterMap = new FileWriterMap();
+    private final Path debugPath;
+
+    public Debug(boolean debugMode, String debugDir) {
+        this.debugMode = debugMode;
+        this.debugPath = Paths.get(debugDir + "/debug_logs");
+    }
+
+    public boolean isDebugMode() {
+        return debugMode;
+    }
 
-    public static void init() throws IOException {
-        if(DEBUG_MODE) {
-            FileUtils.deleteDirectory(new File(DEBUG_PATH.toAbsolutePath().toString()));
+    public void init() throws IOException {
+        if(debugMode) {
+            FileUtils.deleteDirectory(new File(debugPath.toAbsolutePath().toString()));
         }
     }
 
-    public static void log(String message, Entity entity, Event event) throws IOException {
-        if(DEBUG_MODE) {
+    public void log(String message, Entity entity, Event event) throws IOException {
+        if(debugMode) {
             FileWriter writer = fileWriterMap.getFileWriter(entity);
             if(writer == null) {
                 writer = createLog(entity);
@@ -38,8 +53,8 @@ public class Debug {
         }
     }
 
-    public static void log(Entity entity, Event event) throws IOException {
-        if(DEBUG_MODE) {
+    public void log(Entity entity, Event event) throws IOException {
+        if(debugMode) {
             FileWriter writer = fileWriterMap.getFileWriter(entity);
             if(writer == null) {
                 writer = createLog(entity);
@@ -52,13 +67,13 @@ public class Debug {
         }
     }
 
-    public static void closeLog(Entity entity, int id) throws IOException {
-        if(DEBUG_MODE) {
+    public void closeLog(Entity entity, int id) throws IOException {
+        if(debugMode) {
             fileWriterMap.closeFileWriter(entity, id);
         }
     }
 
-    private static FileWriter createLog(Entity entity) throws IOException {
+    private FileWriter createLog(Entity entity) throws IOException {
 
         Class<?> entityClass = entity.getClass();
         while(entityClass.getSuperclass() != Object.class) {
@@ -66,10 +81,10 @@ public class Debug {
         }
 
         String folderNameLogs = entityClass.getSimpleName();
-        Path entityLogPath = Paths.get(DEBUG_PATH.toString(), folderNameLogs);
+        Path entityLogPath = Paths.get(debugPath.toString(), folderNameLogs);
         System.out.println(entityLogPath.toAbsolutePath());
-        if(!Files.exists(DEBUG_PATH)) {
-            Files.createDirectory(DEBUG_PATH.toAbsolutePath());
+        if(!Files.exists(debugPath)) {
+            Files.createDirectory(debugPath.toAbsolutePath());
         }
 
         if(!Files.exists(entityLogPath)) {
@@ -2,9 +2,7 @@ package es.urjc.ia.bikesurbanfleets.usersgenerator.entrypoint;
 
 import com.google.gson.Gson;
 import com.google.gson.JsonObject;
-import org.reflections.Reflections;
-
-import java.util.Set;
+import es.urjc.ia.bikesurbanfleets.common.index.TypeIndex;
 
 /**
  * This class serves to create, in a generic way, entry point instances.
@@ -13,16 +11,8 @@ import java.util.Set;
  */
 public class EntryPointFactory {
 
-    private Set<Class<?>> entryPointClasses;
-
     private Gson gson = new Gson();
 
-    public EntryPointFactory() {
-        //Load entry points by reflection using the annotation EntryPointType
-        Reflections reflections = new Reflections();
-        this.entryPointClasses = reflections.getTypesAnnotatedWith(EntryPointType.class);
-    }
-
     /**
      * It creates an entry point of a specific type.
      * @param json it contains the entry point information.
@@ -30,11 +20,9 @@ public class EntryPointFactory {
      * @return an instance of specific entry point type.
      */
     public EntryPoint createEntryPoint(JsonObject json, String epType) {
-        for(Class<?> entryPointClass: entryPointClasses) {
-            String epTypeAnnotation = entryPointClass.getAnnotation(EntryPointType.class).value();
-            if(epTypeAnnotation.equals(epType)) {
-                return (EntryPoint) gson.fromJson(json, entryPointClass);
-            }
+        Class<?> entryPointClass = TypeIndex.findType(EntryPointType.class, EntryPointType::value, epType);
+        if(entryPointClass != null) {
+            return (EntryPoint) gson.fromJson(json, entryPointClass);
         }
         throw new IllegalArgumentException("The type of entry point " + epType + "doesn't exists");
     }
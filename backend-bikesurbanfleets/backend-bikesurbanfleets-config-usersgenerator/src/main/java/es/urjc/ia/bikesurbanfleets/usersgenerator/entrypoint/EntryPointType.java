@@ -1,10 +1,13 @@
 package es.urjc.ia.bikesurbanfleets.usersgenerator.entrypoint;
 
+import es.urjc.ia.bikesurbanfleets.common.index.Indexed;
+
 import java.lang.annotation.ElementType;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
 
+@Indexed
 @Retention(RetentionPolicy.RUNTIME)
 @Target(ElementType.TYPE)
 public @interface EntryPointType {
@@ -5,7 +5,9 @@ import es.urjc.ia.bikesurbanfleets.common.util.JsonValidation.ValidationParams;
 import es.urjc.ia.bikesurbanfleets.common.util.MessageGuiFormatter;
 import es.urjc.ia.bikesurbanfleets.common.config.GlobalInfo;
 import es.urjc.ia.bikesurbanfleets.core.config.*;
+import es.urjc.ia.bikesurbanfleets.core.core.ProgressReporter;
 import es.urjc.ia.bikesurbanfleets.core.core.SimulationEngine;
+import es.urjc.ia.bikesurbanfleets.core.core.SimulationSnapshot;
 import es.urjc.ia.bikesurbanfleets.core.exceptions.ValidationException;
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.CommandLineParser;
@@ -14,6 +16,7 @@ import org.apache.commons.cli.Options;
 import org.apache.commons.cli.ParseException;
 
 import java.io.File;
+import java.io.IOException;
 
 
 public class Application {
@@ -29,6 +32,12 @@ public class Application {
     private static String historyOutputPath;
     private static String validator;
     private static boolean callFromFrontend;
+    private static String snapshotInstant;
+    private static String snapshotOutput;
+    private static String restoreSnapshot;
+    private static String progressOutput;
+    private static String progressInterval;
+    private static boolean noProgress;
 
     
     private static CommandLine commandParser(String[] args) throws ParseException {
@@ -44,6 +53,12 @@ public class Application {
         options.addOption("historyOutput", true, "History Path for the simulation");
         options.addOption("validator", true, "Directory to the js validator");
         options.addOption("callFromFrontend", false, "Backend has been called by frontend");
+        options.addOption("snapshotInstant", true, "Time instant at which a snapshot of the simulation is written");
+        options.addOption("snapshotOutput", true, "File where the snapshot is written");
+        options.addOption("restoreSnapshot", true, "Snapshot file from which the simulation continues");
+        options.addOption("progressOutput", true, "File where the progress is written as json lines, instead of the stdout");
+        options.addOption("progressInterval", true, "Milliseconds between two progress lines");
+        options.addOption("noProgress", false, "The progress of the simulation isn't published");
     
         CommandLineParser parser = new DefaultParser();
         return parser.parse(options, args);
@@ -76,6 +91,12 @@ public class Application {
         historyOutputPath = cmd.getOptionValue("historyOutput");
         validator = cmd.getOptionValue("validator");
         callFromFrontend = cmd.hasOption("callFromFrontend");
+        snapshotInstant = cmd.getOptionValue("snapshotInstant");
+        snapshotOutput = cmd.getOptionValue("snapshotOutput");
+        restoreSnapshot = cmd.getOptionValue("restoreSnapshot");
+        progressOutput = cmd.getOptionValue("progressOutput");
+        progressInterval = cmd.getOptionValue("progressInterval");
+        noProgress = cmd.hasOption("noProgress");
         
         checkParams(); // If not valid, throws exception
         ConfigJsonReader jsonReader = new ConfigJsonReader(globalConfig, stationsConfig, usersConfig);
@@ -91,7 +112,18 @@ public class Application {
 
             //TODO mapPath not obligatory for other graph managers
             if(mapPath != null) {
-                SimulationEngine simulation = new SimulationEngine(globalInfo, stationsInfo, usersInfo, mapPath);
+                SimulationEngine simulation;
+                if(restoreSnapshot != null) {
+                    SimulationSnapshot snapshot = SimulationSnapshot.read(new File(restoreSnapshot));
+                    simulation = new SimulationEngine(globalInfo, usersInfo, snapshot, mapPath);
+                }
+                else {
+                    simulation = new SimulationEngine(globalInfo, stationsInfo, usersInfo, mapPath);
+                }
+                if(snapshotInstant != null && snapshotOutput != null) {
+                    simulation.takeSnapshotAt(Integer.parseInt(snapshotInstant), snapshotOutput);
+                }
+                simulation.setProgressReporter(createProgressReporter());
                 simulation.run();
             }
             else {
@@ -103,6 +135,17 @@ public class Application {
     }
 
 
+    private static ProgressReporter createProgressReporter() throws IOException {
+        if(noProgress) {
+            return null;
+        }
+        long interval = progressInterval != null ? Long.parseLong(progressInterval) : ProgressReporter.DEFAULT_INTERVAL;
+        if(progressOutput != null) {
+            return ProgressReporter.toFile(progressOutput, interval);
+        }
+        return ProgressReporter.forGui(interval);
+    }
+
     private static void checkParams() throws Exception {
 
         String exMessage = null; // Message for exceptions
@@ -56,7 +56,7 @@ public class ApplicationHolger {
 
         String test="paperAT2018/obedient_Holger_recomender_prueba";
         String basedir="/Users/holger/workspace/BikeProjects/Bike3S/Bike3STests/";
-        GlobalInfo.DEBUG_DIR=basedir+test+ "/debug";
+        String debugDir=basedir+test+ "/debug";
         System.out.println("Test:"+test);
 
         //Create auxiliary folders
@@ -64,7 +64,7 @@ public class ApplicationHolger {
         if(!auxiliaryDir.exists()) {
             auxiliaryDir.mkdirs();
         }
-        auxiliaryDir = new File(GlobalInfo.DEBUG_DIR);
+        auxiliaryDir = new File(debugDir);
         if(!auxiliaryDir.exists()) {
             auxiliaryDir.mkdirs();
         }
@@ -106,6 +106,7 @@ public class ApplicationHolger {
             GlobalInfo globalInfo = jsonReader.readGlobalConfiguration();
             UsersConfig usersInfo = jsonReader.readUsersConfiguration();
             StationsConfig stationsInfo = jsonReader.readStationsConfiguration();
+            globalInfo.setDebugDir(debugDir);
             System.out.println("DEBUG MODE: " + globalInfo.isDebugMode());
             if(historyOutputPath != null) {
                 globalInfo.setHistoryOutputPath(historyOutputPath);
@@ -1,12 +1,11 @@
 package es.urjc.ia.bikesurbanfleets.core;
 
 import com.google.gson.Gson;
-import com.google.gson.JsonObject;
-import es.urjc.ia.bikesurbanfleets.common.util.MessageGuiFormatter;
 import es.urjc.ia.bikesurbanfleets.common.config.GlobalInfo;
-import es.urjc.ia.bikesurbanfleets.core.config.*;
-import es.urjc.ia.bikesurbanfleets.core.core.SimulationEngine;
 import es.urjc.ia.bikesurbanfleets.core.exceptions.ValidationException;
+import es.urjc.ia.bikesurbanfleets.core.sweeps.SweepCell;
+import es.urjc.ia.bikesurbanfleets.core.sweeps.SweepDefinition;
+import es.urjc.ia.bikesurbanfleets.core.sweeps.SweepRunner;
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.CommandLineParser;
 import org.apache.commons.cli.DefaultParser;
@@ -25,12 +24,6 @@ import java.util.List;
 
 public class HolgerScript {
 
-    private class Tests {
-
-        String basedir;
-        private List<JsonObject> tests;
-    }
-
     //Program parameters
     private static String baseDir;
     private static String debugDir;
@@ -60,8 +53,8 @@ public class HolgerScript {
 
         Gson gson = new Gson();
         FileReader reader = new FileReader(testFile);
-        Tests tests = gson.fromJson(reader, Tests.class);
-        baseDir=tests.basedir;
+        SweepDefinition tests = gson.fromJson(reader, SweepDefinition.class);
+        baseDir=tests.getBasedir();
         //create new dir on basedir
         DateFormat dateFormat = new SimpleDateFormat("dd_MM_yyyy_HH:mm:ss");
         Date date = new Date();
@@ -86,80 +79,18 @@ public class HolgerScript {
             auxiliaryDir.mkdirs();
         }
 
-        //now loop through the tests
-        ArrayList<String> testnames = new ArrayList<String>();
-        for (JsonObject t : tests.tests) {
-            String usertype = t.getAsJsonObject("userType").get("typeName").getAsString();
-            String recomendertype = t.getAsJsonObject("recommendationSystemType").get("typeName").getAsString();
-            String testdir = usertype + "_" + recomendertype;
-            int i = 0;
-            while (exists(testdir + i, testnames)) {
-                i++;
+        //now run the tests in parallel, sharing the loaded map
+        List<SweepCell> cells = tests.expand();
+        SweepRunner sweepRunner = new SweepRunner(baseDir, mapPath, Runtime.getRuntime().availableProcessors());
+        sweepRunner.run(cells, historyDir, debugDir);
+        SweepRunner.writeSummary(cells, baseTestsDir);
+        for (SweepCell cell : cells) {
+            if (cell.getError() == null) {
+                runResultAanalisis(cell.getName());
             }
-            testdir = testdir + i;
-            testnames.add(testdir);
-            runSimulationTest(testdir, t.getAsJsonObject("userType"), t.getAsJsonObject("recommendationSystemType"));
-            runResultAanalisis(testdir);
-        }
-    }
-
-    private boolean exists(String name, List<String> names) {
-        for (String s:names) {
-            if (s.equals(name)) 
-                return true;
         }
-        return false;
     }
 
-    private void runSimulationTest(String testdir, JsonObject usertype, JsonObject recomendertype) {
-        //Create auxiliary folders
-        GlobalInfo.DEBUG_DIR = debugDir + "/"+ testdir;
-        File auxiliaryDir = new File(GlobalInfo.DEBUG_DIR);
-        if (!auxiliaryDir.exists()) {
-            auxiliaryDir.mkdirs();
-        }
-        String globalConfig = baseDir + "/conf/global_configuration.json";
-        String usersConfig = baseDir + "/conf/users_configuration.json";
-        String stationsConfig = baseDir + "/conf/stations_configuration.json";
-        String historyOutputPath = historyDir + "/" + testdir;
-        auxiliaryDir = new File(historyOutputPath);
-        if (!auxiliaryDir.exists()) {
-            auxiliaryDir.mkdirs();
-        }
-
-        ConfigJsonReader jsonReader = new ConfigJsonReader(globalConfig, stationsConfig, usersConfig);
-
-        try {
-            GlobalInfo globalInfo = jsonReader.readGlobalConfiguration();
-            //modify recomenderspecification with the one from the test
-            globalInfo.setRecommendationSystemType(recomendertype);
-            
-            UsersConfig usersInfo = jsonReader.readUsersConfiguration();
-            //modify user type specification with the one from the test
-            List<JsonObject> users=usersInfo.getUsers();
-            for (JsonObject user: users){
-                user.remove("userType");
-                user.add("userType", usertype);
-            }
-            
-            StationsConfig stationsInfo = jsonReader.readStationsConfiguration();
-            System.out.println("DEBUG MODE: " + globalInfo.isDebugMode());
-            if (historyOutputPath != null) {
-                globalInfo.setHistoryOutputPath(historyOutputPath);
-            }
-
-            if (mapPath != null) {
-                SimulationEngine simulation = new SimulationEngine(globalInfo, stationsInfo, usersInfo, mapPath);
-                simulation.run();
-            } else {
-                MessageGuiFormatter.showErrorsForGui("You should specify a map directory");
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
-            throw new RuntimeException();
-        }
-    }
-    
     private void runResultAanalisis(String testdir) throws IOException, InterruptedException {
          File auxiliaryDir = new File(analisisDir + testdir);
         if (!auxiliaryDir.exists()) {
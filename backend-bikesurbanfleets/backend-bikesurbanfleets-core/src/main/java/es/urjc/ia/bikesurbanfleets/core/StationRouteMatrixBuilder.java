@@ -0,0 +1,67 @@
+package es.urjc.ia.bikesurbanfleets.core;
+
+import es.urjc.ia.bikesurbanfleets.common.config.GlobalInfo;
+import es.urjc.ia.bikesurbanfleets.common.graphs.GeoPoint;
+import es.urjc.ia.bikesurbanfleets.common.graphs.GraphHopperIntegration;
+import es.urjc.ia.bikesurbanfleets.common.graphs.StationRouteMatrix;
+import es.urjc.ia.bikesurbanfleets.common.util.CheckSum;
+import es.urjc.ia.bikesurbanfleets.core.config.ConfigJsonReader;
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.Options;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * It calculates the routes between all the stations of a stations configuration with the graph
+ * of a map, and writes them to a station route matrix file, which the simulations of the same
+ * map and stations can use through the stationRouteMatrix global configuration value.
+ * Usage: StationRouteMatrixBuilder -stationsConfig file -mapPath file -output file
+ * [-vehicles foot,bike] [-threads n] (default, the available processors).
+ * @author IAgroup
+ *
+ */
+public class StationRouteMatrixBuilder {
+
+    public static void main(String[] args) throws Exception {
+        Options options = new Options();
+        options.addOption("stationsConfig", true, "Directory to the stations configuration file");
+        options.addOption("mapPath", true, "Directory to map");
+        options.addOption("output", true, "File where the station route matrix is written");
+        options.addOption("vehicles", true, "Vehicles of the routes, separated by commas");
+        options.addOption("threads", true, "Number of threads which calculate the routes");
+        CommandLine cmd = new DefaultParser().parse(options, args);
+
+        String stationsConfig = cmd.getOptionValue("stationsConfig");
+        String mapPath = cmd.getOptionValue("mapPath");
+        String output = cmd.getOptionValue("output");
+        if (stationsConfig == null || mapPath == null || output == null) {
+            throw new IllegalArgumentException("Usage: StationRouteMatrixBuilder -stationsConfig file -mapPath file "
+                    + "-output file [-vehicles foot,bike] [-threads n]");
+        }
+        List<String> vehicles = Arrays.asList(cmd.getOptionValue("vehicles", "foot,bike").split(","));
+        int threads = cmd.hasOption("threads") ? Integer.parseInt(cmd.getOptionValue("threads"))
+                : Runtime.getRuntime().availableProcessors();
+
+        File auxiliaryDir = new File(GlobalInfo.TEMP_DIR);
+        if (!auxiliaryDir.exists()) {
+            auxiliaryDir.mkdirs();
+        }
+        List<GeoPoint> stations = new ConfigJsonReader(null, stationsConfig, null)
+                .readStationsConfiguration().getPositions();
+        GraphHopperIntegration graph = new GraphHopperIntegration(mapPath);
+        String mapChecksum = CheckSum.md5Hex(new File(mapPath));
+
+        long start = System.nanoTime();
+        int failedRoutes = StationRouteMatrix.write(new File(output), mapChecksum, stations, vehicles, graph, threads);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.println("Station route matrix of " + stations.size() + " stations and vehicles " + vehicles
+                + " written to " + output + " (" + new File(output).length() + " bytes) in "
+                + String.format("%.1f", seconds) + " s");
+        if (failedRoutes > 0) {
+            System.out.println(failedRoutes + " routes couldn't be calculated and will be calculated by the simulation");
+        }
+    }
+}
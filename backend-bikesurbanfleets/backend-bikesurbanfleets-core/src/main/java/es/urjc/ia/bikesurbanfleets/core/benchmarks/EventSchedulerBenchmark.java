@@ -0,0 +1,106 @@
+package es.urjc.ia.bikesurbanfleets.core.benchmarks;
+
+import es.urjc.ia.bikesurbanfleets.common.interfaces.Entity;
+import es.urjc.ia.bikesurbanfleets.common.interfaces.Event;
+import es.urjc.ia.bikesurbanfleets.common.util.SimpleRandom;
+import es.urjc.ia.bikesurbanfleets.core.core.CalendarQueueEventScheduler;
+import es.urjc.ia.bikesurbanfleets.core.core.EventScheduler;
+import es.urjc.ia.bikesurbanfleets.core.core.PriorityQueueEventScheduler;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * It measures the events per second of the event schedulers with a synthetic workload which
+ * resembles a simulation day: every user appears at a random instant of the day and then
+ * generates a chain of follow-up events a few minutes apart.
+ * Usage: EventSchedulerBenchmark [number of users...] (default 100000 1000000 10000000).
+ * The largest sizes need a big heap, e.g. -Xmx4g.
+ * @author IAgroup
+ *
+ */
+public class EventSchedulerBenchmark {
+
+    private static final int DAY = 24 * 60 * 60;
+    private static final int EVENTS_PER_USER = 6;
+    private static final int MAX_DELAY = 30 * 60;
+    private static final long SEED = 1;
+
+    private static class BenchmarkEvent implements Event {
+
+        private int instant;
+        private int remaining;
+
+        BenchmarkEvent(int instant, int remaining) {
+            this.instant = instant;
+            this.remaining = remaining;
+        }
+
+        @Override
+        public int getInstant() {
+            return instant;
+        }
+
+        @Override
+        public void execute(List<Event> newEvents) {
+        }
+
+        @Override
+        public List<Entity> getEntities() {
+            return Collections.emptyList();
+        }
+    }
+
+    public static void main(String[] args) {
+        int[] userCounts = {100_000, 1_000_000, 10_000_000};
+        if (args.length > 0) {
+            userCounts = new int[args.length];
+            for (int i = 0; i < args.length; i++) {
+                userCounts[i] = Integer.parseInt(args[i]);
+            }
+        }
+
+        // warm up both implementations before measuring
+        run(PriorityQueueEventScheduler::new, 100_000);
+        run(CalendarQueueEventScheduler::new, 100_000);
+
+        System.out.println("users\tscheduler\tevents\tseconds\tevents/sec");
+        for (int users : userCounts) {
+            report(PriorityQueueEventScheduler.TYPE, PriorityQueueEventScheduler::new, users);
+            report(CalendarQueueEventScheduler.TYPE, CalendarQueueEventScheduler::new, users);
+        }
+    }
+
+    private static void report(String name, Supplier<EventScheduler> scheduler, int users) {
+        System.gc();
+        long start = System.nanoTime();
+        long events = run(scheduler, users);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.println(users + "\t" + name + "\t" + events + "\t"
+                + String.format("%.3f", seconds) + "\t" + String.format("%.0f", events / seconds));
+    }
+
+    private static long run(Supplier<EventScheduler> schedulerSupplier, int users) {
+        SimpleRandom random = new SimpleRandom(SEED);
+        EventScheduler scheduler = schedulerSupplier.get();
+        for (int i = 0; i < users; i++) {
+            scheduler.add(new BenchmarkEvent(random.nextInt(0, DAY), EVENTS_PER_USER - 1));
+        }
+
+        long events = 0;
+        int lastInstant = 0;
+        while (!scheduler.isEmpty()) {
+            BenchmarkEvent event = (BenchmarkEvent) scheduler.poll();
+            if (event.instant < lastInstant) {
+                throw new IllegalStateException("Events returned out of order");
+            }
+            lastInstant = event.instant;
+            events++;
+            if (event.remaining > 0) {
+                scheduler.add(new BenchmarkEvent(event.instant + random.nextInt(1, MAX_DELAY), event.remaining - 1));
+            }
+        }
+        return events;
+    }
+}
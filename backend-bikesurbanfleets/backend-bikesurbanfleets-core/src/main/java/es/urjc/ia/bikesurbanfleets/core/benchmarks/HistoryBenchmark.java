@@ -0,0 +1,89 @@
+package es.urjc.ia.bikesurbanfleets.core.benchmarks;
+
+import com.google.gson.JsonObject;
+import es.urjc.ia.bikesurbanfleets.common.graphs.GeoPoint;
+import es.urjc.ia.bikesurbanfleets.common.interfaces.Entity;
+import es.urjc.ia.bikesurbanfleets.common.interfaces.Event;
+import es.urjc.ia.bikesurbanfleets.history.History;
+import es.urjc.ia.bikesurbanfleets.infraestructure.entities.Station;
+import es.urjc.ia.bikesurbanfleets.services.SimulationServices;
+import es.urjc.ia.bikesurbanfleets.users.User;
+import es.urjc.ia.bikesurbanfleets.users.UserFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * It measures the events per second registered by the json history, i.e. the cost of taking the
+ * historic snapshots of the entities of an event and finding out their changes. Each event has a
+ * user, whose position changes in every event, and a station, which doesn't change, as most of
+ * the entities of the events of a simulation. The history is written in the calling thread.
+ * Each round registers the events in a new history with the users and stations of the
+ * configuration, so the history of a round doesn't grow with the previous ones, see
+ * {@link ServicesBenchmark}.
+ * Usage: HistoryBenchmark globalConfig usersConfig stationsConfig mapPath [events per round]
+ * (default 200000).
+ * @author IAgroup
+ *
+ */
+public class HistoryBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        ServicesBenchmark benchmark = new ServicesBenchmark(args, "HistoryBenchmark globalConfig "
+                + "usersConfig stationsConfig mapPath [events per round]");
+        int eventsPerRound = args.length > 4 ? Integer.parseInt(args[4]) : 200_000;
+
+        benchmark.measure("events", eventsPerRound, 1, () -> registerEvents(benchmark, eventsPerRound));
+    }
+
+    /**
+     * @return the nanoseconds spent registering the events, excluding the creation of the entities.
+     */
+    private static long registerEvents(ServicesBenchmark benchmark, int events) throws Exception {
+        SimulationServices services = benchmark.createServices();
+        History history = (History) services.getContext().getHistory();
+        List<Station> stations = services.getInfrastructureManager().consultStations();
+        List<JsonObject> userDefinitions = benchmark.getUserDefinitions();
+        UserFactory userFactory = new UserFactory();
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < userDefinitions.size(); i++) {
+            users.add(userFactory.createUser(userDefinitions.get(i), services, i));
+        }
+        GeoPoint[] positions = {stations.get(0).getPosition(), stations.get(stations.size() - 1).getPosition()};
+
+        long start = System.nanoTime();
+        for (int i = 0; i < events; i++) {
+            User user = users.get(i % users.size());
+            user.setPosition(positions[(i / users.size()) % 2]);
+            history.registerEvent(new BenchmarkEvent(user, stations.get(i % stations.size())));
+        }
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * All the events are registered at the same instant, so the history doesn't write any file.
+     */
+    private static class BenchmarkEvent implements Event {
+
+        private List<Entity> entities;
+
+        BenchmarkEvent(User user, Station station) {
+            this.entities = Arrays.asList(user, station);
+        }
+
+        @Override
+        public int getInstant() {
+            return 0;
+        }
+
+        @Override
+        public void execute(List<Event> newEvents) {
+        }
+
+        @Override
+        public List<Entity> getEntities() {
+            return entities;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package es.urjc.ia.bikesurbanfleets.core.benchmarks;
+
+import es.urjc.ia.bikesurbanfleets.common.graphs.GeoPoint;
+import es.urjc.ia.bikesurbanfleets.common.graphs.GraphHopperIntegration;
+import es.urjc.ia.bikesurbanfleets.common.graphs.GraphManager;
+import es.urjc.ia.bikesurbanfleets.common.util.SimpleRandom;
+import es.urjc.ia.bikesurbanfleets.core.config.ConfigJsonReader;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * It measures the routes per second which one graph manager calculates when it's shared by
+ * several threads, for 1, 2, 4... threads up to the given maximum. The routes go between random
+ * points around the stations of a stations configuration, by bike, as the users' trips do.
+ * Usage: RoutingBenchmark stationsConfig mapPath [max threads] [routes per measure]
+ * (default, the available processors and 20000 routes).
+ * @author IAgroup
+ *
+ */
+public class RoutingBenchmark {
+
+    private static final long SEED = 1;
+
+    /**
+     * It is the maximum distance, in degrees, between a random point and its station.
+     */
+    private static final double SPREAD = 0.002;
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            throw new IllegalArgumentException("Usage: RoutingBenchmark stationsConfig mapPath [max threads] "
+                    + "[routes per measure]");
+        }
+        List<GeoPoint> stations = new ConfigJsonReader(null, args[0], null).readStationsConfiguration().getPositions();
+        int maxThreads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        int routes = args.length > 3 ? Integer.parseInt(args[3]) : 20_000;
+        if (stations.isEmpty()) {
+            throw new IllegalArgumentException("The stations configuration has no stations");
+        }
+
+        GraphManager graph = new GraphHopperIntegration(args[1]);
+        GeoPoint[] points = randomPoints(stations, 2 * routes);
+
+        // warm up with the maximum number of threads before measuring
+        route(graph, points, Math.min(routes, 2_000), maxThreads);
+
+        System.out.println("threads\troutes\tfailed\tseconds\troutes/s");
+        int threads = 1;
+        while (true) {
+            long start = System.nanoTime();
+            int failed = route(graph, points, routes, threads);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.println(threads + "\t" + routes + "\t" + failed + "\t" + String.format("%.2f", seconds)
+                    + "\t" + String.format("%.0f", routes / seconds));
+            if (threads >= maxThreads) {
+                break;
+            }
+            threads = Math.min(threads * 2, maxThreads);
+        }
+    }
+
+    private static GeoPoint[] randomPoints(List<GeoPoint> stations, int count) {
+        SimpleRandom random = new SimpleRandom(SEED);
+        GeoPoint[] points = new GeoPoint[count];
+        for (int i = 0; i < count; i++) {
+            GeoPoint station = stations.get(random.nextInt(0, stations.size()));
+            points[i] = new GeoPoint(station.getLatitude() + random.nextDouble(-SPREAD, SPREAD),
+                    station.getLongitude() + random.nextDouble(-SPREAD, SPREAD));
+        }
+        return points;
+    }
+
+    /**
+     * It calculates the routes between the consecutive pairs of points, taking them from a
+     * shared counter, with the given number of threads.
+     * @return the number of routes which couldn't be calculated.
+     */
+    private static int route(GraphManager graph, GeoPoint[] points, int routes, int threads) throws Exception {
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                workers.add(executor.submit(() -> {
+                    for (int route = next.getAndIncrement(); route < routes; route = next.getAndIncrement()) {
+                        try {
+                            graph.obtainShortestRouteBetween(points[2 * route], points[2 * route + 1], "bike");
+                        } catch (Exception e) {
+                            failed.incrementAndGet();
+                        }
+                    }
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        return failed.get();
+    }
+}
@@ -0,0 +1,109 @@
+package es.urjc.ia.bikesurbanfleets.core.benchmarks;
+
+import com.google.gson.JsonObject;
+import es.urjc.ia.bikesurbanfleets.common.config.GlobalInfo;
+import es.urjc.ia.bikesurbanfleets.common.graphs.GraphManager;
+import es.urjc.ia.bikesurbanfleets.core.config.ConfigJsonReader;
+import es.urjc.ia.bikesurbanfleets.core.config.StationsConfig;
+import es.urjc.ia.bikesurbanfleets.core.config.UsersConfig;
+import es.urjc.ia.bikesurbanfleets.services.SimulationContext;
+import es.urjc.ia.bikesurbanfleets.services.SimulationServiceConfigData;
+import es.urjc.ia.bikesurbanfleets.services.SimulationServices;
+
+import java.util.List;
+
+/**
+ * It is the harness of the benchmarks which measure an operation on the services of a
+ * simulation. It reads the configuration files and the map given as the first four arguments,
+ * globalConfig usersConfig stationsConfig mapPath, and loads the map once, so each round can
+ * create new services which share it. The first rounds are warm-up rounds, and then the items
+ * per second of several measures are printed as a table.
+ * @author IAgroup
+ *
+ */
+final class ServicesBenchmark {
+
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURES = 5;
+
+    /**
+     * It is a round of a benchmark, which does the measured operation on new services.
+     */
+    interface Round {
+
+        /**
+         * @return the nanoseconds spent in the measured operation, excluding its preparation.
+         */
+        long run() throws Exception;
+    }
+
+    private final GlobalInfo globalInfo;
+    private final StationsConfig stationsInfo;
+    private final List<JsonObject> userDefinitions;
+    private final GraphManager graphManager;
+
+    /**
+     * @param usage the arguments of the benchmark, shown if the first four ones are missing.
+     */
+    ServicesBenchmark(String[] args, String usage) throws Exception {
+        if (args.length < 4) {
+            throw new IllegalArgumentException("Usage: " + usage);
+        }
+        ConfigJsonReader jsonReader = new ConfigJsonReader(args[0], args[2], args[1]);
+        this.globalInfo = jsonReader.readGlobalConfiguration();
+        UsersConfig usersInfo = jsonReader.readUsersConfiguration();
+        this.stationsInfo = jsonReader.readStationsConfiguration();
+        this.userDefinitions = usersInfo.getUsers();
+        if (userDefinitions.isEmpty()) {
+            throw new IllegalArgumentException("The users configuration has no users");
+        }
+
+        JsonObject graphParameters = new JsonObject();
+        graphParameters.addProperty("mapDir", args[3]);
+        this.graphManager = createServices(new SimulationServiceConfigData()
+                .setGraphManagerType(globalInfo.getGraphManagerType())
+                .setGraphParameters(graphParameters)).getGraphManager();
+    }
+
+    List<JsonObject> getUserDefinitions() {
+        return userDefinitions;
+    }
+
+    /**
+     * @return new services, with a new simulation context, which use the loaded map.
+     */
+    SimulationServices createServices() throws Exception {
+        return createServices(new SimulationServiceConfigData().setGraphManager(graphManager));
+    }
+
+    private SimulationServices createServices(SimulationServiceConfigData configData) throws Exception {
+        SimulationContext context = new SimulationContext(globalInfo);
+        configData.setBbox(globalInfo.getBoundingBox())
+                .setRecomSystemType(globalInfo.getRecommendationSystemTypeJsonDescription())
+                .setStations(stationsInfo.createStations(context));
+        return new SimulationServices(context, configData);
+    }
+
+    /**
+     * It runs the warm-up rounds and then prints the items per second of each measure.
+     * @param items the name of the measured items, e.g. users, for the header of the table.
+     * @param itemsPerRound the items which a round processes.
+     * @param roundsPerMeasure the rounds whose times are added in each measure.
+     */
+    void measure(String items, int itemsPerRound, int roundsPerMeasure, Round round) throws Exception {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            round.run();
+        }
+
+        System.out.println(items + "\tseconds\t" + items + "/s");
+        long itemsPerMeasure = (long) itemsPerRound * roundsPerMeasure;
+        for (int measure = 0; measure < MEASURES; measure++) {
+            long nanos = 0;
+            for (int i = 0; i < roundsPerMeasure; i++) {
+                nanos += round.run();
+            }
+            System.out.println(itemsPerMeasure + "\t" + String.format("%.2f", nanos / 1e9)
+                    + "\t" + String.format("%.0f", itemsPerMeasure / (nanos / 1e9)));
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package es.urjc.ia.bikesurbanfleets.core.benchmarks;
+
+import es.urjc.ia.bikesurbanfleets.common.config.GlobalInfo;
+import es.urjc.ia.bikesurbanfleets.core.config.ConfigJsonReader;
+import es.urjc.ia.bikesurbanfleets.core.config.StationsConfig;
+import es.urjc.ia.bikesurbanfleets.core.config.UsersConfig;
+import es.urjc.ia.bikesurbanfleets.core.core.SimulationEngine;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+
+/**
+ * It measures the memory allocated and the garbage collections of a whole simulation, excluding
+ * the load of the configuration and the map. The simulation runs in the calling thread, so the
+ * bytes allocated by it are the ones allocated by that thread.
+ * Usage: SimulationAllocationBenchmark globalConfig usersConfig stationsConfig mapPath [historyOutput]
+ * @author IAgroup
+ *
+ */
+public class SimulationAllocationBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 4) {
+            throw new IllegalArgumentException("Usage: SimulationAllocationBenchmark globalConfig usersConfig "
+                    + "stationsConfig mapPath [historyOutput]");
+        }
+        ConfigJsonReader jsonReader = new ConfigJsonReader(args[0], args[2], args[1]);
+        GlobalInfo globalInfo = jsonReader.readGlobalConfiguration();
+        UsersConfig usersInfo = jsonReader.readUsersConfiguration();
+        StationsConfig stationsInfo = jsonReader.readStationsConfiguration();
+        if (args.length > 4) {
+            globalInfo.setHistoryOutputPath(args[4]);
+        }
+
+        SimulationEngine simulation = new SimulationEngine(globalInfo, stationsInfo, usersInfo, args[3]);
+        long[] events = new long[1];
+        simulation.addEventListener(event -> events[0]++);
+        simulation.setShowProgress(false);
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long collections = collections();
+        long collectionTime = collectionTime();
+        long allocated = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+
+        simulation.run();
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        allocated = threads.getThreadAllocatedBytes(threadId) - allocated;
+        collections = collections() - collections;
+        collectionTime = collectionTime() - collectionTime;
+
+        System.out.println("events\tseconds\tallocated MB\tbytes/event\tGCs\tGC ms");
+        System.out.println(events[0] + "\t" + String.format("%.1f", seconds)
+                + "\t" + String.format("%.1f", allocated / 1e6)
+                + "\t" + String.format("%.0f", (double) allocated / events[0])
+                + "\t" + collections + "\t" + collectionTime);
+    }
+
+    private static long collections() {
+        long count = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, collector.getCollectionCount());
+        }
+        return count;
+    }
+
+    private static long collectionTime() {
+        long time = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            time += Math.max(0, collector.getCollectionTime());
+        }
+        return time;
+    }
+}
@@ -0,0 +1,43 @@
+package es.urjc.ia.bikesurbanfleets.core.benchmarks;
+
+import com.google.gson.JsonObject;
+import es.urjc.ia.bikesurbanfleets.services.SimulationServices;
+import es.urjc.ia.bikesurbanfleets.users.UserFactory;
+
+import java.util.List;
+
+/**
+ * It measures the users per second created by the user factory from the user definitions of a
+ * users configuration, the same way the simulation engine creates them when they appear.
+ * Each round creates all the users of the configuration with a new simulation context, so the
+ * history of a round doesn't grow with the previous ones, see {@link ServicesBenchmark}.
+ * Usage: UserCreationBenchmark globalConfig usersConfig stationsConfig mapPath [users per measure]
+ * (default 1000000).
+ * @author IAgroup
+ *
+ */
+public class UserCreationBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        ServicesBenchmark benchmark = new ServicesBenchmark(args, "UserCreationBenchmark globalConfig "
+                + "usersConfig stationsConfig mapPath [users per measure]");
+        int usersPerMeasure = args.length > 4 ? Integer.parseInt(args[4]) : 1_000_000;
+        List<JsonObject> userDefinitions = benchmark.getUserDefinitions();
+        int rounds = Math.max(1, usersPerMeasure / userDefinitions.size());
+
+        benchmark.measure("users", userDefinitions.size(), rounds, () -> createUsers(benchmark, userDefinitions));
+    }
+
+    /**
+     * @return the nanoseconds spent creating the users, excluding the creation of the services.
+     */
+    private static long createUsers(ServicesBenchmark benchmark, List<JsonObject> userDefinitions) throws Exception {
+        SimulationServices services = benchmark.createServices();
+        UserFactory userFactory = new UserFactory();
+        long start = System.nanoTime();
+        for (int i = 0; i < userDefinitions.size(); i++) {
+            userFactory.createUser(userDefinitions.get(i), services, i);
+        }
+        return System.nanoTime() - start;
+    }
+}
@@ -1,8 +1,10 @@
 package es.urjc.ia.bikesurbanfleets.core.config;
 
 import com.google.gson.Gson;
+import com.google.gson.JsonObject;
 import es.urjc.ia.bikesurbanfleets.common.config.GlobalInfo;
 import es.urjc.ia.bikesurbanfleets.infraestructure.InfraestructureManager;
+import es.urjc.ia.bikesurbanfleets.services.SimulationContext;
 
 import java.io.FileReader;
 import java.io.IOException;
@@ -36,10 +38,19 @@ public class ConfigJsonReader {
      * @return the created simulationo configuration object.
      */
     public GlobalInfo readGlobalConfiguration() throws IOException {
+        GlobalInfo globalInfo = gson.fromJson(readGlobalConfigurationJson(), GlobalInfo.class);
+        return globalInfo;
+    }
+
+    /**
+     * It reads the json configuration file without creating the configuration object, so its
+     * values can be modified before, e.g. in parameter sweeps.
+     * @return the json global configuration.
+     */
+    public JsonObject readGlobalConfigurationJson() throws IOException {
         String globalConfigStr = new String(Files.readAllBytes(Paths.get(globalConfFile)), StandardCharsets.UTF_8);
         globalConfigStr = globalConfigStr.replace("\\", "/");
-        GlobalInfo globalInfo = gson.fromJson(globalConfigStr, GlobalInfo.class);
-        return globalInfo;
+        return gson.fromJson(globalConfigStr, JsonObject.class);
     }
 
     public StationsConfig readStationsConfiguration() throws IOException {
@@ -59,8 +70,9 @@ public class ConfigJsonReader {
      * It creates a system manager object from the simulation configuration object.
      * @return the created system manager object.
      */
-    public InfraestructureManager createInfraestructureManager(StationsConfig stationsInfo, GlobalInfo globalInfo) throws IOException {
-        return new InfraestructureManager(stationsInfo.getStations(), globalInfo.getBoundingBox());
+    public InfraestructureManager createInfraestructureManager(StationsConfig stationsInfo, GlobalInfo globalInfo,
+                                                               SimulationContext context) throws IOException {
+        return new InfraestructureManager(stationsInfo.createStations(context), globalInfo.getBoundingBox());
 
     }
 
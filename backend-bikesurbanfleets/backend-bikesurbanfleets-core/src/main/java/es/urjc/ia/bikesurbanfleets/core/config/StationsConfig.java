@@ -1,20 +1,53 @@
 package es.urjc.ia.bikesurbanfleets.core.config;
 
-import com.google.gson.annotations.JsonAdapter;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.reflect.TypeToken;
 
+import es.urjc.ia.bikesurbanfleets.common.graphs.GeoPoint;
 import es.urjc.ia.bikesurbanfleets.infraestructure.deserializers.StationDeserializer;
 import es.urjc.ia.bikesurbanfleets.infraestructure.entities.Station;
+import es.urjc.ia.bikesurbanfleets.services.SimulationContext;
 
+import java.lang.reflect.Type;
+import java.util.ArrayList;
 import java.util.List;
 
 public class StationsConfig {
 
+    private static final Type STATION_LIST_TYPE = new TypeToken<List<Station>>() {}.getType();
+
+    /**
+     * They are the descriptions of all the stations of the system obtained from the configuration file.
+     * The stations themselves are created for each simulation, as they belong to its context.
+     */
+    private JsonArray stations;
+
     /**
-     * They are all the stations of the system obtained from the configuration file.
+     * It creates the stations described in the configuration file.
+     * @param context the context of the simulation the stations belong to.
+     * @return the created stations.
      */
-    @JsonAdapter(StationDeserializer.class)
-    private List<Station> stations;
+    public List<Station> createStations(SimulationContext context) {
+        Gson gson = new GsonBuilder()
+                .registerTypeAdapter(STATION_LIST_TYPE, new StationDeserializer(context))
+                .create();
+        return gson.fromJson(stations, STATION_LIST_TYPE);
+    }
 
-    public List<Station> getStations() { return stations; }
+    /**
+     * @return the positions of the stations described in the configuration file, in the same
+     * order as the created stations.
+     */
+    public List<GeoPoint> getPositions() {
+        Gson gson = new Gson();
+        List<GeoPoint> positions = new ArrayList<>(stations.size());
+        for (JsonElement station : stations) {
+            positions.add(gson.fromJson(station.getAsJsonObject().get("position"), GeoPoint.class));
+        }
+        return positions;
+    }
 
 }
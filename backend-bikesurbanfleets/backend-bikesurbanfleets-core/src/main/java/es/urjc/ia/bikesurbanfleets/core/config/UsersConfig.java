@@ -11,6 +11,12 @@ public class UsersConfig {
      */
     private List<JsonObject> initialUsers;
 
+    public UsersConfig() {}
+
+    public UsersConfig(List<JsonObject> initialUsers) {
+        this.initialUsers = initialUsers;
+    }
+
     public List<JsonObject> getUsers() {
         return initialUsers;
     }
@@ -0,0 +1,178 @@
+package es.urjc.ia.bikesurbanfleets.core.core;
+
+import es.urjc.ia.bikesurbanfleets.common.interfaces.Event;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * This event scheduler is a calendar queue keyed on the integer time instant of the events.
+ * It has two rungs: a circular array with one bucket per second, which covers a window of
+ * time instants starting at the current one, and an ordered map for the events which are
+ * beyond that window. Events of the window are enqueued and dequeued in O(1) and far events
+ * are moved into the window as the current instant advances.
+ * Events with the same time instant are returned in the order they were added.
+ * @author IAgroup
+ *
+ */
+public class CalendarQueueEventScheduler implements EventScheduler {
+
+    public static final String TYPE = "CALENDAR_QUEUE";
+
+    /**
+     * It is the default number of seconds covered by the buckets (about 18 hours).
+     */
+    private static final int DEFAULT_WINDOW_BITS = 16;
+
+    /**
+     * There's a bucket for each second of the window. Buckets are created on demand.
+     */
+    private ArrayDeque<Event>[] buckets;
+
+    private int mask;
+
+    /**
+     * It is the time instant of the last returned event and the first time instant of the window.
+     * No event can be scheduled before it.
+     */
+    private int currentInstant;
+
+    /**
+     * Buckets between the current instant and this instant are known to be empty.
+     */
+    private int scanInstant;
+
+    /**
+     * These are the events whose time instants are beyond the window.
+     */
+    private TreeMap<Integer, ArrayDeque<Event>> farEvents;
+
+    private int bucketEvents;
+    private int size;
+
+    public CalendarQueueEventScheduler() {
+        this(DEFAULT_WINDOW_BITS);
+    }
+
+    @SuppressWarnings("unchecked")
+    public CalendarQueueEventScheduler(int windowBits) {
+        this.buckets = new ArrayDeque[1 << windowBits];
+        this.mask = buckets.length - 1;
+        this.currentInstant = 0;
+        this.scanInstant = 0;
+        this.farEvents = new TreeMap<>();
+        this.bucketEvents = 0;
+        this.size = 0;
+    }
+
+    @Override
+    public void add(Event event) {
+        int instant = event.getInstant();
+        if (instant < currentInstant) {
+            throw new IllegalArgumentException("Event at instant " + instant
+                    + " scheduled after instant " + currentInstant + " has been reached");
+        }
+        if (instant - currentInstant < buckets.length) {
+            addToBucket(instant, event);
+            if (instant < scanInstant) {
+                scanInstant = instant;
+            }
+        } else {
+            farEvents.computeIfAbsent(instant, key -> new ArrayDeque<>()).addLast(event);
+        }
+        size++;
+    }
+
+    @Override
+    public Event peek() {
+        if (size == 0) {
+            return null;
+        }
+        if (bucketEvents == 0) {
+            return farEvents.firstEntry().getValue().peekFirst();
+        }
+        return buckets[firstNonEmptyBucket()].peekFirst();
+    }
+
+    @Override
+    public Event poll() {
+        if (size == 0) {
+            return null;
+        }
+        if (bucketEvents == 0) {
+            // The window is empty, so it jumps directly to the first far event
+            currentInstant = farEvents.firstKey();
+            scanInstant = currentInstant;
+            moveFarEventsIntoWindow();
+        }
+        Event event = buckets[firstNonEmptyBucket()].pollFirst();
+        bucketEvents--;
+        size--;
+        if (currentInstant != scanInstant) {
+            currentInstant = scanInstant;
+            moveFarEventsIntoWindow();
+        }
+        return event;
+    }
+
+    @Override
+    public List<Event> pendingEvents() {
+        List<Event> events = new ArrayList<>(size);
+        // all the events of the buckets are inside the window, from the scan instant on
+        for (int instant = scanInstant; events.size() < bucketEvents; instant++) {
+            ArrayDeque<Event> bucket = buckets[instant & mask];
+            if (bucket != null) {
+                events.addAll(bucket);
+            }
+        }
+        for (ArrayDeque<Event> instantEvents : farEvents.values()) {
+            events.addAll(instantEvents);
+        }
+        return events;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    private void addToBucket(int instant, Event event) {
+        int index = instant & mask;
+        ArrayDeque<Event> bucket = buckets[index];
+        if (bucket == null) {
+            bucket = new ArrayDeque<>();
+            buckets[index] = bucket;
+        }
+        bucket.addLast(event);
+        bucketEvents++;
+    }
+
+    /**
+     * It looks for the first non empty bucket from the scan instant. As all the events of the
+     * buckets are inside the window, it is found before reaching the end of the window.
+     * It must only be called if there're events in the buckets.
+     * @return the index of the first non empty bucket.
+     */
+    private int firstNonEmptyBucket() {
+        while (true) {
+            int index = scanInstant & mask;
+            ArrayDeque<Event> bucket = buckets[index];
+            if (bucket != null && !bucket.isEmpty()) {
+                return index;
+            }
+            scanInstant++;
+        }
+    }
+
+    private void moveFarEventsIntoWindow() {
+        while (!farEvents.isEmpty() && farEvents.firstKey() - currentInstant < buckets.length) {
+            Map.Entry<Integer, ArrayDeque<Event>> entry = farEvents.pollFirstEntry();
+            for (Event event : entry.getValue()) {
+                addToBucket(entry.getKey(), event);
+            }
+        }
+    }
+}
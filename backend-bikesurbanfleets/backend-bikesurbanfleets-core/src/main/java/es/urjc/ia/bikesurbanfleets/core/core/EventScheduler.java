@@ -0,0 +1,56 @@
+package es.urjc.ia.bikesurbanfleets.core.core;
+
+import es.urjc.ia.bikesurbanfleets.common.interfaces.Event;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * This interface represents the pending event set of the simulation engine.
+ * Implementations must return events in non-decreasing order of their time instant.
+ * @author IAgroup
+ *
+ */
+public interface EventScheduler {
+
+    /**
+     * It adds an event to the set of pending events.
+     * @param event It is the event to schedule.
+     */
+    void add(Event event);
+
+    /**
+     * It adds several events to the set of pending events.
+     * @param events They are the events to schedule.
+     */
+    default void addAll(Collection<? extends Event> events) {
+        for (Event event : events) {
+            add(event);
+        }
+    }
+
+    /**
+     * @return the next event to be executed without removing it or null if there're no pending events.
+     */
+    Event peek();
+
+    /**
+     * @return the next event to be executed, which is removed from the pending events, or null if there're
+     * no pending events.
+     */
+    Event poll();
+
+    /**
+     * @return all the pending events in the order they would be returned, without removing them.
+     */
+    List<Event> pendingEvents();
+
+    /**
+     * @return the number of pending events.
+     */
+    int size();
+
+    default boolean isEmpty() {
+        return size() == 0;
+    }
+}
@@ -0,0 +1,60 @@
+package es.urjc.ia.bikesurbanfleets.core.core;
+
+import es.urjc.ia.bikesurbanfleets.common.interfaces.Event;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * This is the reference event scheduler. It keeps the pending events in a binary heap,
+ * so each insertion and extraction costs O(log n).
+ * @author IAgroup
+ *
+ */
+public class PriorityQueueEventScheduler implements EventScheduler {
+
+    public static final String TYPE = "PRIORITY_QUEUE";
+
+    private PriorityQueue<Event> eventsQueue;
+
+    public PriorityQueueEventScheduler() {
+        this.eventsQueue = new PriorityQueue<>();
+    }
+
+    @Override
+    public void add(Event event) {
+        eventsQueue.add(event);
+    }
+
+    @Override
+    public void addAll(Collection<? extends Event> events) {
+        eventsQueue.addAll(events);
+    }
+
+    @Override
+    public Event peek() {
+        return eventsQueue.peek();
+    }
+
+    @Override
+    public Event poll() {
+        return eventsQueue.poll();
+    }
+
+    @Override
+    public List<Event> pendingEvents() {
+        PriorityQueue<Event> copy = new PriorityQueue<>(eventsQueue);
+        List<Event> events = new ArrayList<>(copy.size());
+        while (!copy.isEmpty()) {
+            events.add(copy.poll());
+        }
+        return events;
+    }
+
+    @Override
+    public int size() {
+        return eventsQueue.size();
+    }
+}
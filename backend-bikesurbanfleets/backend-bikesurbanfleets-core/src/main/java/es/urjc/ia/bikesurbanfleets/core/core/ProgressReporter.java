@@ -0,0 +1,123 @@
+package es.urjc.ia.bikesurbanfleets.core.core;
+
+import com.google.gson.JsonObject;
+import es.urjc.ia.bikesurbanfleets.common.util.MessageGuiFormatter;
+import org.apache.commons.math3.util.Precision;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+/**
+ * This class publishes the progress of a simulation as json lines: the simulated time instant,
+ * the percentage of users which have appeared, the events executed, the events per second and
+ * the pending events. The simulation reports its progress after every time instant, but a line is
+ * only published when the interval of wall clock time has elapsed since the previous one, so
+ * the console I/O doesn't depend on the size of the simulation. The first and the last progress
+ * are always published.
+ * @author IAgroup
+ *
+ */
+public class ProgressReporter {
+
+    /**
+     * It is the default time in milliseconds between two published progress lines.
+     */
+    public static final long DEFAULT_INTERVAL = 250;
+
+    private Consumer<String> channel;
+    private Runnable closer;
+    private boolean closed;
+    private long intervalNanos;
+
+    private long lastPublished;
+    private long lastEvents;
+
+    private ProgressReporter(Consumer<String> channel, Runnable closer, long intervalMillis) {
+        if (intervalMillis < 0) {
+            throw new IllegalArgumentException("The progress interval can't be negative");
+        }
+        this.channel = channel;
+        this.closer = closer;
+        this.intervalNanos = intervalMillis * 1_000_000;
+    }
+
+    /**
+     * @return a reporter which publishes the progress in the stdout for the frontend.
+     */
+    public static ProgressReporter forGui(long intervalMillis) {
+        return new ProgressReporter(MessageGuiFormatter::showProgressForGui, () -> {}, intervalMillis);
+    }
+
+    /**
+     * @param path the file where the progress lines are written, e.g. a named pipe.
+     * @return a reporter which writes the progress lines to a file.
+     */
+    public static ProgressReporter toFile(String path, long intervalMillis) throws IOException {
+        PrintWriter writer = new PrintWriter(new OutputStreamWriter(new FileOutputStream(path),
+                StandardCharsets.UTF_8));
+        return new ProgressReporter(line -> {
+            writer.println(line);
+            writer.flush();
+        }, writer::close, intervalMillis);
+    }
+
+    /**
+     * It publishes the progress at the start of the simulation.
+     */
+    public void start(int instant, double percentage, int queueDepth) {
+        lastPublished = System.nanoTime();
+        lastEvents = 0;
+        publish(instant, percentage, 0, 0, queueDepth);
+    }
+
+    /**
+     * It publishes the progress if the interval has elapsed since the last published one.
+     * @param events the total events executed.
+     */
+    public void update(int instant, double percentage, long events, int queueDepth) {
+        long now = System.nanoTime();
+        if (now - lastPublished >= intervalNanos) {
+            publish(instant, percentage, events, eventsPerSecond(now, events), queueDepth);
+            lastPublished = now;
+            lastEvents = events;
+        }
+    }
+
+    /**
+     * It publishes the progress at the end of the simulation and closes the channel.
+     */
+    public void finish(int instant, double percentage, long events, int queueDepth) {
+        publish(instant, percentage, events, eventsPerSecond(System.nanoTime(), events), queueDepth);
+        close();
+    }
+
+    /**
+     * It closes the channel without publishing the progress, e.g. when the simulation fails.
+     * It can be called again after the simulation has finished.
+     */
+    public void close() {
+        if (!closed) {
+            closed = true;
+            closer.run();
+        }
+    }
+
+    private double eventsPerSecond(long now, long events) {
+        long elapsed = now - lastPublished;
+        return elapsed > 0 ? (events - lastEvents) * 1e9 / elapsed : 0;
+    }
+
+    private void publish(int instant, double percentage, long events, double eventsPerSecond, int queueDepth) {
+        JsonObject progress = new JsonObject();
+        progress.addProperty("instant", instant);
+        progress.addProperty("percentage", Precision.round(percentage, 2));
+        progress.addProperty("events", events);
+        progress.addProperty("eventsPerSecond", Math.round(eventsPerSecond));
+        progress.addProperty("queueDepth", queueDepth);
+        channel.accept(progress.toString());
+    }
+}
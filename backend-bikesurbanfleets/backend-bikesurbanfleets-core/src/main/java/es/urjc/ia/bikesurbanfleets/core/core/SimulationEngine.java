@@ -1,28 +1,30 @@
 package es.urjc.ia.bikesurbanfleets.core.core;
 
 import com.google.gson.JsonObject;
+import es.urjc.ia.bikesurbanfleets.common.graphs.CachedGraphManager;
+import es.urjc.ia.bikesurbanfleets.common.graphs.GraphManager;
+import es.urjc.ia.bikesurbanfleets.services.SimulationContext;
 import es.urjc.ia.bikesurbanfleets.services.SimulationServiceConfigData;
 import es.urjc.ia.bikesurbanfleets.services.SimulationServices;
-import es.urjc.ia.bikesurbanfleets.common.graphs.GeoPoint;
+import es.urjc.ia.bikesurbanfleets.common.interfaces.Entity;
 import es.urjc.ia.bikesurbanfleets.common.interfaces.Event;
-import es.urjc.ia.bikesurbanfleets.common.util.MessageGuiFormatter;
 import es.urjc.ia.bikesurbanfleets.core.config.StationsConfig;
 import es.urjc.ia.bikesurbanfleets.core.config.UsersConfig;
 import es.urjc.ia.bikesurbanfleets.core.events.EventUserAppears;
+import es.urjc.ia.bikesurbanfleets.core.metrics.MetricsHistory;
 import es.urjc.ia.bikesurbanfleets.common.config.GlobalInfo;
-import es.urjc.ia.bikesurbanfleets.common.util.SimpleRandom;
+import es.urjc.ia.bikesurbanfleets.history.BinaryHistory;
 import es.urjc.ia.bikesurbanfleets.history.FinalGlobalValues;
 import es.urjc.ia.bikesurbanfleets.history.History;
+import es.urjc.ia.bikesurbanfleets.history.HistorySink;
 import es.urjc.ia.bikesurbanfleets.history.entities.HistoricReservation;
-import es.urjc.ia.bikesurbanfleets.infraestructure.entities.Reservation;
 import es.urjc.ia.bikesurbanfleets.infraestructure.entities.Station;
 import es.urjc.ia.bikesurbanfleets.log.Debug;
 import es.urjc.ia.bikesurbanfleets.users.User;
-import es.urjc.ia.bikesurbanfleets.users.UserFactory;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.PriorityQueue;
 
 /**
  * This is the most important class which makes the simulation possible.
@@ -32,105 +34,336 @@ import java.util.PriorityQueue;
  */
 public class SimulationEngine {
 
-    private PriorityQueue<Event> eventsQueue = new PriorityQueue<>();
+    private EventScheduler eventsQueue;
+    private UserAppearanceSource userSource;
     private GlobalInfo globalInfo;
+    private SimulationContext context;
     private UsersConfig usersInfo;
     private List<Station> stations;
+    private List<SimulationEventListener> listeners;
+    private GraphManager graphManager;
+
+    /**
+     * It publishes the progress of the simulation. If it is null, the progress isn't published.
+     */
+    private ProgressReporter progress = ProgressReporter.forGui(ProgressReporter.DEFAULT_INTERVAL);
+
+    /**
+     * If it isn't null, a snapshot is written at the first event whose instant is not before
+     * the snapshot instant.
+     */
+    private String snapshotPath;
+    private int snapshotInstant;
 
     /**
      * It creates an event queue where its events are sorted by the time instant when they'll occur.
      */
     public SimulationEngine(GlobalInfo globalInfo, StationsConfig stationsInfo, UsersConfig usersInfo,
                             String mapDir) throws Exception {
-        this.globalInfo = globalInfo;
-        this.usersInfo = usersInfo;
-        this.stations = stationsInfo.getStations();
-
         // ----
         // TODO make it flexible to different properties
         JsonObject graphParameters = new JsonObject();
         graphParameters.addProperty("mapDir", mapDir);
 
-        SimulationServiceConfigData servicesConfigData = new SimulationServiceConfigData();
-        servicesConfigData.setBbox(globalInfo.getBoundingBox())
+        init(globalInfo, stationsInfo, usersInfo, new SimulationServiceConfigData()
             .setGraphManagerType(globalInfo.getGraphManagerType())
-            .setGraphParameters(graphParameters)
-            .setRecomSystemType(globalInfo.getRecommendationSystemTypeJsonDescription())
-            .setStations(stationsInfo.getStations());
+            .setGraphParameters(graphParameters));
+    }
 
-        SimulationServices services = new SimulationServices(servicesConfigData);
+    /**
+     * It creates a simulation which uses an already created graph manager, so several simulations
+     * can share the same loaded graph.
+     */
+    public SimulationEngine(GlobalInfo globalInfo, StationsConfig stationsInfo, UsersConfig usersInfo,
+                            GraphManager graphManager) throws Exception {
+        init(globalInfo, stationsInfo, usersInfo, new SimulationServiceConfigData()
+            .setGraphManager(graphManager));
+    }
+
+    /**
+     * It creates a simulation which continues from a snapshot. The users configuration must be
+     * the one of the snapshot simulation, but the rest of the global configuration, e.g. the
+     * recommendation system, can be different. The history starts at the snapshot instant.
+     * The continuation is exactly the original simulation if nothing changes and the event
+     * scheduler keeps the order of the events of the same instant, as the calendar queue does.
+     */
+    public SimulationEngine(GlobalInfo globalInfo, UsersConfig usersInfo, SimulationSnapshot snapshot,
+                            String mapDir) throws Exception {
+        JsonObject graphParameters = new JsonObject();
+        graphParameters.addProperty("mapDir", mapDir);
 
-        this.eventsQueue = new PriorityQueue<>(processUsers(services));
-        Reservation.VALID_TIME = globalInfo.getReservationTime();
-        Debug.DEBUG_MODE = globalInfo.isDebugMode();
+        restore(globalInfo, usersInfo, snapshot, new SimulationServiceConfigData()
+            .setGraphManagerType(globalInfo.getGraphManagerType())
+            .setGraphParameters(graphParameters));
+    }
+
+    /**
+     * It creates a simulation which continues from a snapshot and uses an already created graph
+     * manager, so several simulations can be forked from the same snapshot at low cost.
+     */
+    public SimulationEngine(GlobalInfo globalInfo, UsersConfig usersInfo, SimulationSnapshot snapshot,
+                            GraphManager graphManager) throws Exception {
+        restore(globalInfo, usersInfo, snapshot, new SimulationServiceConfigData()
+            .setGraphManager(graphManager));
+    }
+
+    private void init(GlobalInfo globalInfo, StationsConfig stationsInfo, UsersConfig usersInfo,
+                      SimulationServiceConfigData servicesConfigData) throws Exception {
+        this.globalInfo = globalInfo;
+        this.usersInfo = usersInfo;
+        this.context = new SimulationContext(globalInfo, initHistory(globalInfo.getHistoryType()));
+        this.stations = stationsInfo.createStations(context);
+        this.listeners = new ArrayList<>();
+
+        SimulationServices services = initServices(servicesConfigData);
+
+        this.eventsQueue = initEventScheduler(globalInfo.getEventSchedulerType());
+        this.userSource = new UserAppearanceSource(usersInfo.getUsers(), services, globalInfo.getRandomSeed());
 
         //needed if there's no reservations in the system
-        History.reservationClass(HistoricReservation.class);
-    }
-
-    private List<EventUserAppears> processUsers(SimulationServices services) {
-        List<EventUserAppears> eventUserAppearsList = new ArrayList<>();
-        UserFactory userFactory = new UserFactory();
-        SimpleRandom simprand=new SimpleRandom(globalInfo.getRandomSeed());
-        for (JsonObject userdef: usersInfo.getUsers()) {
-            int seed=simprand.nextInt();
-            User user = userFactory.createUser(userdef, services, seed);
-            int instant = user.getInstant();
-            GeoPoint position = user.getPosition();
-            // Is necessary to have the user position initialized to null to write changes.
-            // Position is asigned again in EventUserAppears
-            user.setPosition(null);
-            eventUserAppearsList.add(new EventUserAppears(instant, user, position));
+        context.getHistory().reservationClass(HistoricReservation.class);
+    }
+
+    private void restore(GlobalInfo globalInfo, UsersConfig usersInfo, SimulationSnapshot snapshot,
+                         SimulationServiceConfigData servicesConfigData) throws Exception {
+        if (usersInfo.getUsers().size() != snapshot.getTotalUsers()) {
+            throw new IllegalArgumentException("The snapshot has " + snapshot.getTotalUsers()
+                    + " users but the users configuration has " + usersInfo.getUsers().size());
+        }
+        SimulationSnapshot.State state = snapshot.restoreState();
+
+        this.globalInfo = globalInfo;
+        this.usersInfo = usersInfo;
+        this.context = new SimulationContext(globalInfo, initHistory(globalInfo.getHistoryType()));
+        state.restoreIdGenerators(context);
+        this.stations = state.getStations();
+        this.listeners = new ArrayList<>();
+
+        SimulationServices services = initServices(servicesConfigData);
+
+        HistorySink history = context.getHistory();
+        for (Entity entity : state.getEntities()) {
+            if (entity instanceof User) {
+                ((User) entity).setServices(services);
+            }
+            history.registerEntity(entity);
         }
 
-        return eventUserAppearsList;
+        this.eventsQueue = initEventScheduler(globalInfo.getEventSchedulerType());
+        eventsQueue.addAll(state.getPendingEvents());
+        // the users which haven't appeared must receive the seeds of the snapshot simulation
+        this.userSource = new UserAppearanceSource(usersInfo.getUsers(), services, snapshot.getRandomSeed());
+        userSource.skip(snapshot.getAppearedUsers());
+
+        history.reservationClass(HistoricReservation.class);
+    }
+
+    private SimulationServices initServices(SimulationServiceConfigData servicesConfigData) throws Exception {
+        servicesConfigData.setBbox(globalInfo.getBoundingBox())
+            .setRecomSystemType(globalInfo.getRecommendationSystemTypeJsonDescription())
+            .setStations(stations)
+            .setRouteCache(globalInfo.getRouteCacheSize(), globalInfo.getRouteCacheGridSize())
+            .setStationRouteMatrix(globalInfo.getStationRouteMatrix());
+        SimulationServices services = new SimulationServices(context, servicesConfigData);
+        this.graphManager = services.getGraphManager();
+        return services;
+    }
+
+    private EventScheduler initEventScheduler(String eventSchedulerType) throws IllegalArgumentException {
+        if (eventSchedulerType == null || eventSchedulerType.equals(PriorityQueueEventScheduler.TYPE)) {
+            return new PriorityQueueEventScheduler();
+        }
+        if (eventSchedulerType.equals(CalendarQueueEventScheduler.TYPE)) {
+            return new CalendarQueueEventScheduler();
+        }
+        throw new IllegalArgumentException("The event scheduler type " + eventSchedulerType + " doesn't exist");
+    }
+
+    private HistorySink initHistory(String historyType) throws IllegalArgumentException {
+        if (historyType == null || historyType.equals(History.TYPE)) {
+            return new History(globalInfo.getHistoryQueueCapacity());
+        }
+        if (historyType.equals(MetricsHistory.TYPE)) {
+            return new MetricsHistory();
+        }
+        if (historyType.equals(BinaryHistory.TYPE)) {
+            return new BinaryHistory();
+        }
+        throw new IllegalArgumentException("The history type " + historyType + " doesn't exist");
+    }
+
+    public void addEventListener(SimulationEventListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * If true, the progress is shown in the stdout for the frontend. Otherwise, it isn't published.
+     */
+    public void setShowProgress(boolean showProgress) {
+        this.progress = showProgress ? ProgressReporter.forGui(ProgressReporter.DEFAULT_INTERVAL) : null;
+    }
+
+    /**
+     * @param progress the reporter which publishes the progress, or null to not publish it.
+     */
+    public void setProgressReporter(ProgressReporter progress) {
+        this.progress = progress;
+    }
+
+    /**
+     * It makes the simulation write a snapshot of its state when it reaches a time instant.
+     * The snapshot is taken before executing the first event whose instant is not before the
+     * given one.
+     * @param instant the time instant of the snapshot.
+     * @param path the file where the snapshot is written.
+     */
+    public void takeSnapshotAt(int instant, String path) {
+        this.snapshotInstant = instant;
+        this.snapshotPath = path;
+    }
+
+    /**
+     * @return the graph manager of the simulation. If the route cache is enabled, it is a
+     * {@link CachedGraphManager}, whose counters are complete once the simulation has run.
+     */
+    public GraphManager getGraphManager() {
+        return graphManager;
     }
 
     public void run() throws Exception {
 
-        History.init(globalInfo.getHistoryOutputPath());
-        Debug.init();
+        HistorySink history = context.getHistory();
+        history.init(globalInfo.getHistoryOutputPath());
+        try {
+            executeEvents(history);
+        } catch (Exception | Error e) {
+            // the history mustn't keep waiting for the events of a failed simulation
+            history.abort();
+            throw e;
+        } finally {
+            // the progress channel, e.g. a file, is also closed if the simulation fails
+            if(progress != null) {
+                progress.close();
+            }
+        }
+    }
+
+    private void executeEvents(HistorySink history) throws Exception {
+        Debug debug = context.getDebug();
+        debug.init();
 
         // Those variables are used to control de percentage of the simulation done
-        int totalUsers = eventsQueue.size();
-        double percentage = 0;
+        int totalUsers = userSource.size();
+        double percentage = ((double) userSource.appeared() / (double) totalUsers) * 100;
         int lastInstant = 0;
+        long executedEvents = 0;
 
-        MessageGuiFormatter.showPercentageForGui(percentage);
+        if(progress != null) {
+            boolean pending = !eventsQueue.isEmpty() || userSource.hasNext();
+            progress.start(pending ? nextInstant() : 0, percentage, eventsQueue.size());
+        }
 
-        while (!eventsQueue.isEmpty()) {
-            Event event = eventsQueue.poll();  // retrieves and removes first element
+        // the events generated by each event are added to this list, which is reused
+        List<Event> newEvents = new ArrayList<>();
+        // these are the events executed at the current instant, in execution order
+        List<Event> instantEvents = new ArrayList<>();
 
+        while (!eventsQueue.isEmpty() || userSource.hasNext()) {
+            int instant = nextInstant();
             //check if the instant is after the last one
-            if (event.getInstant() < lastInstant) {
+            if (instant < lastInstant) {
             	throw new RuntimeException("Illegal event execution");
             }
-            lastInstant=event.getInstant();
-            
-            // Shows the actual percentage in the stdout for frontend
-            if(event.getClass().getSimpleName().equals(EventUserAppears.class.getSimpleName())) {
-                percentage += (((double) 1 /(double) totalUsers) * 100);
-                MessageGuiFormatter.showPercentageForGui(percentage);
+            lastInstant = instant;
+
+            if (snapshotPath != null && instant >= snapshotInstant) {
+                writeSnapshot(instant);
             }
 
-            if(Debug.DEBUG_MODE) {
-                System.out.println(event.toString());
+            // all the events of the instant are executed, including the ones they generate for it
+            int appearedUsers = 0;
+            do {
+                Event event = nextEvent();  // retrieves and removes first element
+                if (event instanceof EventUserAppears) {
+                    appearedUsers++;
+                }
+
+                if(debug.isDebugMode()) {
+                    System.out.println(event.toString());
+                }
+
+                event.execute(newEvents);
+                eventsQueue.addAll(newEvents);
+                newEvents.clear();
+                history.registerEvent(event);
+                for (SimulationEventListener listener : listeners) {
+                    listener.eventExecuted(event);
+                }
+                instantEvents.add(event);
+                executedEvents++;
+            } while ((!eventsQueue.isEmpty() || userSource.hasNext()) && nextInstant() == instant);
+
+            history.endInstant();
+            for (SimulationEventListener listener : listeners) {
+                listener.instantExecuted(instant, instantEvents);
             }
+            instantEvents.clear();
 
-            List<Event> newEvents = event.execute();
-            eventsQueue.addAll(newEvents);
-            History.registerEvent(event);
+            percentage += (((double) appearedUsers /(double) totalUsers) * 100);
+            if(progress != null) {
+                progress.update(instant, percentage, executedEvents, eventsQueue.size());
+            }
 
-            // if it is the last event, save the global values of the simulation
-            if(eventsQueue.isEmpty()) {
+            // if it is the last instant, save the global values of the simulation
+            if(eventsQueue.isEmpty() && !userSource.hasNext()) {
                 FinalGlobalValues finalGlobalValues = new FinalGlobalValues();
                 finalGlobalValues.setTotalTimeSimulation(this.globalInfo.getTotalSimulationTime());
                 finalGlobalValues.setBoundingBox(this.globalInfo.getBoundingBox());
-                History.writeGlobalInformation(finalGlobalValues);
+                history.writeGlobalInformation(finalGlobalValues);
             }
         }
 
-        History.close();
+        history.close();
+        if(progress != null) {
+            progress.finish(lastInstant, percentage, executedEvents, eventsQueue.size());
+        }
+    }
+
+    private void writeSnapshot(int instant) throws Exception {
+        SimulationSnapshot snapshot = new SimulationSnapshot(instant, globalInfo.getRandomSeed(),
+                userSource.size(), userSource.appeared(), stations, eventsQueue.pendingEvents(), context);
+        snapshot.write(new File(snapshotPath));
+        // the stdout is read by the frontend, so it's only shown in debug mode, as the events
+        if(context.getDebug().isDebugMode()) {
+            System.out.println("Snapshot of instant " + instant + " written to " + snapshotPath
+                    + " (" + snapshot.getStateSize() + " bytes)");
+        }
+        snapshotPath = null;
+    }
+
+    private int nextInstant() {
+        if (eventsQueue.isEmpty()) {
+            return userSource.nextInstant();
+        }
+        if (!userSource.hasNext()) {
+            return eventsQueue.peek().getInstant();
+        }
+        return Math.min(userSource.nextInstant(), eventsQueue.peek().getInstant());
+    }
+
+    /**
+     * It merges the pending events with the users which haven't appeared yet. A user is only
+     * created when its appearance is the next event, and it goes before any other event of the
+     * same instant. When all the users were queued at startup, the order of the events of the
+     * same instant was the arbitrary one of the priority queue, so it can be different.
+     * @return the next event to execute.
+     */
+    private Event nextEvent() {
+        if (userSource.hasNext()
+                && (eventsQueue.isEmpty() || userSource.nextInstant() <= eventsQueue.peek().getInstant())) {
+            return userSource.next();
+        }
+        return eventsQueue.poll();
     }
 
 }
@@ -0,0 +1,31 @@
+package es.urjc.ia.bikesurbanfleets.core.core;
+
+import es.urjc.ia.bikesurbanfleets.common.interfaces.Event;
+
+import java.util.List;
+
+/**
+ * This interface is used to observe the events executed by a simulation engine,
+ * for example, to calculate indicators of the simulation while it runs.
+ * @author IAgroup
+ *
+ */
+public interface SimulationEventListener {
+
+    /**
+     * It is called after the event has been executed.
+     * @param event the executed event.
+     */
+    void eventExecuted(Event event);
+
+    /**
+     * It is called once all the events of a time instant have been executed, so the work which
+     * is only needed once per instant can be done here instead of for every event.
+     * @param instant the time instant.
+     * @param events the events executed at the instant, in execution order. The list is reused
+     * by the engine, so it must not be kept.
+     */
+    default void instantExecuted(int instant, List<Event> events) {
+    }
+
+}
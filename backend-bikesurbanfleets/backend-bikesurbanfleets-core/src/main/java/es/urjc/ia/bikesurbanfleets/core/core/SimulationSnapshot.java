@@ -0,0 +1,192 @@
+package es.urjc.ia.bikesurbanfleets.core.core;
+
+import es.urjc.ia.bikesurbanfleets.common.interfaces.Entity;
+import es.urjc.ia.bikesurbanfleets.common.interfaces.Event;
+import es.urjc.ia.bikesurbanfleets.common.util.IdGenerator;
+import es.urjc.ia.bikesurbanfleets.infraestructure.entities.Station;
+import es.urjc.ia.bikesurbanfleets.services.SimulationContext;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * This class is the state of a simulation at a time instant: the stations, the pending events,
+ * with the users and reservations they refer to, and the identifier generators. The users which
+ * haven't appeared yet are not part of it, as they are created again from the users configuration.
+ * The state is kept compressed, so a snapshot is cheap to keep in memory, and every restore
+ * returns a new copy of it, so several simulations can be forked from the same snapshot.
+ * The services of the simulation (graph, recommendation and information systems) are not part
+ * of the snapshot, so a restored simulation can use different ones.
+ * @author IAgroup
+ *
+ */
+public class SimulationSnapshot implements Serializable {
+
+    /**
+     * It is the time instant of the snapshot. No event before it is pending.
+     */
+    private int instant;
+
+    /**
+     * It is the seed which the users which haven't appeared yet are created with.
+     */
+    private long randomSeed;
+
+    private int totalUsers;
+    private int appearedUsers;
+
+    /**
+     * It is the compressed state of the simulation.
+     */
+    private byte[] state;
+
+    SimulationSnapshot(int instant, long randomSeed, int totalUsers, int appearedUsers, List<Station> stations,
+                       List<Event> pendingEvents, SimulationContext context) throws IOException {
+        this.instant = instant;
+        this.randomSeed = randomSeed;
+        this.totalUsers = totalUsers;
+        this.appearedUsers = appearedUsers;
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(new GZIPOutputStream(bytes))) {
+            out.writeObject(new State(new ArrayList<>(stations), new ArrayList<>(pendingEvents),
+                    context.getStationIdGenerator(), context.getBikeIdGenerator(),
+                    context.getUserIdGenerator(), context.getReservationIdGenerator()));
+        }
+        this.state = bytes.toByteArray();
+    }
+
+    public int getInstant() {
+        return instant;
+    }
+
+    public long getRandomSeed() {
+        return randomSeed;
+    }
+
+    public int getTotalUsers() {
+        return totalUsers;
+    }
+
+    public int getAppearedUsers() {
+        return appearedUsers;
+    }
+
+    /**
+     * @return the size in bytes of the compressed state.
+     */
+    public int getStateSize() {
+        return state.length;
+    }
+
+    /**
+     * @return a new copy of the state of the simulation.
+     */
+    State restoreState() throws IOException, ClassNotFoundException {
+        try (EntityCollectingInputStream in = new EntityCollectingInputStream(
+                new GZIPInputStream(new ByteArrayInputStream(state)))) {
+            State restored = (State) in.readObject();
+            restored.entities = in.entities;
+            return restored;
+        }
+    }
+
+    public void write(File file) throws IOException {
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null) {
+            parent.mkdirs();
+        }
+        try (ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeObject(this);
+        }
+    }
+
+    public static SimulationSnapshot read(File file) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            return (SimulationSnapshot) in.readObject();
+        }
+    }
+
+    /**
+     * It is the state which is serialized. All of it is written at once, so the objects which are
+     * shared, e.g. a user referenced by an event and by a reservation, are still shared when
+     * restored.
+     */
+    static class State implements Serializable {
+
+        private List<Station> stations;
+        private List<Event> pendingEvents;
+        private IdGenerator stationIdGenerator;
+        private IdGenerator bikeIdGenerator;
+        private IdGenerator userIdGenerator;
+        private IdGenerator reservationIdGenerator;
+
+        /**
+         * These are all the entities of the restored state, which must be registered in the
+         * history of the restored simulation.
+         */
+        private transient List<Entity> entities;
+
+        private State(List<Station> stations, List<Event> pendingEvents, IdGenerator stationIdGenerator,
+                      IdGenerator bikeIdGenerator, IdGenerator userIdGenerator, IdGenerator reservationIdGenerator) {
+            this.stations = stations;
+            this.pendingEvents = pendingEvents;
+            this.stationIdGenerator = stationIdGenerator;
+            this.bikeIdGenerator = bikeIdGenerator;
+            this.userIdGenerator = userIdGenerator;
+            this.reservationIdGenerator = reservationIdGenerator;
+        }
+
+        List<Station> getStations() {
+            return stations;
+        }
+
+        List<Event> getPendingEvents() {
+            return pendingEvents;
+        }
+
+        List<Entity> getEntities() {
+            return entities;
+        }
+
+        void restoreIdGenerators(SimulationContext context) {
+            context.restoreIdGenerators(stationIdGenerator, bikeIdGenerator, userIdGenerator, reservationIdGenerator);
+        }
+    }
+
+    /**
+     * It keeps every entity it reads, so nothing reachable from the state is missed.
+     */
+    private static class EntityCollectingInputStream extends ObjectInputStream {
+
+        private List<Entity> entities = new ArrayList<>();
+
+        private EntityCollectingInputStream(InputStream in) throws IOException {
+            super(in);
+            enableResolveObject(true);
+        }
+
+        @Override
+        protected Object resolveObject(Object object) {
+            if (object instanceof Entity) {
+                entities.add((Entity) object);
+            }
+            return object;
+        }
+    }
+
+}
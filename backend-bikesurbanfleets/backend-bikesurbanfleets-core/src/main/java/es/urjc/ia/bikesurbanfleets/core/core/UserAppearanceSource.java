@@ -0,0 +1,122 @@
+package es.urjc.ia.bikesurbanfleets.core.core;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import es.urjc.ia.bikesurbanfleets.common.graphs.GeoPoint;
+import es.urjc.ia.bikesurbanfleets.common.util.SimpleRandom;
+import es.urjc.ia.bikesurbanfleets.core.events.EventUserAppears;
+import es.urjc.ia.bikesurbanfleets.services.SimulationServices;
+import es.urjc.ia.bikesurbanfleets.users.User;
+import es.urjc.ia.bikesurbanfleets.users.UserFactory;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * This class provides the user appearance events of the users configuration in time order.
+ * Users are only created when their appearance event is requested, so the simulation engine
+ * can create them when they appear instead of creating all of them at startup.
+ * Each user receives the same seed it would receive if all users were created in the order
+ * of the configuration file.
+ * @author IAgroup
+ *
+ */
+public class UserAppearanceSource {
+
+    private List<JsonObject> userDefinitions;
+    private SimulationServices services;
+    private UserFactory userFactory;
+
+    /**
+     * These are the indexes of the user definitions sorted by appearance instant.
+     */
+    private Integer[] order;
+
+    /**
+     * These are the appearance instants of the user definitions, by configuration index.
+     */
+    private int[] instants;
+
+    /**
+     * These are the seeds of the users, by configuration index.
+     */
+    private int[] seeds;
+
+    private int next;
+
+    public UserAppearanceSource(List<JsonObject> userDefinitions, SimulationServices services, long randomSeed) {
+        this.userDefinitions = userDefinitions;
+        this.services = services;
+        this.userFactory = new UserFactory();
+        this.instants = new int[userDefinitions.size()];
+        this.seeds = new int[userDefinitions.size()];
+        this.order = new Integer[userDefinitions.size()];
+
+        SimpleRandom simprand = new SimpleRandom(randomSeed);
+        for (int i = 0; i < userDefinitions.size(); i++) {
+            JsonElement instant = userDefinitions.get(i).get("timeInstant");
+            if (instant == null) {
+                throw new IllegalArgumentException("instant missing");
+            }
+            instants[i] = instant.getAsInt();
+            seeds[i] = simprand.nextInt();
+            order[i] = i;
+        }
+        // stable sort: users which appear at the same instant keep the configuration order
+        Arrays.sort(order, Comparator.comparingInt(i -> instants[i]));
+        this.next = 0;
+    }
+
+    /**
+     * @return the total number of users.
+     */
+    public int size() {
+        return order.length;
+    }
+
+    /**
+     * @return the number of users which have already appeared.
+     */
+    public int appeared() {
+        return next;
+    }
+
+    /**
+     * It skips the users which have already appeared in a restored simulation. Their seeds are
+     * kept, so the following users receive the same seeds as in the original simulation.
+     * @param appearedUsers the number of users which have already appeared.
+     */
+    public void skip(int appearedUsers) {
+        if (appearedUsers < 0 || appearedUsers > order.length) {
+            throw new IllegalArgumentException("There're " + order.length + " users, "
+                    + appearedUsers + " can't have appeared");
+        }
+        this.next = appearedUsers;
+    }
+
+    public boolean hasNext() {
+        return next < order.length;
+    }
+
+    /**
+     * @return the time instant at which the next user appears.
+     */
+    public int nextInstant() {
+        return instants[order[next]];
+    }
+
+    /**
+     * It creates the next user and its appearance event.
+     * @return the appearance event of the next user.
+     */
+    public EventUserAppears next() {
+        int index = order[next++];
+        User user = userFactory.createUser(userDefinitions.get(index), services, seeds[index]);
+        GeoPoint position = user.getPosition();
+        // Is necessary to have the user position initialized to null to write changes.
+        // Position is asigned again in EventUserAppears
+        user.setPosition(null);
+        return new EventUserAppears(user.getInstant(), user, position);
+    }
+}
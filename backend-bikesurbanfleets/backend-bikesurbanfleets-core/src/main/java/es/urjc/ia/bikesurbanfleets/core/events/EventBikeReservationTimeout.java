@@ -7,8 +7,6 @@ import es.urjc.ia.bikesurbanfleets.common.interfaces.Entity;
 import es.urjc.ia.bikesurbanfleets.users.User;
 import es.urjc.ia.bikesurbanfleets.users.UserMemory;
 
-import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 
 public class EventBikeReservationTimeout extends EventUser {
@@ -18,7 +16,7 @@ public class EventBikeReservationTimeout extends EventUser {
     
     public EventBikeReservationTimeout(int instant, User user, Reservation reservation, GeoPoint positionTimeOut) {
         super(instant, user);
-        this.entities = new ArrayList<>(Arrays.asList(user, reservation));
+        this.entities = new EventEntities(user, reservation);
         this.reservation = reservation;
         this.positionTimeOut = positionTimeOut;
     }
@@ -28,8 +26,7 @@ public class EventBikeReservationTimeout extends EventUser {
     }
 
     @Override
-    public List<Event> execute() {
-        List<Event> newEvents = new ArrayList<>();
+    public void execute(List<Event> newEvents) {
         try {
             user.setInstant(this.instant);
             user.setPosition(positionTimeOut);
@@ -44,17 +41,15 @@ public class EventBikeReservationTimeout extends EventUser {
                 newEvents.add(new EventUserLeavesSystem(this.getInstant(), user));
             } else if (user.decidesToDetermineOtherStationAfterTimeout()) {
                 debugEventLog("User decides to manage bike reservation at other Station");
-                newEvents = manageBikeReservationDecisionAtOtherStation();
+                manageBikeReservationDecisionAtOtherStation(newEvents);
             } else {
                 debugEventLog("User decides to manage bike reservation at the same station");
-                newEvents = manageBikeReservationDecisionAtSameStationAfterTimeout();
+                manageBikeReservationDecisionAtSameStationAfterTimeout(newEvents);
             }
         }
         catch(Exception e) {
             exceptionTreatment(e);
         }
-
-        return newEvents;
     }
 
     @Override
@@ -0,0 +1,69 @@
+package es.urjc.ia.bikesurbanfleets.core.events;
+
+import es.urjc.ia.bikesurbanfleets.common.interfaces.Entity;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.Arrays;
+
+/**
+ * This is the list of the entities of an event. It is backed by a single small array, which
+ * has room for the entities given at creation and the destination stations added while the
+ * event is executed, so in most cases it is the only allocation besides the list itself.
+ * It only grows if a user tries more stations than it has room for.
+ * @author IAgroup
+ *
+ */
+class EventEntities extends AbstractList<Entity> implements Serializable {
+
+    /**
+     * It is the room left for the stations added during the execution.
+     */
+    private static final int EXTRA_CAPACITY = 2;
+
+    private Entity[] entities;
+    private int size;
+
+    EventEntities(Entity first) {
+        this.entities = new Entity[1 + EXTRA_CAPACITY];
+        this.entities[0] = first;
+        this.size = 1;
+    }
+
+    EventEntities(Entity first, Entity second) {
+        this.entities = new Entity[2 + EXTRA_CAPACITY];
+        this.entities[0] = first;
+        this.entities[1] = second;
+        this.size = 2;
+    }
+
+    EventEntities(Entity first, Entity second, Entity third) {
+        this.entities = new Entity[3 + EXTRA_CAPACITY];
+        this.entities[0] = first;
+        this.entities[1] = second;
+        this.entities[2] = third;
+        this.size = 3;
+    }
+
+    @Override
+    public Entity get(int index) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return entities[index];
+    }
+
+    @Override
+    public boolean add(Entity entity) {
+        if (size == entities.length) {
+            entities = Arrays.copyOf(entities, size * 2);
+        }
+        entities[size++] = entity;
+        return true;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+}
@@ -7,8 +7,6 @@ import es.urjc.ia.bikesurbanfleets.common.interfaces.Entity;
 import es.urjc.ia.bikesurbanfleets.users.User;
 import es.urjc.ia.bikesurbanfleets.users.UserMemory;
 
-import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 
 public class EventSlotReservationTimeout extends EventUser {
@@ -18,7 +16,7 @@ public class EventSlotReservationTimeout extends EventUser {
 
     public EventSlotReservationTimeout(int instant, User user, Reservation reservation, GeoPoint positionTimeOut) {
         super(instant, user);
-        this.entities = new ArrayList<>(Arrays.asList(user, reservation));
+        this.entities = new EventEntities(user, reservation);
         this.reservation = reservation;
         this.positionTimeOut = positionTimeOut;
     }
@@ -28,8 +26,7 @@ public class EventSlotReservationTimeout extends EventUser {
     }
 
     @Override
-    public List<Event> execute()  {
-        List<Event> newEvents = new ArrayList<>();
+    public void execute(List<Event> newEvents) {
         try {
             user.setInstant(this.instant);
             user.setPosition(positionTimeOut);
@@ -41,17 +38,15 @@ public class EventSlotReservationTimeout extends EventUser {
             debugEventLog();
             if (!user.decidesToDetermineOtherStationAfterTimeout()){
                 debugEventLog("User decides to manage slot reservation at other Station");
-                newEvents = manageSlotReservationDecisionAtSameStationAfterTimeout();
+                manageSlotReservationDecisionAtSameStationAfterTimeout(newEvents);
             } else {
                 debugEventLog("User decides to manage slot reservation at the same Station");
-                newEvents = manageSlotReservationDecisionAtOtherStation();
+                manageSlotReservationDecisionAtOtherStation(newEvents);
             }
         }
         catch(Exception e) {
             exceptionTreatment(e);
         }
-
-        return newEvents;
     }
 
     @Override
@@ -7,13 +7,11 @@ import es.urjc.ia.bikesurbanfleets.infraestructure.entities.Reservation;
 import es.urjc.ia.bikesurbanfleets.infraestructure.entities.Station;
 import es.urjc.ia.bikesurbanfleets.infraestructure.entities.Reservation.ReservationType;
 import es.urjc.ia.bikesurbanfleets.common.graphs.GeoPoint;
-import es.urjc.ia.bikesurbanfleets.log.Debug;
 import es.urjc.ia.bikesurbanfleets.users.User;
 import es.urjc.ia.bikesurbanfleets.users.UserMemory;
 import org.apache.commons.lang3.exception.ExceptionUtils;
 
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -55,7 +53,7 @@ public abstract class EventUser implements Event {
     /**
      * It proccesses the event so that the relevant changes at the system occur.
      */
-    public abstract List<Event> execute();
+    public abstract void execute(List<Event> newEvents);
 
 
     /*
@@ -70,7 +68,7 @@ public abstract class EventUser implements Event {
      */
     public void debugEventLog(String message) {
         try {
-            Debug.log(message, user, this);
+            user.getContext().getDebug().log(message, user, this);
         }
         catch(IOException e) {
             MessageGuiFormatter.showErrorsForGui(e);
@@ -83,7 +81,7 @@ public abstract class EventUser implements Event {
      */
     public void debugEventLog() {
         try {
-            Debug.log(user, this);
+            user.getContext().getDebug().log(user, this);
         }
         catch (IOException e) {
             MessageGuiFormatter.showErrorsForGui(e);
@@ -92,7 +90,7 @@ public abstract class EventUser implements Event {
 
     public void debugClose(User user, int id) {
         try {
-            Debug.closeLog(user, id);
+            user.getContext().getDebug().closeLog(user, id);
         } catch (IOException e) {
             MessageGuiFormatter.showErrorsForGui(e);
         }
@@ -117,27 +115,25 @@ public abstract class EventUser implements Event {
      *
      * @param destination: it is the station for which user wants to make a bike reservation.
      *                     This parameter can be the previous chosen station or a new decided destination station.
-     * @return a list of generated events that will occur as a consequence of trying to reserve a bike.
+     * @param newEvents: the events generated as a consequence of trying to reserve a bike are added to it.
      */
-    private List<Event> manageBikeReservation(Station destination) throws Exception {
-        List<Event> newEvents = new ArrayList<>();
-
+    private void manageBikeReservation(Station destination, List<Event> newEvents) throws Exception {
         Bike bike = user.reservesBike(destination);
         if (bike != null) {  // user has been able to reserve a bike
-            Reservation reservation = new Reservation(instant, ReservationType.BIKE, user, destination, bike);
+            Reservation reservation = new Reservation(user.getContext(), instant, ReservationType.BIKE, user, destination, bike);
             user.addReservation(reservation);
-            destination.getReservations().add(reservation);
+            destination.addReservation(reservation);
             int arrivalTime = user.goToStation(destination);
             debugEventLog("User has been able to reserve bike. Reservation Info: " + reservation.toString());
-            if (Reservation.VALID_TIME < arrivalTime) {
+            if (user.getContext().getReservationTime() < arrivalTime) {
                 GeoPoint pointTimeOut = user.reachedPointUntilTimeOut();
-                newEvents.add(new EventBikeReservationTimeout(this.getInstant() + Reservation.VALID_TIME, user, reservation, pointTimeOut));
+                newEvents.add(new EventBikeReservationTimeout(this.getInstant() + user.getContext().getReservationTime(), user, reservation, pointTimeOut));
             } else {
                 newEvents.add(new EventUserArrivesAtStationToRentBikeWithReservation(this.getInstant() + arrivalTime, user, destination, reservation));
             }
         } else {  // user hasn't been able to reserve a bike
-            Reservation reservation = new Reservation(instant, ReservationType.BIKE, user, destination);
-            destination.getReservations().add(reservation);
+            Reservation reservation = new Reservation(user.getContext(), instant, ReservationType.BIKE, user, destination);
+            destination.addReservation(reservation);
             user.addReservation(reservation);
             user.getMemory().update(UserMemory.FactType.BIKE_FAILED_RESERVATION);
             debugEventLog("User has not been able to reserve bike");
@@ -147,7 +143,7 @@ public abstract class EventUser implements Event {
                 newEvents.add(new EventUserLeavesSystem(this.getInstant(), user));
             } else if (user.decidesToDetermineOtherStationAfterFailedReservation()) {
                 debugEventLog("User decides to determine other station to manage bike reservation");
-                newEvents = manageBikeReservationDecisionAtOtherStation();
+                manageBikeReservationDecisionAtOtherStation(newEvents);
             } else {  // user walks to the initially chosen station
                 debugEventLog("User decides to go to the initially chosen station without bike reservation");
                 int arrivalTime = user.goToStation(destination);
@@ -156,84 +152,77 @@ public abstract class EventUser implements Event {
         }
 
         this.getEntities().add(destination);
-
-        return newEvents;
     }
 
     /**
      * It is a recursive method.
      * At this method, user decides if he'll try to make again the bike reservation at previous chosen station.
      *
-     * @return a list of generated events that will ocurr as a consequence of making the decision.
+     * @param newEvents the events generated as a consequence of making the decision are added to it.
      */
-    protected List<Event> manageBikeReservationDecisionAtSameStationAfterTimeout() throws Exception {
-        List<Event> newEvents = new ArrayList<>();
+    protected void manageBikeReservationDecisionAtSameStationAfterTimeout(List<Event> newEvents) throws Exception {
         Station destination = user.getDestinationStation();
         
-        if(Debug.DEBUG_MODE) {
+        if(user.getContext().getDebug().isDebugMode()) {
             System.out.println("Destination before user arrival: " + destination.toString() + " " + user.toString());
         }
         if (user.decidesToReserveBikeAtSameStationAfterTimeout()) {
             debugEventLog("User decides to manage bike reservation at the same station");
-            newEvents = manageBikeReservation(destination);
+            manageBikeReservation(destination, newEvents);
         } else {   // user decides not to reserve
             int arrivalTime = user.goToStation(destination);
             debugEventLog("User decides to go to the initially chosen station without reservation");
             newEvents.add(new EventUserArrivesAtStationToRentBikeWithoutReservation(this.getInstant() + arrivalTime, user, destination));
         }
-        return newEvents;
     }
 
     /**
      * This is a recursive method.
      * At this method, user decides if he'll try to make a bike reservation at a new chosen station.
      *
-     * @return a list of generated events as a consequence of making the decision.
+     * @param newEvents the events generated as a consequence of making the decision are added to it.
      * @throws Exception
      */
-    protected List<Event> manageBikeReservationDecisionAtOtherStation() throws Exception {
-        List<Event> newEvents = new ArrayList<>();
+    protected void manageBikeReservationDecisionAtOtherStation(List<Event> newEvents) throws Exception {
         Station destination = user.determineStationToRentBike();
 
         if (destination != null) {
 
-            if(Debug.DEBUG_MODE) {
+            if(user.getContext().getDebug().isDebugMode()) {
                 System.out.println("Destination before user arrival: " + destination.toString() + " " + user.toString());
             }
             if (user.decidesToReserveBikeAtNewDecidedStation()) {
                 debugEventLog("User decides to reserve bike at new decided station");
-                newEvents = manageBikeReservation(destination);
+                manageBikeReservation(destination, newEvents);
             } else {   // user decides not to reserve
                 int arrivalTime = user.goToStation(destination);
                 debugEventLog("User decides to go directly to the new decided station without bike reservation");
                 newEvents.add(new EventUserArrivesAtStationToRentBikeWithoutReservation(this.getInstant() + arrivalTime, user, destination));
             }
         }
-        return newEvents;
     }
 
     /**
      * @param destination
-     * @return
+     * @param newEvents
      * @throws Exception
      */
-    private List<Event> manageSlotReservation(Station destination) throws Exception {
-        List<Event> newEvents = new ArrayList<>();
+    private void manageSlotReservation(Station destination, List<Event> newEvents) throws Exception {
         if (user.reservesSlot(destination)) {  // User has been able to reserve
-            Reservation reservation = new Reservation(instant, ReservationType.SLOT, user, destination, user.getBike());
+            Reservation reservation = new Reservation(user.getContext(), instant, ReservationType.SLOT, user, destination, user.getBike());
             user.addReservation(reservation);
-            destination.getReservations().add(reservation);
+            destination.addReservation(reservation);
             int arrivalTime = user.goToStation(destination);
             debugEventLog("User has been able to reserve a slot");
-            if (Reservation.VALID_TIME < arrivalTime) {
+            if (user.getContext().getReservationTime() < arrivalTime) {
                 GeoPoint pointTimeOut = user.reachedPointUntilTimeOut();
-                newEvents.add(new EventSlotReservationTimeout(this.getInstant() + Reservation.VALID_TIME, user, reservation, pointTimeOut));
+                newEvents.add(new EventSlotReservationTimeout(this.getInstant() + user.getContext().getReservationTime(), user, reservation, pointTimeOut));
             } else {
                 newEvents.add(new EventUserArrivesAtStationToReturnBikeWithReservation(this.getInstant() + arrivalTime, user, destination, reservation));
             }
         } else {  // user hasn't been able to reserve a slot
-            Reservation reservation = new Reservation(instant, ReservationType.SLOT, user, destination);
-            destination.getReservations().add(reservation);
+            Reservation reservation = new Reservation(user.getContext(), instant, ReservationType.SLOT, user, destination);
+            destination.addReservation(reservation);
             user.addReservation(reservation);
             user.getMemory().update(UserMemory.FactType.SLOT_FAILED_RESERVATION);
             debugEventLog("User has not been able to reserve a slot");
@@ -244,48 +233,43 @@ public abstract class EventUser implements Event {
                 newEvents.add(new EventUserArrivesAtStationToReturnBikeWithoutReservation(this.getInstant() + arrivalTime, user, destination));
             } else {
                 debugEventLog("User decides to determine other station to manage slot reservation");
-                newEvents = manageSlotReservationDecisionAtOtherStation();
+                manageSlotReservationDecisionAtOtherStation(newEvents);
             }
         }
         this.getEntities().add(destination);
-        return newEvents;
     }
          
         
-    protected List<Event> manageSlotReservationDecisionAtSameStationAfterTimeout() throws Exception {
-        List<Event> newEvents = new ArrayList<>();
+    protected void manageSlotReservationDecisionAtSameStationAfterTimeout(List<Event> newEvents) throws Exception {
         Station destination = user.getDestinationStation();
-        if(Debug.DEBUG_MODE) {
+        if(user.getContext().getDebug().isDebugMode()) {
             System.out.println("Destination before user arrival: " + destination.toString() + " " + user.toString());
         }
         if (user.decidesToReserveSlotAtSameStationAfterTimeout()) {
             debugEventLog("User decides to manage slot reservation at the same station");
-            newEvents = manageSlotReservation(destination);
+            manageSlotReservation(destination, newEvents);
         } else {   // user decides not to reserve
             int arrivalTime = user.goToStation(destination);
             debugEventLog("User decides to go to the initially chosen station without slot reservation");
             newEvents.add(new EventUserArrivesAtStationToReturnBikeWithoutReservation(this.getInstant() + arrivalTime, user, destination));
         }
-        return newEvents;
     }
 
-    protected List<Event> manageSlotReservationDecisionAtOtherStation() throws Exception {
-        List<Event> newEvents = new ArrayList<>();
+    protected void manageSlotReservationDecisionAtOtherStation(List<Event> newEvents) throws Exception {
         Station destination = user.determineStationToReturnBike();
         
-        if(Debug.DEBUG_MODE) {
+        if(user.getContext().getDebug().isDebugMode()) {
             System.out.println("Destination before user arrival: " + destination.toString() + " " + user.toString());
         }
 
         if (user.decidesToReserveSlotAtNewDecidedStation()) {
             debugEventLog("User decides to reserve slot at new decided station");
-            newEvents = manageSlotReservation(destination);
+            manageSlotReservation(destination, newEvents);
         } else {   // user decides not to reserve bike
             int arrivalTime = user.goToStation(destination);
             debugEventLog("User decides to go directly to the new decided station without slot reservation");
             newEvents.add(new EventUserArrivesAtStationToReturnBikeWithoutReservation(this.getInstant() + arrivalTime, user, destination));
         }
-        return newEvents;
     }
     
     protected void exceptionTreatment(Exception e) {
@@ -5,8 +5,6 @@ import es.urjc.ia.bikesurbanfleets.users.User;
 import es.urjc.ia.bikesurbanfleets.common.graphs.GeoPoint;
 import es.urjc.ia.bikesurbanfleets.common.interfaces.Entity;
 
-import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 
 public class EventUserAppears extends EventUser {
@@ -16,25 +14,22 @@ public class EventUserAppears extends EventUser {
     
     public EventUserAppears(int instant, User user, GeoPoint position) {
         super(instant, user);
-        this.entities = new ArrayList<>(Arrays.asList(user));
+        this.entities = new EventEntities(user);
         this.position = position;
     }
 
     @Override
-    public List<Event> execute() {
-        List<Event> newEvents = new ArrayList<>();
+    public void execute(List<Event> newEvents) {
         try {
             user.setInstant(this.instant);
             user.setPosition(position);
             user.setState(User.STATE.WALK_TO_STATION);
             debugEventLog();
-            newEvents = manageBikeReservationDecisionAtOtherStation();
+            manageBikeReservationDecisionAtOtherStation(newEvents);
         }
         catch(Exception e) {
             exceptionTreatment(e);
         }
-
-        return newEvents;
     }
 
     @Override
@@ -1,7 +1,5 @@
 package es.urjc.ia.bikesurbanfleets.core.events;
 
-import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 
 import es.urjc.ia.bikesurbanfleets.common.graphs.GeoPoint;
@@ -15,19 +13,17 @@ public class EventUserArrivesAtDestinationInCity extends EventUser {
 	
 	public EventUserArrivesAtDestinationInCity(int instant, User user, GeoPoint position) {
 		super(instant, user);
-		entities = new ArrayList<>(Arrays.asList(user));
+		entities = new EventEntities(user);
                 currentPosition=position;
 	}
 	
 	@Override
-	public List<Event> execute() {
-                List<Event> newEvents = new ArrayList<>();
+	public void execute(List<Event> newEvents) {
 		user.setInstant(this.instant);
                 user.setPosition(currentPosition);
                 user.setState(User.STATE.EXIT_AFTER_REACHING_DESTINATION);
 		debugEventLog("User arrives at his destination in city");
                 newEvents.add(new EventUserLeavesSystem(this.getInstant(), user));
-		return newEvents;
 	}
 	
 	@Override
@@ -8,8 +8,6 @@ import es.urjc.ia.bikesurbanfleets.common.graphs.GeoPoint;
 import es.urjc.ia.bikesurbanfleets.common.interfaces.Entity;
 import es.urjc.ia.bikesurbanfleets.users.User;
 
-import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 
 public class EventUserArrivesAtStationToRentBikeWithReservation extends EventUser {
@@ -20,7 +18,7 @@ public class EventUserArrivesAtStationToRentBikeWithReservation extends EventUse
 
     public EventUserArrivesAtStationToRentBikeWithReservation(int instant, User user, Station station, Reservation reservation) {
         super(instant, user);
-        this.entities = new ArrayList<>(Arrays.asList(user, station, reservation));
+        this.entities = new EventEntities(user, station, reservation);
         this.station = station;
         this.reservation = reservation;
     }
@@ -34,8 +32,7 @@ public class EventUserArrivesAtStationToRentBikeWithReservation extends EventUse
     }
 
     @Override
-    public List<Event> execute() {
-        List<Event> newEvents = new ArrayList<>();
+    public void execute(List<Event> newEvents) {
         try {
             user.setInstant(this.instant);
             user.setPosition(station.getPosition());
@@ -45,7 +42,7 @@ public class EventUserArrivesAtStationToRentBikeWithReservation extends EventUse
             debugEventLog("User removes Bike with reservation");
             if (!user.decidesToGoToPointInCity()) {  // user goes directly to another station to return his bike
                 debugEventLog("User decides to return bike to other station");
-                newEvents = manageSlotReservationDecisionAtOtherStation();
+                manageSlotReservationDecisionAtOtherStation(newEvents);
             } else {   // user rides his bike to a point which is not a station
                 GeoPoint point = user.getPointInCity();
                 int arrivalTime = user.goToPointInCity(point);
@@ -56,7 +53,6 @@ public class EventUserArrivesAtStationToRentBikeWithReservation extends EventUse
         catch(Exception e) {
             exceptionTreatment(e);
         }
-        return newEvents;
     }
 
     @Override
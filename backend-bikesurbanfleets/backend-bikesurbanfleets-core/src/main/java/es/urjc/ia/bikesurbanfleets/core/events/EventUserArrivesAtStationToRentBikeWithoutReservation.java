@@ -8,8 +8,6 @@ import es.urjc.ia.bikesurbanfleets.common.interfaces.Entity;
 import es.urjc.ia.bikesurbanfleets.users.User;
 import es.urjc.ia.bikesurbanfleets.users.UserMemory;
 
-import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 
 public class EventUserArrivesAtStationToRentBikeWithoutReservation extends EventUser {
@@ -19,7 +17,7 @@ public class EventUserArrivesAtStationToRentBikeWithoutReservation extends Event
     
     public EventUserArrivesAtStationToRentBikeWithoutReservation(int instant, User user, Station station) {
         super(instant, user);
-        this.entities = new ArrayList<>(Arrays.asList(user, station));
+        this.entities = new EventEntities(user, station);
         this.station = station;
     }
 
@@ -28,8 +26,7 @@ public class EventUserArrivesAtStationToRentBikeWithoutReservation extends Event
     }
 
     @Override
-    public List<Event> execute() {
-        List<Event> newEvents = new ArrayList<>();
+    public void execute(List<Event> newEvents) {
         try {
             user.setInstant(this.instant);
             user.setPosition(station.getPosition());
@@ -39,7 +36,7 @@ public class EventUserArrivesAtStationToRentBikeWithoutReservation extends Event
                 debugEventLog("User removes Bike without reservation");
                 if (!user.decidesToGoToPointInCity()) {  // user goes directly to another station to return his bike
                     debugEventLog("User decides to return bike to other station");
-                    newEvents = manageSlotReservationDecisionAtOtherStation();
+                    manageSlotReservationDecisionAtOtherStation(newEvents);
                 } else {   // user rides his bike to a point which is not a station
                     GeoPoint point = user.getPointInCity();
                     int arrivalTime = user.goToPointInCity(point);
@@ -55,15 +52,13 @@ public class EventUserArrivesAtStationToRentBikeWithoutReservation extends Event
                     newEvents.add(new EventUserLeavesSystem(this.getInstant(), user));
                 } else {
                     user.setState(User.STATE.WALK_TO_STATION);
-                    newEvents = manageBikeReservationDecisionAtOtherStation();
+                    manageBikeReservationDecisionAtOtherStation(newEvents);
                 }
             }
         }
         catch(Exception e) {
             exceptionTreatment(e);
         }
-
-        return newEvents;
     }
 
     @Override
@@ -8,8 +8,6 @@ import es.urjc.ia.bikesurbanfleets.common.graphs.GeoRoute;
 import es.urjc.ia.bikesurbanfleets.common.interfaces.Entity;
 import es.urjc.ia.bikesurbanfleets.users.User;
 
-import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 
 public class EventUserArrivesAtStationToReturnBikeWithReservation extends EventUser {
@@ -21,7 +19,7 @@ public class EventUserArrivesAtStationToReturnBikeWithReservation extends EventU
 
     public EventUserArrivesAtStationToReturnBikeWithReservation(int instant, User user, Station station, Reservation reservation) {
         super(instant, user);
-        this.entities = new ArrayList<>(Arrays.asList(user, station, reservation));
+        this.entities = new EventEntities(user, station, reservation);
         this.station = station;
         this.reservation = reservation;
     }
@@ -35,8 +33,7 @@ public class EventUserArrivesAtStationToReturnBikeWithReservation extends EventU
     }
 
     @Override
-    public List<Event> execute() {
-        List<Event> newEvents = new ArrayList<>();
+    public void execute(List<Event> newEvents) {
         try {
             user.setInstant(this.instant);
             user.setPosition(station.getPosition());
@@ -50,7 +47,6 @@ public class EventUserArrivesAtStationToReturnBikeWithReservation extends EventU
         catch(Exception e) {
             exceptionTreatment(e);
         }
-        return newEvents;
     }
 
     @Override
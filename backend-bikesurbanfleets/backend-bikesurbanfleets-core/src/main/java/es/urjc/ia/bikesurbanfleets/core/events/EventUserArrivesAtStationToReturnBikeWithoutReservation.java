@@ -8,8 +8,6 @@ import es.urjc.ia.bikesurbanfleets.common.interfaces.Entity;
 import es.urjc.ia.bikesurbanfleets.users.User;
 import es.urjc.ia.bikesurbanfleets.users.UserMemory;
 
-import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 
 public class EventUserArrivesAtStationToReturnBikeWithoutReservation extends EventUser {
@@ -18,7 +16,7 @@ public class EventUserArrivesAtStationToReturnBikeWithoutReservation extends Eve
 
     public EventUserArrivesAtStationToReturnBikeWithoutReservation(int instant, User user, Station station) {
         super(instant, user);
-        this.entities = new ArrayList<>(Arrays.asList(user, station));
+        this.entities = new EventEntities(user, station);
         this.station = station;
     }
     
@@ -27,8 +25,7 @@ public class EventUserArrivesAtStationToReturnBikeWithoutReservation extends Eve
     }
 
     @Override
-    public List<Event> execute() {
-        List<Event> newEvents = new ArrayList<>();
+    public void execute(List<Event> newEvents) {
         try {
             user.setInstant(this.instant);
             user.setPosition(station.getPosition());
@@ -37,7 +34,7 @@ public class EventUserArrivesAtStationToReturnBikeWithoutReservation extends Eve
             if(!user.returnBikeWithoutReservationTo(station)) {
                 user.getMemory().update(UserMemory.FactType.SLOTS_UNAVAILABLE);
                 debugEventLog("User can't return bike. Station info: " + station.toString()) ;
-                newEvents = manageSlotReservationDecisionAtOtherStation();
+                manageSlotReservationDecisionAtOtherStation(newEvents);
             } else {
                 GeoPoint point = user.getDestinationPlace();
                 int arrivalTime = user.goToPointInCity(point);
@@ -49,7 +46,6 @@ public class EventUserArrivesAtStationToReturnBikeWithoutReservation extends Eve
         catch(Exception e) {
             exceptionTreatment(e);
         }
-        return newEvents;
     }
 
     @Override
@@ -1,8 +1,6 @@
 
 package es.urjc.ia.bikesurbanfleets.core.events;
 
-import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 
 import es.urjc.ia.bikesurbanfleets.common.interfaces.Entity;
@@ -14,16 +12,15 @@ public class EventUserLeavesSystem extends EventUser {
 	
 	public EventUserLeavesSystem(int instant, User user) {
 			super(instant, user);
-				this.entities = new ArrayList<>(Arrays.asList(user));
+				this.entities = new EventEntities(user);
 	}
 	
 	@Override
-	public List<Event> execute() {
+	public void execute(List<Event> newEvents) {
 		user.leaveSystem();
         user.setState(User.STATE.LEFT_SYSTEM);
         debugEventLog();
 		debugClose(user, user.getId());
-		return new ArrayList<>();
 	}
 	
 	@Override
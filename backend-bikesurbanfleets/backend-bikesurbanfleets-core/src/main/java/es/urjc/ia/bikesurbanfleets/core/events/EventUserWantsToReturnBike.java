@@ -5,8 +5,6 @@ import es.urjc.ia.bikesurbanfleets.users.User;
 import es.urjc.ia.bikesurbanfleets.common.graphs.GeoPoint;
 import es.urjc.ia.bikesurbanfleets.common.interfaces.Entity;
 
-import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 
 public class EventUserWantsToReturnBike extends EventUser {
@@ -16,7 +14,7 @@ public class EventUserWantsToReturnBike extends EventUser {
 
     public EventUserWantsToReturnBike(int instant, User user, GeoPoint actualPosition) {
         super(instant, user);
-        this.entities = new ArrayList<>(Arrays.asList(user));
+        this.entities = new EventEntities(user);
         this.currentPosition = actualPosition;
     }
 
@@ -25,19 +23,17 @@ public class EventUserWantsToReturnBike extends EventUser {
     }
 
     @Override
-    public List<Event> execute() {
-        List<Event> newEvents = new ArrayList<>();
+    public void execute(List<Event> newEvents) {
         try {
             user.setInstant(this.instant);
             user.setPosition(currentPosition);
             user.setState(User.STATE.WITH_BIKE);
             debugEventLog();
-            newEvents = manageSlotReservationDecisionAtOtherStation();
+            manageSlotReservationDecisionAtOtherStation(newEvents);
         }
         catch(Exception e) {
             exceptionTreatment(e);
         }
-        return newEvents;
 
     }
 
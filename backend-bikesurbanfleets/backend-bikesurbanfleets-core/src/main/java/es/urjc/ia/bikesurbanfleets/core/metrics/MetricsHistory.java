@@ -0,0 +1,183 @@
+package es.urjc.ia.bikesurbanfleets.core.metrics;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import es.urjc.ia.bikesurbanfleets.common.interfaces.Entity;
+import es.urjc.ia.bikesurbanfleets.common.interfaces.Event;
+import es.urjc.ia.bikesurbanfleets.core.events.EventUser;
+import es.urjc.ia.bikesurbanfleets.core.events.EventUserAppears;
+import es.urjc.ia.bikesurbanfleets.core.events.EventUserArrivesAtStationToRentBikeWithReservation;
+import es.urjc.ia.bikesurbanfleets.core.events.EventUserArrivesAtStationToRentBikeWithoutReservation;
+import es.urjc.ia.bikesurbanfleets.core.events.EventUserArrivesAtStationToReturnBikeWithReservation;
+import es.urjc.ia.bikesurbanfleets.core.events.EventUserArrivesAtStationToReturnBikeWithoutReservation;
+import es.urjc.ia.bikesurbanfleets.core.events.EventUserLeavesSystem;
+import es.urjc.ia.bikesurbanfleets.history.FinalGlobalValues;
+import es.urjc.ia.bikesurbanfleets.history.HistorySink;
+import es.urjc.ia.bikesurbanfleets.infraestructure.entities.Reservation;
+import es.urjc.ia.bikesurbanfleets.users.User;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * This history sink doesn't record the history of the simulation, only the final figures which
+ * the data analyser would calculate from it, see {@link SimulationMetrics}. They are calculated
+ * while the simulation runs, without copying or comparing the entities, and written to a single
+ * file when it ends. It is meant for the simulations which only need the indicators, e.g. the
+ * ones of a parameter sweep.
+ * Only the users which are in the system are kept, so the memory doesn't grow with the number of
+ * users of the simulation. The users still in the system when it ends count for the times of the
+ * parts of their trips they have finished. The analyser also counts the unfinished parts, up to an
+ * exit instant of 0, so the averages of a simulation which ends with users in the system differ.
+ * @author IAgroup
+ *
+ */
+public class MetricsHistory implements HistorySink {
+
+    public static final String TYPE = "METRICS";
+
+    public static final String METRICS_FILENAME = "metrics.json";
+
+    private static final String DEFAULT_OUTPUT_PATH = "history";
+
+    private static Gson gson = new GsonBuilder().setPrettyPrinting().create();
+
+    private SimulationMetrics metrics = new SimulationMetrics();
+
+    /**
+     * These are the instants of the users which are in the system, by user id.
+     */
+    private Map<Integer, UserInstants> users = new HashMap<>();
+
+    /**
+     * The entities registered before the simulation starts are its initial state, e.g. the
+     * reservations of a simulation restored from a snapshot, which were already counted.
+     */
+    private boolean started;
+
+    private File outputDirectory = new File(DEFAULT_OUTPUT_PATH);
+
+    @Override
+    public void init(String outPath) {
+        if (outPath != null) {
+            outputDirectory = new File(outPath);
+        }
+        started = true;
+    }
+
+    @Override
+    public void registerEntity(Entity entity) {
+        if (started && entity instanceof Reservation) {
+            Reservation reservation = (Reservation) entity;
+            boolean successful = reservation.getState() != Reservation.ReservationState.FAILED;
+            if (reservation.getType() == Reservation.ReservationType.BIKE) {
+                metrics.addBikeReservation(successful);
+            } else {
+                metrics.addSlotReservation(successful);
+            }
+        }
+    }
+
+    @Override
+    public void registerEvent(Event event) {
+        if (!(event instanceof EventUser)) {
+            return;
+        }
+        User user = ((EventUser) event).getUser();
+        int instant = event.getInstant();
+        UserInstants instants = users.computeIfAbsent(user.getId(), id -> new UserInstants());
+
+        if (event instanceof EventUserAppears) {
+            metrics.addUser();
+            instants.appearance = instant;
+        } else if (event instanceof EventUserArrivesAtStationToRentBikeWithReservation) {
+            metrics.addRental(true);
+            instants.rental = instant;
+        } else if (event instanceof EventUserArrivesAtStationToReturnBikeWithReservation) {
+            metrics.addReturn(true);
+            instants.returned = instant;
+        } else if (event instanceof EventUserArrivesAtStationToRentBikeWithoutReservation) {
+            metrics.addRental(user.hasBike());
+            if (user.hasBike()) {
+                instants.rental = instant;
+            }
+        } else if (event instanceof EventUserArrivesAtStationToReturnBikeWithoutReservation) {
+            metrics.addReturn(!user.hasBike());
+            if (!user.hasBike()) {
+                instants.returned = instant;
+            }
+        } else if (event instanceof EventUserLeavesSystem) {
+            userLeaves(instants, instant);
+            users.remove(user.getId());
+            return;
+        }
+        instants.state = user.getState();
+    }
+
+    private void userLeaves(UserInstants instants, int instant) {
+        metrics.addExitReason(String.valueOf(instants.state));
+        // the users of a restored simulation may have appeared before the snapshot
+        if (instants.appearance < 0) {
+            return;
+        }
+        if (instants.rental < 0) {
+            metrics.addTimeToOriginStation(instant - instants.appearance);
+            return;
+        }
+        addTripTimes(instants);
+        if (instants.returned >= 0) {
+            metrics.addTimeToDestinationPlace(instant - instants.returned);
+        }
+    }
+
+    /**
+     * It adds the times of the parts of the trip of a user who has rented a bike, from the
+     * appearance to the return of the bike, if it has been returned.
+     */
+    private void addTripTimes(UserInstants instants) {
+        metrics.addTimeToOriginStation(instants.rental - instants.appearance);
+        if (instants.returned >= 0) {
+            metrics.addCyclingTime(instants.returned - instants.rental);
+        }
+    }
+
+    @Override
+    public void endInstant() {
+    }
+
+    @Override
+    public void writeGlobalInformation(FinalGlobalValues finalGlobalValues) {
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (UserInstants instants : users.values()) {
+            if (instants.appearance >= 0 && instants.rental >= 0) {
+                addTripTimes(instants);
+            }
+        }
+        users.clear();
+        metrics.calculate();
+        outputDirectory.mkdirs();
+        try (FileWriter writer = new FileWriter(new File(outputDirectory, METRICS_FILENAME))) {
+            gson.toJson(metrics, writer);
+        }
+    }
+
+    /**
+     * @return the figures of the simulation. They are complete when the sink is closed.
+     */
+    public SimulationMetrics getMetrics() {
+        return metrics;
+    }
+
+    private static class UserInstants {
+        private int appearance = -1;
+        private int rental = -1;
+        private int returned = -1;
+        private User.STATE state;
+    }
+}
@@ -0,0 +1,184 @@
+package es.urjc.ia.bikesurbanfleets.core.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * This class contains the final figures of a simulation which the data analyser calculates from
+ * the history: rentals and returns, reservations, the times of the users in the system and their
+ * exit reasons, and the global indicators:
+ * demand satisfaction (DS = SH / N), hire efficiency (HE = SH / (N + FH)) and
+ * return efficiency (RE = SR / (SH + FR)), where N is the number of users, SH and FH
+ * the successful and failed hires, and SR and FR the successful and failed returns.
+ * The times are averages in seconds, over the users who have walked or cycled that part of
+ * their trip.
+ * @author IAgroup
+ *
+ */
+public class SimulationMetrics {
+
+    private int users;
+    private int successfulRentals;
+    private int failedRentals;
+    private int successfulReturns;
+    private int failedReturns;
+    private int successfulBikeReservations;
+    private int failedBikeReservations;
+    private int successfulSlotReservations;
+    private int failedSlotReservations;
+
+    private double demandSatisfaction;
+    private double hireEfficiency;
+    private double returnEfficiency;
+
+    private double averageTimeToOriginStation;
+    private double averageCyclingTime;
+    private double averageTimeToDestinationPlace;
+
+    /**
+     * These are the number of users which have left the system, by the state they had before.
+     */
+    private Map<String, Integer> exitReasons = new TreeMap<>();
+
+    private transient long timeToOriginStation;
+    private transient int usersToOriginStation;
+    private transient long cyclingTime;
+    private transient int cyclingUsers;
+    private transient long timeToDestinationPlace;
+    private transient int usersToDestinationPlace;
+
+    void addUser() {
+        users++;
+    }
+
+    void addRental(boolean successful) {
+        if (successful) {
+            successfulRentals++;
+        } else {
+            failedRentals++;
+        }
+    }
+
+    void addReturn(boolean successful) {
+        if (successful) {
+            successfulReturns++;
+        } else {
+            failedReturns++;
+        }
+    }
+
+    void addBikeReservation(boolean successful) {
+        if (successful) {
+            successfulBikeReservations++;
+        } else {
+            failedBikeReservations++;
+        }
+    }
+
+    void addSlotReservation(boolean successful) {
+        if (successful) {
+            successfulSlotReservations++;
+        } else {
+            failedSlotReservations++;
+        }
+    }
+
+    void addTimeToOriginStation(int time) {
+        timeToOriginStation += time;
+        usersToOriginStation++;
+    }
+
+    void addCyclingTime(int time) {
+        cyclingTime += time;
+        cyclingUsers++;
+    }
+
+    void addTimeToDestinationPlace(int time) {
+        timeToDestinationPlace += time;
+        usersToDestinationPlace++;
+    }
+
+    void addExitReason(String reason) {
+        exitReasons.merge(reason, 1, Integer::sum);
+    }
+
+    /**
+     * It calculates the indicators and the averages from the counters.
+     */
+    void calculate() {
+        demandSatisfaction = ratio(successfulRentals, users);
+        hireEfficiency = ratio(successfulRentals, users + failedRentals);
+        returnEfficiency = ratio(successfulReturns, successfulRentals + failedReturns);
+        averageTimeToOriginStation = ratio(timeToOriginStation, usersToOriginStation);
+        averageCyclingTime = ratio(cyclingTime, cyclingUsers);
+        averageTimeToDestinationPlace = ratio(timeToDestinationPlace, usersToDestinationPlace);
+    }
+
+    private double ratio(long value, int total) {
+        return total == 0 ? 0 : (double) value / total;
+    }
+
+    public int getUsers() {
+        return users;
+    }
+
+    public int getSuccessfulRentals() {
+        return successfulRentals;
+    }
+
+    public int getFailedRentals() {
+        return failedRentals;
+    }
+
+    public int getSuccessfulReturns() {
+        return successfulReturns;
+    }
+
+    public int getFailedReturns() {
+        return failedReturns;
+    }
+
+    public int getSuccessfulBikeReservations() {
+        return successfulBikeReservations;
+    }
+
+    public int getFailedBikeReservations() {
+        return failedBikeReservations;
+    }
+
+    public int getSuccessfulSlotReservations() {
+        return successfulSlotReservations;
+    }
+
+    public int getFailedSlotReservations() {
+        return failedSlotReservations;
+    }
+
+    public double getDemandSatisfaction() {
+        return demandSatisfaction;
+    }
+
+    public double getHireEfficiency() {
+        return hireEfficiency;
+    }
+
+    public double getReturnEfficiency() {
+        return returnEfficiency;
+    }
+
+    public double getAverageTimeToOriginStation() {
+        return averageTimeToOriginStation;
+    }
+
+    public double getAverageCyclingTime() {
+        return averageCyclingTime;
+    }
+
+    public double getAverageTimeToDestinationPlace() {
+        return averageTimeToDestinationPlace;
+    }
+
+    public Map<String, Integer> getExitReasons() {
+        return exitReasons;
+    }
+}
@@ -0,0 +1,96 @@
+package es.urjc.ia.bikesurbanfleets.core.replications;
+
+import es.urjc.ia.bikesurbanfleets.common.interfaces.Event;
+import es.urjc.ia.bikesurbanfleets.core.core.SimulationEventListener;
+import es.urjc.ia.bikesurbanfleets.core.events.EventUserAppears;
+import es.urjc.ia.bikesurbanfleets.core.events.EventUserArrivesAtStationToRentBikeWithReservation;
+import es.urjc.ia.bikesurbanfleets.core.events.EventUserArrivesAtStationToRentBikeWithoutReservation;
+import es.urjc.ia.bikesurbanfleets.core.events.EventUserArrivesAtStationToReturnBikeWithReservation;
+import es.urjc.ia.bikesurbanfleets.core.events.EventUserArrivesAtStationToReturnBikeWithoutReservation;
+import es.urjc.ia.bikesurbanfleets.core.events.EventUser;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * This class calculates the global indicators of one replication while it runs.
+ * The indicators are the same as the ones of the data analyser:
+ * demand satisfaction (DS = SH / N), hire efficiency (HE = SH / (N + FH)) and
+ * return efficiency (RE = SR / (SH + FR)), where N is the number of users, SH and FH
+ * the successful and failed hires, and SR and FR the successful and failed returns.
+ * @author IAgroup
+ *
+ */
+public class ReplicationKpis implements SimulationEventListener {
+
+    public static final String DEMAND_SATISFACTION = "demandSatisfaction";
+    public static final String HIRE_EFFICIENCY = "hireEfficiency";
+    public static final String RETURN_EFFICIENCY = "returnEfficiency";
+
+    private long seed;
+
+    private int users;
+    private int successfulRentals;
+    private int failedRentals;
+    private int successfulReturns;
+    private int failedReturns;
+
+    public ReplicationKpis(long seed) {
+        this.seed = seed;
+    }
+
+    @Override
+    public void eventExecuted(Event event) {
+        if (event instanceof EventUserAppears) {
+            users++;
+        } else if (event instanceof EventUserArrivesAtStationToRentBikeWithReservation) {
+            successfulRentals++;
+        } else if (event instanceof EventUserArrivesAtStationToReturnBikeWithReservation) {
+            successfulReturns++;
+        } else if (event instanceof EventUserArrivesAtStationToRentBikeWithoutReservation) {
+            if (((EventUser) event).getUser().hasBike()) {
+                successfulRentals++;
+            } else {
+                failedRentals++;
+            }
+        } else if (event instanceof EventUserArrivesAtStationToReturnBikeWithoutReservation) {
+            if (((EventUser) event).getUser().hasBike()) {
+                failedReturns++;
+            } else {
+                successfulReturns++;
+            }
+        }
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public double getDemandSatisfaction() {
+        return ratio(successfulRentals, users);
+    }
+
+    public double getHireEfficiency() {
+        return ratio(successfulRentals, users + failedRentals);
+    }
+
+    public double getReturnEfficiency() {
+        return ratio(successfulReturns, successfulRentals + failedReturns);
+    }
+
+    /**
+     * @return the indicators by name, in a fixed order.
+     */
+    public Map<String, Double> getValues() {
+        Map<String, Double> values = new LinkedHashMap<>();
+        values.put(DEMAND_SATISFACTION, getDemandSatisfaction());
+        values.put(HIRE_EFFICIENCY, getHireEfficiency());
+        values.put(RETURN_EFFICIENCY, getReturnEfficiency());
+        return values;
+    }
+
+    private double ratio(int value, int total) {
+        return total == 0 ? 0 : (double) value / total;
+    }
+
+}
@@ -0,0 +1,263 @@
+package es.urjc.ia.bikesurbanfleets.core.replications;
+
+import com.google.gson.Gson;
+import es.urjc.ia.bikesurbanfleets.common.config.GlobalInfo;
+import es.urjc.ia.bikesurbanfleets.common.graphs.GraphHopperIntegration;
+import es.urjc.ia.bikesurbanfleets.common.graphs.GraphManagerType;
+import es.urjc.ia.bikesurbanfleets.core.config.ConfigJsonReader;
+import es.urjc.ia.bikesurbanfleets.core.config.StationsConfig;
+import es.urjc.ia.bikesurbanfleets.core.config.UsersConfig;
+import es.urjc.ia.bikesurbanfleets.core.core.SimulationEngine;
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.CommandLineParser;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class runs several replications of the same scenario, each one with a different
+ * random seed, concurrently on a fixed pool of workers. The map is loaded only once and the
+ * parsed configuration is shared by all the replications.
+ * The indicators of the replications are accumulated in running statistics in the order of
+ * their seeds and, if a target confidence interval half width is given, no more replications
+ * are started once all the indicators reach it.
+ * @author IAgroup
+ *
+ */
+public class ReplicationRunner {
+
+    private static final String REPLICATION_DIR_PREFIX = "seed_";
+
+    private GlobalInfo globalInfo;
+    private StationsConfig stationsInfo;
+    private UsersConfig usersInfo;
+    private GraphHopperIntegration graph;
+    private int threads;
+
+    private double confidenceLevel = 0.95;
+
+    /**
+     * It is the confidence interval half width at which replications stop. If it is 0, all the
+     * replications are run.
+     */
+    private double targetHalfWidth = 0;
+
+    /**
+     * It is the number of replications which are always run before checking the half width.
+     */
+    private int minReplications = 3;
+
+    private String historyOutputPath = "replications";
+
+    private Map<String, RunningStatistics> statistics;
+
+    private Gson gson = new Gson();
+
+    public ReplicationRunner(GlobalInfo globalInfo, StationsConfig stationsInfo, UsersConfig usersInfo,
+                             String mapDir, int threads) throws IOException {
+        String graphHopperType = GraphHopperIntegration.class.getAnnotation(GraphManagerType.class).value();
+        if (!graphHopperType.equals(globalInfo.getGraphManagerType())) {
+            throw new IllegalArgumentException("Replications can only share a " + graphHopperType + " graph");
+        }
+        if (threads < 1) {
+            throw new IllegalArgumentException("At least one thread is needed");
+        }
+        this.globalInfo = globalInfo;
+        this.stationsInfo = stationsInfo;
+        this.usersInfo = usersInfo;
+        this.graph = new GraphHopperIntegration(mapDir);
+        this.threads = threads;
+    }
+
+    public ReplicationRunner setConfidenceLevel(double confidenceLevel) {
+        this.confidenceLevel = confidenceLevel;
+        return this;
+    }
+
+    public ReplicationRunner setTargetHalfWidth(double targetHalfWidth) {
+        this.targetHalfWidth = targetHalfWidth;
+        return this;
+    }
+
+    public ReplicationRunner setMinReplications(int minReplications) {
+        this.minReplications = minReplications;
+        return this;
+    }
+
+    /**
+     * @param historyOutputPath directory where the history of each replication is written,
+     * in a subdirectory named after its seed.
+     */
+    public ReplicationRunner setHistoryOutputPath(String historyOutputPath) {
+        this.historyOutputPath = historyOutputPath;
+        return this;
+    }
+
+    /**
+     * It runs a replication for each seed, unless the target half width is reached before.
+     * Replications are started in the order of the seeds and, although they may finish in any
+     * order, their indicators are added in the order of the seeds, so the replications which
+     * are used don't depend on how long each one takes.
+     * @param seeds the random seeds of the replications.
+     * @return the statistics of each indicator, by indicator name.
+     */
+    public Map<String, RunningStatistics> run(List<Long> seeds) throws InterruptedException {
+        statistics = new LinkedHashMap<>();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<ReplicationKpis>> replications = new ArrayList<>();
+        for (Long seed : seeds) {
+            replications.add(executor.submit(() -> runReplication(seed)));
+        }
+
+        try {
+            for (int i = 0; i < replications.size(); i++) {
+                ReplicationKpis kpis = replications.get(i).get();
+                addReplication(kpis);
+                if (targetHalfWidthReached()) {
+                    System.out.println("Target half width reached after " + (i + 1) + " replications");
+                    break;
+                }
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("A replication has failed", e.getCause());
+        } finally {
+            // pending replications are cancelled and running ones are left to finish, but ignored
+            executor.shutdown();
+            for (Future<ReplicationKpis> replication : replications) {
+                replication.cancel(false);
+            }
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        }
+        return statistics;
+    }
+
+    private ReplicationKpis runReplication(long seed) throws Exception {
+        // each replication needs its own global configuration, as seed and output paths differ
+        GlobalInfo replicationInfo = gson.fromJson(gson.toJsonTree(globalInfo), GlobalInfo.class);
+        replicationInfo.setRandomSeed(seed);
+        replicationInfo.setHistoryOutputPath(historyOutputPath + "/" + REPLICATION_DIR_PREFIX + seed);
+        if (replicationInfo.isDebugMode()) {
+            String debugDir = globalInfo.getDebugDir() + "/" + REPLICATION_DIR_PREFIX + seed;
+            new File(debugDir).mkdirs();
+            replicationInfo.setDebugDir(debugDir);
+        }
+
+        SimulationEngine simulation = new SimulationEngine(replicationInfo, stationsInfo, usersInfo, graph);
+        ReplicationKpis kpis = new ReplicationKpis(seed);
+        simulation.addEventListener(kpis);
+        simulation.setShowProgress(false);
+        simulation.run();
+        return kpis;
+    }
+
+    private void addReplication(ReplicationKpis kpis) {
+        StringBuilder line = new StringBuilder("Replication seed " + kpis.getSeed() + ":");
+        for (Map.Entry<String, Double> value : kpis.getValues().entrySet()) {
+            statistics.computeIfAbsent(value.getKey(), name -> new RunningStatistics()).add(value.getValue());
+            line.append(" ").append(value.getKey()).append("=").append(String.format("%.4f", value.getValue()));
+        }
+        System.out.println(line);
+    }
+
+    private boolean targetHalfWidthReached() {
+        if (targetHalfWidth <= 0) {
+            return false;
+        }
+        for (RunningStatistics indicator : statistics.values()) {
+            if (indicator.getCount() < minReplications
+                    || indicator.getConfidenceHalfWidth(confidenceLevel) > targetHalfWidth) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static CommandLine commandParser(String[] args) throws ParseException {
+
+        Options options = new Options();
+        options.addOption("globalConfig", true, "Directory to the global configuration file");
+        options.addOption("usersConfig", true, "Directory to the users configuration file");
+        options.addOption("stationsConfig", true, "Directory to the stations configuration file");
+        options.addOption("mapPath", true, "Directory to map");
+        options.addOption("historyOutput", true, "Directory where the history of each replication is stored");
+        options.addOption("seeds", true, "Comma separated list of seeds");
+        options.addOption("replications", true, "Number of replications, with consecutive seeds from the configured one");
+        options.addOption("threads", true, "Number of replications run at the same time");
+        options.addOption("confidence", true, "Confidence level of the intervals (default 0.95)");
+        options.addOption("halfWidth", true, "Confidence interval half width at which replications stop");
+        options.addOption("minReplications", true, "Replications run before checking the half width (default 3)");
+
+        CommandLineParser parser = new DefaultParser();
+        return parser.parse(options, args);
+    }
+
+    public static void main(String[] args) throws Exception {
+
+        //Create auxiliary folder
+        File auxiliaryDir = new File(GlobalInfo.TEMP_DIR);
+        if(!auxiliaryDir.exists()) {
+            auxiliaryDir.mkdirs();
+        }
+
+        CommandLine cmd = commandParser(args);
+        if (!cmd.hasOption("globalConfig") || !cmd.hasOption("usersConfig")
+                || !cmd.hasOption("stationsConfig") || !cmd.hasOption("mapPath")) {
+            throw new IllegalArgumentException("You should specify the configuration files and the map");
+        }
+
+        ConfigJsonReader jsonReader = new ConfigJsonReader(cmd.getOptionValue("globalConfig"),
+                cmd.getOptionValue("stationsConfig"), cmd.getOptionValue("usersConfig"));
+        GlobalInfo globalInfo = jsonReader.readGlobalConfiguration();
+        UsersConfig usersInfo = jsonReader.readUsersConfiguration();
+        StationsConfig stationsInfo = jsonReader.readStationsConfiguration();
+
+        List<Long> seeds = new ArrayList<>();
+        if (cmd.hasOption("seeds")) {
+            for (String seed : cmd.getOptionValue("seeds").split(",")) {
+                seeds.add(Long.parseLong(seed.trim()));
+            }
+        } else {
+            int replications = Integer.parseInt(cmd.getOptionValue("replications", "10"));
+            for (int i = 0; i < replications; i++) {
+                seeds.add(globalInfo.getRandomSeed() + i);
+            }
+        }
+
+        int threads = Integer.parseInt(cmd.getOptionValue("threads",
+                String.valueOf(Runtime.getRuntime().availableProcessors())));
+        double confidenceLevel = Double.parseDouble(cmd.getOptionValue("confidence", "0.95"));
+
+        ReplicationRunner runner = new ReplicationRunner(globalInfo, stationsInfo, usersInfo,
+                cmd.getOptionValue("mapPath"), threads)
+                .setConfidenceLevel(confidenceLevel)
+                .setTargetHalfWidth(Double.parseDouble(cmd.getOptionValue("halfWidth", "0")))
+                .setMinReplications(Integer.parseInt(cmd.getOptionValue("minReplications", "3")));
+        if (cmd.hasOption("historyOutput")) {
+            runner.setHistoryOutputPath(cmd.getOptionValue("historyOutput"));
+        }
+
+        Map<String, RunningStatistics> statistics = runner.run(seeds);
+
+        System.out.println("indicator\treplications\tmean\tstdDev\thalfWidth");
+        for (Map.Entry<String, RunningStatistics> indicator : statistics.entrySet()) {
+            RunningStatistics values = indicator.getValue();
+            System.out.println(indicator.getKey() + "\t" + values.getCount()
+                    + "\t" + String.format("%.4f", values.getMean())
+                    + "\t" + String.format("%.4f", values.getStandardDeviation())
+                    + "\t" + String.format("%.4f", values.getConfidenceHalfWidth(confidenceLevel)));
+        }
+    }
+
+}
@@ -0,0 +1,62 @@
+package es.urjc.ia.bikesurbanfleets.core.replications;
+
+import org.apache.commons.math3.distribution.TDistribution;
+
+/**
+ * This class accumulates the values of an indicator obtained by several replications
+ * of a simulation, without storing them. It keeps the running mean and variance
+ * (Welford's method) and provides the confidence interval of the mean.
+ * @author IAgroup
+ *
+ */
+public class RunningStatistics {
+
+    private long count;
+    private double mean;
+
+    /**
+     * It is the sum of the squared differences from the current mean.
+     */
+    private double squaredDifferences;
+
+    public void add(double value) {
+        count++;
+        double delta = value - mean;
+        mean += delta / count;
+        squaredDifferences += delta * (value - mean);
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getMean() {
+        return mean;
+    }
+
+    /**
+     * @return the sample variance, or 0 if there are less than 2 values.
+     */
+    public double getVariance() {
+        return count < 2 ? 0 : squaredDifferences / (count - 1);
+    }
+
+    public double getStandardDeviation() {
+        return Math.sqrt(getVariance());
+    }
+
+    /**
+     * It calculates the half width of the confidence interval of the mean, using the
+     * Student's t distribution.
+     * @param confidenceLevel it is the confidence level, e.g. 0.95.
+     * @return the half width, or infinity if there are less than 2 values.
+     */
+    public double getConfidenceHalfWidth(double confidenceLevel) {
+        if (count < 2) {
+            return Double.POSITIVE_INFINITY;
+        }
+        double t = new TDistribution(count - 1).inverseCumulativeProbability(1 - (1 - confidenceLevel) / 2);
+        return t * getStandardDeviation() / Math.sqrt(count);
+    }
+
+}
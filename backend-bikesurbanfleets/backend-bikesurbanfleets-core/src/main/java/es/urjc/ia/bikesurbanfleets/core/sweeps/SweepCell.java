@@ -0,0 +1,74 @@
+package es.urjc.ia.bikesurbanfleets.core.sweeps;
+
+import com.google.gson.JsonObject;
+import es.urjc.ia.bikesurbanfleets.core.replications.ReplicationKpis;
+
+/**
+ * This class represents one simulation of a parameter sweep: a user type, a recommendation
+ * system type and, optionally, some values which override the global configuration.
+ * After the sweep is run, it also contains the results of the simulation.
+ * @author IAgroup
+ *
+ */
+public class SweepCell {
+
+    private String name;
+    private JsonObject userType;
+    private JsonObject recommendationSystemType;
+
+    /**
+     * They are global configuration values which replace the ones of the configuration file.
+     * It may be null.
+     */
+    private JsonObject globalOverrides;
+
+    private ReplicationKpis kpis;
+    private double seconds;
+    private Throwable error;
+
+    public SweepCell(String name, JsonObject userType, JsonObject recommendationSystemType, JsonObject globalOverrides) {
+        this.name = name;
+        this.userType = userType;
+        this.recommendationSystemType = recommendationSystemType;
+        this.globalOverrides = globalOverrides;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public JsonObject getUserType() {
+        return userType;
+    }
+
+    public JsonObject getRecommendationSystemType() {
+        return recommendationSystemType;
+    }
+
+    public JsonObject getGlobalOverrides() {
+        return globalOverrides;
+    }
+
+    public ReplicationKpis getKpis() {
+        return kpis;
+    }
+
+    public double getSeconds() {
+        return seconds;
+    }
+
+    public Throwable getError() {
+        return error;
+    }
+
+    void setResult(ReplicationKpis kpis, double seconds) {
+        this.kpis = kpis;
+        this.seconds = seconds;
+    }
+
+    void setError(Throwable error, double seconds) {
+        this.error = error;
+        this.seconds = seconds;
+    }
+
+}
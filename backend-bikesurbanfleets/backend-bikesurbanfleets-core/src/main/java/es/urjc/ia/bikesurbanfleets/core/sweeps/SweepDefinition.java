@@ -0,0 +1,84 @@
+package es.urjc.ia.bikesurbanfleets.core.sweeps;
+
+import com.google.gson.JsonObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * This class represents a parameter sweep file. The simulations can be given as a list of
+ * tests, each one with its user type and its recommendation system type, or as a grid of
+ * user types × recommendation system types. Every simulation is repeated for each one of the
+ * global configuration overrides, if there are any.
+ * @author IAgroup
+ *
+ */
+public class SweepDefinition {
+
+    /**
+     * It is the directory which contains the conf folder with the configuration files.
+     */
+    private String basedir;
+
+    /**
+     * If it is given, all the simulations continue from this snapshot file instead of starting
+     * from the beginning.
+     */
+    private String snapshot;
+
+    private List<JsonObject> tests;
+    private List<JsonObject> userTypes;
+    private List<JsonObject> recommendationSystemTypes;
+    private List<JsonObject> globalOverrides;
+
+    public String getBasedir() {
+        return basedir;
+    }
+
+    public String getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * It expands the definition into the simulations to run. Each one is named after its user
+     * type and recommendation system type, followed by a number to make the name unique.
+     * @return the simulations of the sweep.
+     */
+    public List<SweepCell> expand() {
+        List<JsonObject[]> combinations = new ArrayList<>();
+        if (tests != null) {
+            for (JsonObject test : tests) {
+                combinations.add(new JsonObject[]{test.getAsJsonObject("userType"),
+                        test.getAsJsonObject("recommendationSystemType")});
+            }
+        }
+        if (userTypes != null && recommendationSystemTypes != null) {
+            for (JsonObject userType : userTypes) {
+                for (JsonObject recommendationSystemType : recommendationSystemTypes) {
+                    combinations.add(new JsonObject[]{userType, recommendationSystemType});
+                }
+            }
+        }
+
+        List<JsonObject> overrides = globalOverrides != null ? globalOverrides : Collections.singletonList(null);
+        List<SweepCell> cells = new ArrayList<>();
+        Set<String> names = new HashSet<>();
+        for (JsonObject[] combination : combinations) {
+            for (JsonObject override : overrides) {
+                String name = combination[0].get("typeName").getAsString() + "_"
+                        + combination[1].get("typeName").getAsString();
+                int i = 0;
+                while (names.contains(name + i)) {
+                    i++;
+                }
+                names.add(name + i);
+                cells.add(new SweepCell(name + i, combination[0], combination[1], override));
+            }
+        }
+        return cells;
+    }
+
+}
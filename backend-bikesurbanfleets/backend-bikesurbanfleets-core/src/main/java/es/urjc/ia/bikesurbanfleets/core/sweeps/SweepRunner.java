@@ -0,0 +1,212 @@
+package es.urjc.ia.bikesurbanfleets.core.sweeps;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import es.urjc.ia.bikesurbanfleets.common.config.GlobalInfo;
+import es.urjc.ia.bikesurbanfleets.common.graphs.GraphHopperIntegration;
+import es.urjc.ia.bikesurbanfleets.common.graphs.GraphManagerType;
+import es.urjc.ia.bikesurbanfleets.common.util.MessageGuiFormatter;
+import es.urjc.ia.bikesurbanfleets.core.config.ConfigJsonReader;
+import es.urjc.ia.bikesurbanfleets.core.config.StationsConfig;
+import es.urjc.ia.bikesurbanfleets.core.config.UsersConfig;
+import es.urjc.ia.bikesurbanfleets.core.core.SimulationEngine;
+import es.urjc.ia.bikesurbanfleets.core.core.SimulationSnapshot;
+import es.urjc.ia.bikesurbanfleets.core.replications.ReplicationKpis;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * This class runs the simulations of a parameter sweep on a work-stealing pool with a bounded
+ * number of threads. The configuration files are read and the map is loaded only once for the
+ * whole sweep. The history of every simulation is written in its own directory and a summary
+ * table with the indicators of all of them is written at the end.
+ * Usage: SweepRunner sweepFile mapPath outputDir [threads]
+ * @author IAgroup
+ *
+ */
+public class SweepRunner {
+
+    public static final String SUMMARY_FILENAME = "summary.tsv";
+
+    private JsonObject globalConfig;
+    private StationsConfig stationsInfo;
+    private UsersConfig usersInfo;
+    private GraphHopperIntegration graph;
+    private int threads;
+    private SimulationSnapshot snapshot;
+
+    private Gson gson = new Gson();
+
+    /**
+     * @param baseDir directory which contains the conf folder with the configuration files.
+     * @param mapDir the map file.
+     * @param threads maximum number of simulations run at the same time.
+     */
+    public SweepRunner(String baseDir, String mapDir, int threads) throws IOException {
+        if (threads < 1) {
+            throw new IllegalArgumentException("At least one thread is needed");
+        }
+        ConfigJsonReader jsonReader = new ConfigJsonReader(baseDir + "/conf/global_configuration.json",
+                baseDir + "/conf/stations_configuration.json", baseDir + "/conf/users_configuration.json");
+        this.globalConfig = jsonReader.readGlobalConfigurationJson();
+        this.stationsInfo = jsonReader.readStationsConfiguration();
+        this.usersInfo = jsonReader.readUsersConfiguration();
+
+        String graphHopperType = GraphHopperIntegration.class.getAnnotation(GraphManagerType.class).value();
+        if (!graphHopperType.equals(globalConfig.get("graphManagerType").getAsString())) {
+            throw new IllegalArgumentException("Sweeps can only share a " + graphHopperType + " graph");
+        }
+        this.graph = new GraphHopperIntegration(mapDir);
+        this.threads = threads;
+    }
+
+    /**
+     * It makes all the simulations continue from a snapshot, so only the part of the day after
+     * it is simulated again. The users which had appeared before the snapshot keep their type,
+     * and the indicators only cover the events after the snapshot.
+     * @param snapshot the snapshot shared by the simulations, each one restores its own copy.
+     */
+    public void setSnapshot(SimulationSnapshot snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    /**
+     * It runs all the simulations of the sweep. A failed simulation doesn't stop the others;
+     * its error is kept in its cell.
+     * @param cells the simulations to run, whose results are set when this method returns.
+     * @param historyDir directory where the history directory of each simulation is created.
+     * @param debugDir directory where the debug directory of each simulation is created.
+     */
+    public void run(List<SweepCell> cells, String historyDir, String debugDir) throws InterruptedException {
+        ExecutorService executor = Executors.newWorkStealingPool(threads);
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (SweepCell cell : cells) {
+            tasks.add(() -> {
+                runCell(cell, historyDir, debugDir);
+                return null;
+            });
+        }
+        try {
+            executor.invokeAll(tasks);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private void runCell(SweepCell cell, String historyDir, String debugDir) {
+        long start = System.nanoTime();
+        try {
+            JsonObject cellConfig = new JsonObject();
+            for (Map.Entry<String, JsonElement> value : globalConfig.entrySet()) {
+                cellConfig.add(value.getKey(), value.getValue());
+            }
+            if (cell.getGlobalOverrides() != null) {
+                for (Map.Entry<String, JsonElement> value : cell.getGlobalOverrides().entrySet()) {
+                    cellConfig.add(value.getKey(), value.getValue());
+                }
+            }
+            GlobalInfo globalInfo = gson.fromJson(cellConfig, GlobalInfo.class);
+            globalInfo.setRecommendationSystemType(cell.getRecommendationSystemType());
+            globalInfo.setHistoryOutputPath(historyDir + "/" + cell.getName());
+            String cellDebugDir = debugDir + "/" + cell.getName();
+            new File(cellDebugDir).mkdirs();
+            globalInfo.setDebugDir(cellDebugDir);
+
+            // the user definitions are shared, so the user type is replaced in copies of them
+            List<JsonObject> users = new ArrayList<>();
+            for (JsonObject user : usersInfo.getUsers()) {
+                JsonObject cellUser = new JsonObject();
+                for (Map.Entry<String, JsonElement> value : user.entrySet()) {
+                    cellUser.add(value.getKey(), value.getValue());
+                }
+                cellUser.add("userType", cell.getUserType());
+                users.add(cellUser);
+            }
+
+            SimulationEngine simulation = snapshot != null
+                    ? new SimulationEngine(globalInfo, new UsersConfig(users), snapshot, graph)
+                    : new SimulationEngine(globalInfo, stationsInfo, new UsersConfig(users), graph);
+            ReplicationKpis kpis = new ReplicationKpis(globalInfo.getRandomSeed());
+            simulation.addEventListener(kpis);
+            simulation.setShowProgress(false);
+            simulation.run();
+            cell.setResult(kpis, (System.nanoTime() - start) / 1e9);
+            System.out.println("Simulation " + cell.getName() + " finished");
+        } catch (Exception e) {
+            cell.setError(e, (System.nanoTime() - start) / 1e9);
+            MessageGuiFormatter.showErrorsForGui("Simulation " + cell.getName() + " failed");
+            MessageGuiFormatter.showErrorsForGui(e);
+        }
+    }
+
+    /**
+     * It writes a tab separated table with the indicators of every simulation.
+     * @param cells the simulations of the sweep, after running them.
+     * @param outputDir directory where the summary file is written.
+     */
+    public static void writeSummary(List<SweepCell> cells, String outputDir) throws IOException {
+        File summary = new File(outputDir, SUMMARY_FILENAME);
+        summary.getParentFile().mkdirs();
+        try (PrintWriter writer = new PrintWriter(new FileWriter(summary))) {
+            writer.println("simulation\tuserType\trecommendationSystemType\tglobalOverrides\t"
+                    + ReplicationKpis.DEMAND_SATISFACTION + "\t" + ReplicationKpis.HIRE_EFFICIENCY + "\t"
+                    + ReplicationKpis.RETURN_EFFICIENCY + "\tseconds");
+            for (SweepCell cell : cells) {
+                StringBuilder line = new StringBuilder();
+                line.append(cell.getName())
+                        .append("\t").append(cell.getUserType().get("typeName").getAsString())
+                        .append("\t").append(cell.getRecommendationSystemType().get("typeName").getAsString())
+                        .append("\t").append(cell.getGlobalOverrides() != null ? cell.getGlobalOverrides().toString() : "");
+                if (cell.getKpis() != null) {
+                    for (Double value : cell.getKpis().getValues().values()) {
+                        line.append("\t").append(String.format("%.4f", value));
+                    }
+                } else {
+                    line.append("\tFAILED\tFAILED\tFAILED");
+                }
+                line.append("\t").append(String.format("%.1f", cell.getSeconds()));
+                writer.println(line);
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 3) {
+            throw new IllegalArgumentException("Usage: SweepRunner sweepFile mapPath outputDir [threads]");
+        }
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+
+        SweepDefinition definition;
+        try (FileReader reader = new FileReader(args[0])) {
+            definition = new Gson().fromJson(reader, SweepDefinition.class);
+        }
+        List<SweepCell> cells = definition.expand();
+
+        long start = System.nanoTime();
+        SweepRunner runner = new SweepRunner(definition.getBasedir(), args[1], threads);
+        if (definition.getSnapshot() != null) {
+            runner.setSnapshot(SimulationSnapshot.read(new File(definition.getSnapshot())));
+        }
+        runner.run(cells, args[2] + "/history", args[2] + "/debug");
+        writeSummary(cells, args[2]);
+
+        double cpuSeconds = 0;
+        for (SweepCell cell : cells) {
+            cpuSeconds += cell.getSeconds();
+        }
+        System.out.println(cells.size() + " simulations: " + String.format("%.1f", (System.nanoTime() - start) / 1e9)
+                + " s wall time, " + String.format("%.1f", cpuSeconds) + " s simulation time");
+    }
+
+}
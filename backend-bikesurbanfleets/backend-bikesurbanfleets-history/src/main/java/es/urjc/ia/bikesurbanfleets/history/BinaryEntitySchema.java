@@ -0,0 +1,146 @@
+package es.urjc.ia.bikesurbanfleets.history;
+
+import com.google.gson.annotations.Expose;
+import es.urjc.ia.bikesurbanfleets.common.interfaces.HistoricEntity;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+
+/**
+ * This class describes how the instances of a historic class are written in the binary history:
+ * its json identifier and, for each declared field, its name, its encoding and if it's exposed,
+ * i.e. if it's part of the initial state of the entities. It is derived from the historic class
+ * when the history is written and read from the file when it's read.
+ * The values are read with the getters of the {@link HistoricClass}, so the fields of primitive
+ * types are compared without boxing them.
+ * @author IAgroup
+ *
+ */
+class BinaryEntitySchema {
+
+    /**
+     * It is the maximum number of fields of a historic class, as the changed fields of an entity
+     * are written as the bits of a long mask.
+     */
+    static final int MAX_FIELDS = Long.SIZE;
+
+    private int index;
+    private String jsonIdentifier;
+    private String[] names;
+    private BinaryFieldCodec[] codecs;
+    private boolean[] exposed;
+
+    /**
+     * It has the getters of the fields. It's only available when the history is written.
+     */
+    private HistoricClass historicClass;
+
+    /**
+     * It is the position of the identifier in the fields.
+     */
+    private int idField = -1;
+
+    /**
+     * It is the identifier of the previous written entity of this type.
+     */
+    private int lastId;
+
+    BinaryEntitySchema(int index, Class<? extends HistoricEntity> historicClass) {
+        this.index = index;
+        this.historicClass = HistoricClass.of(historicClass);
+        this.jsonIdentifier = this.historicClass.getJsonIdentifier();
+        Field[] fields = this.historicClass.getDeclaredFields();
+        checkFieldCount(fields.length, historicClass.getName());
+        this.names = new String[fields.length];
+        this.codecs = new BinaryFieldCodec[fields.length];
+        this.exposed = new boolean[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            Field field = fields[i];
+            names[i] = field.getName();
+            codecs[i] = BinaryFieldCodec.forType(field.getType());
+            exposed[i] = field.isAnnotationPresent(Expose.class) && !Modifier.isStatic(field.getModifiers())
+                    && !Modifier.isTransient(field.getModifiers());
+            if (names[i].equals("id")) {
+                idField = i;
+            }
+        }
+        if (idField < 0) {
+            throw new IllegalStateException("No field id found for " + historicClass);
+        }
+    }
+
+    BinaryEntitySchema(int index, String jsonIdentifier, String[] names, BinaryFieldCodec[] codecs, boolean[] exposed) {
+        this.index = index;
+        checkFieldCount(names.length, jsonIdentifier);
+        this.jsonIdentifier = jsonIdentifier;
+        this.names = names;
+        this.codecs = codecs;
+        this.exposed = exposed;
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals("id")) {
+                idField = i;
+            }
+        }
+    }
+
+    private static void checkFieldCount(int fields, String type) {
+        if (fields > MAX_FIELDS) {
+            throw new IllegalStateException(type + " has " + fields + " fields, more than the "
+                    + MAX_FIELDS + " of the binary history");
+        }
+    }
+
+    int getIndex() {
+        return index;
+    }
+
+    String getJsonIdentifier() {
+        return jsonIdentifier;
+    }
+
+    int getFieldCount() {
+        return names.length;
+    }
+
+    String getFieldName(int field) {
+        return names[field];
+    }
+
+    BinaryFieldCodec getCodec(int field) {
+        return codecs[field];
+    }
+
+    boolean isExposed(int field) {
+        return exposed[field];
+    }
+
+    boolean isId(int field) {
+        return field == idField;
+    }
+
+    Object getValue(HistoricEntity entity, int field) {
+        return historicClass.getValue(field, entity);
+    }
+
+    boolean sameValue(HistoricEntity oldEntity, HistoricEntity entity, int field) {
+        return historicClass.sameValue(field, oldEntity, entity);
+    }
+
+    /**
+     * It returns the difference between an identifier and the previous one of this type, and
+     * keeps it as the previous one.
+     */
+    int idDelta(int id) {
+        int delta = id - lastId;
+        lastId = id;
+        return delta;
+    }
+
+    /**
+     * It returns the identifier from its difference with the previous one of this type.
+     */
+    int idFromDelta(int delta) {
+        lastId += delta;
+        return lastId;
+    }
+}
@@ -0,0 +1,264 @@
+package es.urjc.ia.bikesurbanfleets.history;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+import es.urjc.ia.bikesurbanfleets.common.graphs.GeoPoint;
+import es.urjc.ia.bikesurbanfleets.common.graphs.GeoRoute;
+import es.urjc.ia.bikesurbanfleets.history.History.IdReference;
+import es.urjc.ia.bikesurbanfleets.history.History.Timestamp;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * These are the encodings of the fields of the historic entities in the binary history. The
+ * encoding of a field depends on its declared type. Each one reads the value back as the json
+ * element which the json history has for it, so a binary history can be converted to the json
+ * layout. Strings and enums are written as indexes of the dictionary of the file, and integers
+ * as variable length integers. The values of the types without a specific encoding are written
+ * as json text.
+ * @author IAgroup
+ *
+ */
+enum BinaryFieldCodec {
+
+    INT {
+        @Override
+        void write(BinaryHistoryOutput out, Object value) throws IOException {
+            out.writeSignedVarint((Integer) value);
+        }
+
+        @Override
+        JsonElement read(BinaryHistoryInput in) throws IOException {
+            return new JsonPrimitive((int) in.readSignedVarint());
+        }
+    },
+
+    DOUBLE {
+        @Override
+        void write(BinaryHistoryOutput out, Object value) throws IOException {
+            out.data().writeDouble((Double) value);
+        }
+
+        @Override
+        JsonElement read(BinaryHistoryInput in) throws IOException {
+            return new JsonPrimitive(in.data().readDouble());
+        }
+    },
+
+    BOOLEAN {
+        @Override
+        void write(BinaryHistoryOutput out, Object value) throws IOException {
+            out.data().writeBoolean((Boolean) value);
+        }
+
+        @Override
+        JsonElement read(BinaryHistoryInput in) throws IOException {
+            return new JsonPrimitive(in.data().readBoolean());
+        }
+    },
+
+    /**
+     * Strings and enums are written as 0 if they're null or as their dictionary index plus one.
+     */
+    STRING {
+        @Override
+        void write(BinaryHistoryOutput out, Object value) throws IOException {
+            out.writeVarint(value == null ? 0 : out.string(value.toString()) + 1);
+        }
+
+        @Override
+        JsonElement read(BinaryHistoryInput in) throws IOException {
+            int index = (int) in.readVarint();
+            return index == 0 ? JsonNull.INSTANCE : new JsonPrimitive(in.string(index - 1));
+        }
+    },
+
+    ENUM {
+        @Override
+        void write(BinaryHistoryOutput out, Object value) throws IOException {
+            STRING.write(out, value == null ? null : ((Enum<?>) value).name());
+        }
+
+        @Override
+        JsonElement read(BinaryHistoryInput in) throws IOException {
+            return STRING.read(in);
+        }
+    },
+
+    /**
+     * It is written as the type of the reference and either a single identifier or a list of
+     * identifiers, which may contain nulls. The identifiers of a list are written as the
+     * difference with the previous one, as they are usually close.
+     */
+    ID_REFERENCE {
+        private static final int NULL = 0;
+        private static final int SINGLE = 1;
+        private static final int LIST = 2;
+
+        @Override
+        void write(BinaryHistoryOutput out, Object value) throws IOException {
+            if (value == null) {
+                out.writeVarint(NULL);
+                return;
+            }
+            IdReference reference = (IdReference) value;
+            Object id = reference.getId();
+            if (id instanceof List) {
+                out.writeVarint(LIST);
+                out.writeVarint(out.string(reference.getType()));
+                List<?> ids = (List<?>) id;
+                out.writeVarint(ids.size());
+                int previous = 0;
+                for (Object element : ids) {
+                    if (element == null) {
+                        out.writeVarint(0);
+                    } else {
+                        int current = (Integer) element;
+                        out.writeVarint(BinaryHistoryOutput.zigZag(current - previous) + 1);
+                        previous = current;
+                    }
+                }
+            } else {
+                out.writeVarint(SINGLE);
+                out.writeVarint(out.string(reference.getType()));
+                out.writeSignedVarint((Integer) id);
+            }
+        }
+
+        @Override
+        JsonElement read(BinaryHistoryInput in) throws IOException {
+            int kind = (int) in.readVarint();
+            if (kind == NULL) {
+                return JsonNull.INSTANCE;
+            }
+            JsonObject reference = new JsonObject();
+            reference.addProperty("type", in.string((int) in.readVarint()));
+            if (kind == SINGLE) {
+                reference.addProperty("id", (int) in.readSignedVarint());
+                return reference;
+            }
+            int size = (int) in.readVarint();
+            JsonArray ids = new JsonArray();
+            int previous = 0;
+            for (int i = 0; i < size; i++) {
+                long element = in.readVarint();
+                if (element == 0) {
+                    ids.add(JsonNull.INSTANCE);
+                } else {
+                    previous += (int) BinaryHistoryInput.zigZag(element - 1);
+                    ids.add(new JsonPrimitive(previous));
+                }
+            }
+            reference.add("id", ids);
+            return reference;
+        }
+    },
+
+    /**
+     * It is written as 0 if it's null or as the seconds plus one.
+     */
+    TIMESTAMP {
+        @Override
+        void write(BinaryHistoryOutput out, Object value) throws IOException {
+            out.writeVarint(value == null ? 0 : ((Timestamp) value).getSeconds() + 1L);
+        }
+
+        @Override
+        JsonElement read(BinaryHistoryInput in) throws IOException {
+            long seconds = in.readVarint();
+            return seconds == 0 ? JsonNull.INSTANCE : History.gson.toJsonTree(new Timestamp((int) seconds - 1));
+        }
+    },
+
+    GEO_POINT {
+        @Override
+        void write(BinaryHistoryOutput out, Object value) throws IOException {
+            out.data().writeBoolean(value != null);
+            if (value != null) {
+                GeoPoint point = (GeoPoint) value;
+                out.data().writeDouble(point.getLatitude());
+                out.data().writeDouble(point.getLongitude());
+            }
+        }
+
+        @Override
+        JsonElement read(BinaryHistoryInput in) throws IOException {
+            if (!in.data().readBoolean()) {
+                return JsonNull.INSTANCE;
+            }
+            return History.gson.toJsonTree(new GeoPoint(in.data().readDouble(), in.data().readDouble()));
+        }
+    },
+
+    /**
+     * It is written as 0 if it's null or as the identifier of the route in the route table of
+     * the file plus one, and it's read as a reference to the route table.
+     */
+    GEO_ROUTE {
+        @Override
+        void write(BinaryHistoryOutput out, Object value) throws IOException {
+            out.writeVarint(value == null ? 0 : out.route((GeoRoute) value) + 1);
+        }
+
+        @Override
+        JsonElement read(BinaryHistoryInput in) throws IOException {
+            int id = (int) in.readVarint() - 1;
+            return id < 0 ? JsonNull.INSTANCE : RouteTable.reference(id);
+        }
+    },
+
+    JSON {
+        @Override
+        void write(BinaryHistoryOutput out, Object value) throws IOException {
+            out.writeText(History.gson.toJson(value));
+        }
+
+        @Override
+        JsonElement read(BinaryHistoryInput in) throws IOException {
+            return new JsonParser().parse(in.readText());
+        }
+    };
+
+    abstract void write(BinaryHistoryOutput out, Object value) throws IOException;
+
+    abstract JsonElement read(BinaryHistoryInput in) throws IOException;
+
+    /**
+     * @return the encoding of the fields of the given type.
+     */
+    static BinaryFieldCodec forType(Class<?> type) {
+        if (type == int.class) {
+            return INT;
+        }
+        if (type == double.class) {
+            return DOUBLE;
+        }
+        if (type == boolean.class) {
+            return BOOLEAN;
+        }
+        if (type == String.class) {
+            return STRING;
+        }
+        if (type.isEnum()) {
+            return ENUM;
+        }
+        if (type == IdReference.class) {
+            return ID_REFERENCE;
+        }
+        if (type == Timestamp.class) {
+            return TIMESTAMP;
+        }
+        if (type == GeoPoint.class) {
+            return GEO_POINT;
+        }
+        if (type == GeoRoute.class) {
+            return GEO_ROUTE;
+        }
+        return JSON;
+    }
+}
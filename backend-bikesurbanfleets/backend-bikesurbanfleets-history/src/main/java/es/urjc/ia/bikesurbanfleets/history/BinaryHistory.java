@@ -0,0 +1,222 @@
+package es.urjc.ia.bikesurbanfleets.history;
+
+import es.urjc.ia.bikesurbanfleets.common.interfaces.Entity;
+import es.urjc.ia.bikesurbanfleets.common.interfaces.Event;
+import es.urjc.ia.bikesurbanfleets.common.interfaces.HistoricEntity;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This history records the same information as {@link History}, but in a binary format which is
+ * written while the simulation runs instead of being kept in memory. The entities are written to
+ * one file and the changes of the events, grouped by time instant, to another one.
+ * Each historic class has a schema derived from its declared fields, so an entity is written as
+ * the values of its fields and a change as a bit mask of the changed fields followed by their old
+ * and new values. Identifiers and instants are written as differences with the previous ones,
+ * names and enums as indexes of a dictionary, routes as indexes of a route table and integers
+ * as variable length integers.
+ * The history can be read with {@link HistoryReader} and converted to the json layout with
+ * {@link BinaryHistoryConverter}.
+ * @author IAgroup
+ *
+ */
+public class BinaryHistory implements HistorySink {
+
+    public static final String TYPE = "BINARY";
+
+    public static final String ENTITIES_FILENAME = "entities.bin";
+
+    public static final String EVENTS_FILENAME = "events.bin";
+
+    private Class<? extends HistoricEntity> reservationClass;
+
+    /**
+     * They are the entities registered before the history is initialized, which are written
+     * when it is.
+     */
+    private List<HistoricEntity> pendingEntities = new ArrayList<>();
+
+    /**
+     * It is the current state of the entities in the system, by historic class and identifier.
+     */
+    private Map<Class<? extends HistoricEntity>, Map<Integer, HistoricEntity>> updatedEntities = new HashMap<>();
+
+    /**
+     * They are the versions of the entities when their last historic instances were created.
+     */
+    private EntityVersions versions = new EntityVersions();
+
+    private BinaryHistoryOutput entitiesOutput;
+    private BinaryHistoryOutput eventsOutput;
+
+    private int currentInstant;
+    private int previousInstant;
+    private int instantEvents;
+
+    private Path outputPath = Paths.get(History.DEFAULT_HISTORY_OUTPUT_PATH);
+
+    @Override
+    public void init(String outPath) throws IOException {
+        if (outPath != null) {
+            outputPath = Paths.get(outPath);
+        }
+        entitiesOutput = new BinaryHistoryOutput(outputPath.resolve(ENTITIES_FILENAME));
+        eventsOutput = new BinaryHistoryOutput(outputPath.resolve(EVENTS_FILENAME));
+
+        // the schema of the reservations is needed if there're no reservations in the system
+        if (reservationClass != null) {
+            entitiesOutput.schema(reservationClass);
+        }
+        for (HistoricEntity entity : pendingEntities) {
+            writeEntity(entity);
+        }
+        pendingEntities = null;
+    }
+
+    @Override
+    public void registerEntity(Entity entity) {
+        HistoricEntity historicEntity = History.instantiateHistoric(entity);
+        versions.copied(entity);
+        updatedEntities.computeIfAbsent(historicEntity.getClass(), key -> new HashMap<>())
+                .put(historicEntity.getId(), historicEntity);
+        if (entitiesOutput == null) {
+            pendingEntities.add(historicEntity);
+            return;
+        }
+        try {
+            writeEntity(historicEntity);
+        } catch (IOException e) {
+            throw new IllegalStateException("Error writing the entity " + historicEntity.getId() + " to the history", e);
+        }
+    }
+
+    @Override
+    public void registerEvent(Event event) throws IOException {
+        List<Entity> entities = event.getEntities();
+        HistoricEntity[] historicEntities = versions.copyModified(entities);
+
+        if (instantEvents > 0 && event.getInstant() != currentInstant) {
+            endInstant();
+        }
+        currentInstant = event.getInstant();
+        instantEvents++;
+
+        eventsOutput.writeVarint(eventsOutput.string(event.getClass().getSimpleName()));
+        writeChanges(entities, historicEntities);
+
+        for (HistoricEntity entity : historicEntities) {
+            if (entity != null) {
+                updatedEntities.get(entity.getClass()).put(entity.getId(), entity);
+            }
+        }
+    }
+
+    /**
+     * It writes the time entry of the events of the current time instant.
+     */
+    @Override
+    public void endInstant() throws IOException {
+        if (instantEvents == 0) {
+            return;
+        }
+        eventsOutput.endRecord(BinaryHistoryOutput.TIME_ENTRY, BinaryHistoryOutput.zigZag(currentInstant - previousInstant), instantEvents);
+        previousInstant = currentInstant;
+        instantEvents = 0;
+    }
+
+    @Override
+    public void writeGlobalInformation(FinalGlobalValues finalGlobalValues) throws IOException {
+        History.writeGlobalInformation(outputPath, finalGlobalValues);
+    }
+
+    @Override
+    public void close() throws IOException {
+        endInstant();
+        entitiesOutput.close();
+        eventsOutput.close();
+    }
+
+    @Override
+    public void reservationClass(Class<? extends HistoricEntity> resClass) {
+        reservationClass = resClass;
+    }
+
+    private void writeEntity(HistoricEntity entity) throws IOException {
+        BinaryEntitySchema schema = entitiesOutput.schema(entity.getClass());
+        for (int i = 0; i < schema.getFieldCount(); i++) {
+            if (schema.isExposed(i) && !schema.isId(i)) {
+                schema.getCodec(i).write(entitiesOutput, schema.getValue(entity, i));
+            }
+        }
+        entitiesOutput.endRecord(BinaryHistoryOutput.ENTITY, schema.getIndex(),
+                BinaryHistoryOutput.zigZag(schema.idDelta(entity.getId())));
+    }
+
+    /**
+     * It writes, for each historic class of the entities of an event, the entities which have
+     * changed with respect to their previous state, in the order the classes first appear.
+     * The classes of the entities which haven't been modified are written too, without changes.
+     * @param historicEntities They are the historic instances of the entities, or null for the
+     * ones which haven't been modified.
+     */
+    private void writeChanges(List<Entity> entities, HistoricEntity[] historicEntities) throws IOException {
+        Map<Class<? extends HistoricEntity>, List<HistoricEntity>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < historicEntities.length; i++) {
+            List<HistoricEntity> group = groups.computeIfAbsent(
+                    History.getReferenceClass(entities.get(i).getClass()), key -> new ArrayList<>());
+            if (historicEntities[i] != null) {
+                group.add(historicEntities[i]);
+            }
+        }
+
+        eventsOutput.writeVarint(groups.size());
+        for (Map.Entry<Class<? extends HistoricEntity>, List<HistoricEntity>> group : groups.entrySet()) {
+            BinaryEntitySchema schema = eventsOutput.schema(group.getKey());
+            Map<Integer, HistoricEntity> previousEntities = updatedEntities.get(group.getKey());
+
+            List<HistoricEntity> changed = new ArrayList<>();
+            List<HistoricEntity> previous = new ArrayList<>();
+            List<Long> masks = new ArrayList<>();
+            for (HistoricEntity entity : group.getValue()) {
+                HistoricEntity oldEntity = previousEntities == null ? null : previousEntities.get(entity.getId());
+                if (oldEntity == null) {
+                    throw new IllegalStateException("The entity " + entity.getId() + " of " + schema.getJsonIdentifier()
+                            + " hasn't been registered");
+                }
+                long mask = 0;
+                for (int i = 0; i < schema.getFieldCount(); i++) {
+                    if (!schema.isId(i) && !schema.sameValue(oldEntity, entity, i)) {
+                        mask |= 1L << i;
+                    }
+                }
+                if (mask != 0) {
+                    changed.add(entity);
+                    previous.add(oldEntity);
+                    masks.add(mask);
+                }
+            }
+
+            eventsOutput.writeVarint(schema.getIndex());
+            eventsOutput.writeVarint(changed.size());
+            for (int c = 0; c < changed.size(); c++) {
+                HistoricEntity entity = changed.get(c);
+                long mask = masks.get(c);
+                eventsOutput.writeSignedVarint(entity.getId());
+                eventsOutput.writeVarint(mask);
+                for (int i = 0; i < schema.getFieldCount(); i++) {
+                    if ((mask & (1L << i)) != 0) {
+                        schema.getCodec(i).write(eventsOutput, schema.getValue(previous.get(c), i));
+                        schema.getCodec(i).write(eventsOutput, schema.getValue(entity, i));
+                    }
+                }
+            }
+        }
+    }
+}
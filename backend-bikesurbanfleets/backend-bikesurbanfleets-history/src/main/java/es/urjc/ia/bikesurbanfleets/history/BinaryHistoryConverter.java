@@ -0,0 +1,134 @@
+package es.urjc.ia.bikesurbanfleets.history;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class converts a history written by {@link BinaryHistory} to the json layout written by
+ * {@link History}, which the frontend replays and analyses: a file for each type of entity, the
+ * routes file and files with up to {@link History#TIMEENTRIES_PER_FILE} time entries.
+ * Usage: BinaryHistoryConverter binaryHistoryPath jsonHistoryPath
+ * @author IAgroup
+ *
+ */
+public class BinaryHistoryConverter {
+
+    private Path outputPath;
+
+    public BinaryHistoryConverter(Path outputPath) {
+        this.outputPath = outputPath;
+    }
+
+    public void convert(Path historyPath) throws IOException {
+        try (HistoryReader reader = new HistoryReader(historyPath)) {
+            for (Map.Entry<String, HistoryReader.EntityType> type : reader.readEntities().entrySet()) {
+                writeJson("entities/" + type.getKey() + ".json", entitiesJson(type.getValue()));
+            }
+
+            List<HistoryReader.TimeEntry> timeEntries = new ArrayList<>();
+            HistoryReader.TimeEntry timeEntry = reader.nextTimeEntry();
+            while (timeEntry != null) {
+                if (timeEntries.size() == History.TIMEENTRIES_PER_FILE) {
+                    writeTimeEntries(timeEntries);
+                    timeEntries.clear();
+                }
+                timeEntries.add(timeEntry);
+                timeEntry = reader.nextTimeEntry();
+            }
+            if (!timeEntries.isEmpty()) {
+                writeTimeEntries(timeEntries);
+            }
+
+            JsonArray routes = new JsonArray();
+            reader.getRoutes().forEach(routes::add);
+            writeJson("entities/" + RouteTable.JSON_IDENTIFIER + ".json", RouteTable.entitiesJson(routes));
+        }
+
+        Path globalValues = historyPath.resolve(History.FINAL_GLOBAL_VALUES_FILENAME);
+        if (globalValues.toFile().exists()) {
+            Files.copy(globalValues, outputPath.resolve(History.FINAL_GLOBAL_VALUES_FILENAME),
+                    StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * The instances are ordered as in the json history, where they're kept by identifier.
+     */
+    private JsonObject entitiesJson(HistoryReader.EntityType type) {
+        Map<Integer, JsonObject> instancesById = new HashMap<>();
+        for (JsonObject instance : type.getInstances()) {
+            instancesById.put(instance.get("id").getAsInt(), instance);
+        }
+        JsonArray prototype = new JsonArray();
+        type.getPrototype().forEach(prototype::add);
+        JsonArray instances = new JsonArray();
+        instancesById.values().forEach(instances::add);
+
+        JsonObject json = new JsonObject();
+        json.add("prototype", prototype);
+        json.add("instances", instances);
+        return json;
+    }
+
+    /**
+     * The file name has the same format as in the json history: "first time instant-last time
+     * instant_number of time instants.json"
+     */
+    private void writeTimeEntries(List<HistoryReader.TimeEntry> timeEntries) throws IOException {
+        JsonArray json = new JsonArray();
+        for (HistoryReader.TimeEntry timeEntry : timeEntries) {
+            JsonArray events = new JsonArray();
+            for (HistoryReader.EventEntry eventEntry : timeEntry.getEvents()) {
+                JsonObject changes = new JsonObject();
+                eventEntry.getChanges().forEach((type, entities) -> {
+                    JsonArray changedEntities = new JsonArray();
+                    entities.forEach(changedEntities::add);
+                    changes.add(type, changedEntities);
+                });
+                JsonObject event = new JsonObject();
+                event.addProperty("name", eventEntry.getName());
+                event.add("changes", changes);
+                events.add(event);
+            }
+            JsonObject entry = new JsonObject();
+            entry.addProperty("time", timeEntry.getTime());
+            entry.add("events", events);
+            json.add(entry);
+        }
+
+        String fileName = new StringBuilder()
+                .append(timeEntries.get(0).getTime()).append("-")
+                .append(timeEntries.get(timeEntries.size() - 1).getTime()).append("_")
+                .append(timeEntries.size()).append(".json").toString();
+
+        writeJson(fileName, json);
+    }
+
+    private void writeJson(String name, JsonElement content) throws IOException {
+        File json = outputPath.resolve(name).toFile();
+        json.getParentFile().mkdirs();
+        try (FileWriter writer = new FileWriter(json)) {
+            History.gson.toJson(content, writer);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            throw new IllegalArgumentException("Usage: BinaryHistoryConverter binaryHistoryPath jsonHistoryPath");
+        }
+        new BinaryHistoryConverter(Paths.get(args[1])).convert(Paths.get(args[0]));
+    }
+}
@@ -0,0 +1,184 @@
+package es.urjc.ia.bikesurbanfleets.history;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import es.urjc.ia.bikesurbanfleets.common.graphs.GeoPoint;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class reads a file of the binary history written by {@link BinaryHistoryOutput}. The
+ * definitions of strings and schemas are read when they're found, so the records are read one
+ * by one without loading the whole file.
+ * @author IAgroup
+ *
+ */
+class BinaryHistoryInput implements AutoCloseable {
+
+    private DataInputStream file;
+
+    /**
+     * It is the content of the current record.
+     */
+    private DataInputStream data;
+
+    private List<String> strings = new ArrayList<>();
+    private List<BinaryEntitySchema> schemas = new ArrayList<>();
+    private List<JsonObject> routes = new ArrayList<>();
+
+    private long[] header = new long[BinaryHistoryOutput.HEADER_SIZE];
+
+    BinaryHistoryInput(Path path) throws IOException {
+        this.file = new DataInputStream(new BufferedInputStream(new FileInputStream(path.toFile()), 1 << 16));
+        if (file.readInt() != BinaryHistoryOutput.MAGIC) {
+            file.close();
+            throw new IllegalArgumentException(path + " isn't a binary history file");
+        }
+        long version = readVarint(file);
+        if (version != BinaryHistoryOutput.VERSION) {
+            file.close();
+            throw new IllegalArgumentException("Unsupported binary history version " + version + " in " + path);
+        }
+    }
+
+    /**
+     * It reads the next record and its header.
+     * @return the tag of the record, or END if the file has ended.
+     */
+    int nextRecord() throws IOException {
+        while (true) {
+            int tag = file.readUnsignedByte();
+            switch (tag) {
+                case BinaryHistoryOutput.END:
+                    return tag;
+                case BinaryHistoryOutput.STRING:
+                    strings.add(readString());
+                    break;
+                case BinaryHistoryOutput.SCHEMA:
+                    schemas.add(readSchema());
+                    break;
+                case BinaryHistoryOutput.ROUTE:
+                    routes.add(readRoute());
+                    break;
+                case BinaryHistoryOutput.ENTITY:
+                case BinaryHistoryOutput.TIME_ENTRY:
+                    for (int i = 0; i < header.length; i++) {
+                        header[i] = readVarint(file);
+                    }
+                    byte[] content = new byte[(int) readVarint(file)];
+                    file.readFully(content);
+                    data = new DataInputStream(new ByteArrayInputStream(content));
+                    return tag;
+                default:
+                    throw new IllegalStateException("Unknown record " + tag + " in the binary history");
+            }
+        }
+    }
+
+    long header(int position) {
+        return header[position];
+    }
+
+    /**
+     * @return the stream of the content of the current record.
+     */
+    DataInputStream data() {
+        return data;
+    }
+
+    long readVarint() throws IOException {
+        return readVarint(data);
+    }
+
+    long readSignedVarint() throws IOException {
+        return zigZag(readVarint(data));
+    }
+
+    String readText() throws IOException {
+        byte[] bytes = new byte[(int) readVarint()];
+        data.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    String string(int index) {
+        return strings.get(index);
+    }
+
+    BinaryEntitySchema schema(int index) {
+        return schemas.get(index);
+    }
+
+    List<BinaryEntitySchema> getSchemas() {
+        return schemas;
+    }
+
+    /**
+     * @return the routes defined until the current record, as the instances of the routes file
+     * of the json history.
+     */
+    List<JsonObject> getRoutes() {
+        return routes;
+    }
+
+    @Override
+    public void close() throws IOException {
+        file.close();
+    }
+
+    private String readString() throws IOException {
+        byte[] bytes = new byte[(int) readVarint(file)];
+        file.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private BinaryEntitySchema readSchema() throws IOException {
+        String jsonIdentifier = strings.get((int) readVarint(file));
+        int fieldCount = (int) readVarint(file);
+        String[] names = new String[fieldCount];
+        BinaryFieldCodec[] codecs = new BinaryFieldCodec[fieldCount];
+        boolean[] exposed = new boolean[fieldCount];
+        for (int i = 0; i < fieldCount; i++) {
+            names[i] = strings.get((int) readVarint(file));
+            codecs[i] = BinaryFieldCodec.values()[(int) readVarint(file)];
+            exposed[i] = file.readBoolean();
+        }
+        return new BinaryEntitySchema(schemas.size(), jsonIdentifier, names, codecs, exposed);
+    }
+
+    private JsonObject readRoute() throws IOException {
+        int size = (int) readVarint(file);
+        JsonArray points = new JsonArray();
+        for (int i = 0; i < size; i++) {
+            points.add(History.gson.toJsonTree(new GeoPoint(file.readDouble(), file.readDouble())));
+        }
+        return RouteTable.instance(routes.size(), points, file.readDouble());
+    }
+
+    static long zigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static long readVarint(InputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.read();
+            if (b < 0) {
+                throw new IllegalStateException("Unexpected end of the binary history");
+            }
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalStateException("Malformed variable length integer in the binary history");
+    }
+}
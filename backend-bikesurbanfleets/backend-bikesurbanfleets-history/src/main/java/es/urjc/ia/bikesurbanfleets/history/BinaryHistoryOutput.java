@@ -0,0 +1,176 @@
+package es.urjc.ia.bikesurbanfleets.history;
+
+import es.urjc.ia.bikesurbanfleets.common.graphs.GeoPoint;
+import es.urjc.ia.bikesurbanfleets.common.graphs.GeoRoute;
+import es.urjc.ia.bikesurbanfleets.common.interfaces.HistoricEntity;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class writes a file of the binary history. The file is a sequence of records, each one
+ * with a tag, a header of variable length integers and a content. The strings, the schemas of
+ * the historic classes and the routes are written the first time they're used, before the record
+ * which uses them, so the file can be written and read as a stream.
+ * @author IAgroup
+ *
+ */
+class BinaryHistoryOutput implements AutoCloseable {
+
+    static final int MAGIC = 0x42335348;
+    static final int VERSION = 2;
+
+    static final int END = 0;
+    static final int STRING = 1;
+    static final int SCHEMA = 2;
+    static final int ENTITY = 3;
+    static final int TIME_ENTRY = 4;
+    static final int ROUTE = 5;
+
+    /**
+     * It is the number of values of the header of the entity and time entry records.
+     */
+    static final int HEADER_SIZE = 2;
+
+    private DataOutputStream file;
+
+    /**
+     * It is the content of the record which is being written.
+     */
+    private ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    private DataOutputStream data = new DataOutputStream(buffer);
+
+    private Map<String, Integer> strings = new HashMap<>();
+    private Map<Class<? extends HistoricEntity>, BinaryEntitySchema> schemas = new HashMap<>();
+    private RouteTable routes = new RouteTable();
+
+    BinaryHistoryOutput(Path path) throws IOException {
+        path.toFile().getParentFile().mkdirs();
+        this.file = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(path.toFile()), 1 << 16));
+        file.writeInt(MAGIC);
+        writeVarint(file, VERSION);
+    }
+
+    /**
+     * @return the stream of the content of the current record.
+     */
+    DataOutputStream data() {
+        return data;
+    }
+
+    void writeVarint(long value) throws IOException {
+        writeVarint(data, value);
+    }
+
+    void writeSignedVarint(long value) throws IOException {
+        writeVarint(data, zigZag(value));
+    }
+
+    void writeText(String text) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        writeVarint(bytes.length);
+        data.write(bytes);
+    }
+
+    /**
+     * It returns the dictionary index of a string, and defines it in the file if it's new.
+     */
+    int string(String value) throws IOException {
+        Integer index = strings.get(value);
+        if (index == null) {
+            index = strings.size();
+            strings.put(value, index);
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            file.writeByte(STRING);
+            writeVarint(file, bytes.length);
+            file.write(bytes);
+        }
+        return index;
+    }
+
+    /**
+     * It returns the schema of a historic class, and defines it in the file if it's new.
+     */
+    BinaryEntitySchema schema(Class<? extends HistoricEntity> historicClass) throws IOException {
+        BinaryEntitySchema schema = schemas.get(historicClass);
+        if (schema == null) {
+            schema = new BinaryEntitySchema(schemas.size(), historicClass);
+            schemas.put(historicClass, schema);
+
+            // the strings of the schema are defined before it
+            int identifier = string(schema.getJsonIdentifier());
+            int[] names = new int[schema.getFieldCount()];
+            for (int i = 0; i < names.length; i++) {
+                names[i] = string(schema.getFieldName(i));
+            }
+            file.writeByte(SCHEMA);
+            writeVarint(file, identifier);
+            writeVarint(file, names.length);
+            for (int i = 0; i < names.length; i++) {
+                writeVarint(file, names[i]);
+                writeVarint(file, schema.getCodec(i).ordinal());
+                file.writeBoolean(schema.isExposed(i));
+            }
+        }
+        return schema;
+    }
+
+    /**
+     * It returns the identifier of a route in the route table of the file, and defines it in
+     * the file if there's no equal route in it.
+     */
+    int route(GeoRoute route) throws IOException {
+        int size = routes.size();
+        int id = routes.add(route);
+        if (id == size) {
+            List<GeoPoint> points = route.getPoints();
+            file.writeByte(ROUTE);
+            writeVarint(file, points.size());
+            for (GeoPoint point : points) {
+                file.writeDouble(point.getLatitude());
+                file.writeDouble(point.getLongitude());
+            }
+            file.writeDouble(route.getTotalDistance());
+        }
+        return id;
+    }
+
+    /**
+     * It writes a record with the given header and the content written since the previous one.
+     */
+    void endRecord(int tag, long first, long second) throws IOException {
+        file.writeByte(tag);
+        writeVarint(file, first);
+        writeVarint(file, second);
+        writeVarint(file, buffer.size());
+        buffer.writeTo(file);
+        buffer.reset();
+    }
+
+    @Override
+    public void close() throws IOException {
+        file.writeByte(END);
+        file.close();
+    }
+
+    static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static void writeVarint(OutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+}
@@ -0,0 +1,66 @@
+package es.urjc.ia.bikesurbanfleets.history;
+
+import es.urjc.ia.bikesurbanfleets.common.interfaces.Entity;
+import es.urjc.ia.bikesurbanfleets.common.interfaces.HistoricEntity;
+import es.urjc.ia.bikesurbanfleets.common.interfaces.VersionedEntity;
+
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * This class contains the versions of the entities when the history took their last copies, so
+ * the entities of an event which haven't been modified since then aren't copied and compared
+ * again. The entities which don't implement {@link VersionedEntity} are always copied.
+ * The entities are weakly referenced, so the ones which leave the simulation, e.g. the users,
+ * can be garbage collected. As the entities don't override equals, they are compared by identity.
+ * It is used in the simulation thread.
+ * @author IAgroup
+ *
+ */
+final class EntityVersions {
+
+    private Map<Entity, Integer> versions = new WeakHashMap<>();
+
+    /**
+     * It saves the version of an entity which has just been copied.
+     */
+    void copied(Entity entity) {
+        if (entity instanceof VersionedEntity) {
+            versions.put(entity, ((VersionedEntity) entity).getVersion());
+        }
+    }
+
+    /**
+     * @return true if the entity may have been modified since its last copy.
+     */
+    boolean isModified(Entity entity) {
+        if (!(entity instanceof VersionedEntity)) {
+            return true;
+        }
+        Integer version = versions.get(entity);
+        return version == null || version != ((VersionedEntity) entity).getVersion();
+    }
+
+    /**
+     * It creates the copies of the modified entities of an event. The versions are saved after
+     * all of them have been checked, as an entity can appear more than once in an event.
+     * @return the copies of the entities, in the same order, with null for the ones which haven't
+     * been modified.
+     */
+    HistoricEntity[] copyModified(List<Entity> entities) {
+        HistoricEntity[] copies = new HistoricEntity[entities.size()];
+        for (int i = 0; i < copies.length; i++) {
+            Entity entity = entities.get(i);
+            if (isModified(entity)) {
+                copies[i] = History.instantiateHistoric(entity);
+            }
+        }
+        for (int i = 0; i < copies.length; i++) {
+            if (copies[i] != null) {
+                copied(entities.get(i));
+            }
+        }
+        return copies;
+    }
+}
@@ -0,0 +1,434 @@
+package es.urjc.ia.bikesurbanfleets.history;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+import es.urjc.ia.bikesurbanfleets.common.graphs.GeoRoute;
+import es.urjc.ia.bikesurbanfleets.common.interfaces.HistoricEntity;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * This class contains the metadata of a historic class which the history needs for every event:
+ * its json identifier, the names of its fields and a getter for each one. It is created once
+ * for each historic class.
+ * The fields of primitive types are read and compared without boxing them, so an unchanged field
+ * only costs a comparison, and the json values are only created for the fields which have changed.
+ * The references to lists of entities only record the positions which have changed, and the
+ * routes are recorded as references to the route table of the history.
+ * @author IAgroup
+ *
+ */
+final class HistoricClass {
+
+    private static final ClassValue<HistoricClass> CLASSES = new ClassValue<HistoricClass>() {
+        @Override
+        @SuppressWarnings("unchecked")
+        protected HistoricClass computeValue(Class<?> type) {
+            return new HistoricClass((Class<? extends HistoricEntity>) type);
+        }
+    };
+
+    private String jsonIdentifier;
+
+    private List<String> prototype;
+
+    private Field[] declaredFields;
+
+    /**
+     * They are the getters of all the declared fields, in the order of the prototype.
+     */
+    private FieldDiff[] declaredFieldDiffs;
+
+    /**
+     * They are the fields which are compared, i.e. all the declared fields but the identifier.
+     */
+    private FieldDiff[] fields;
+
+    private HistoricClass(Class<? extends HistoricEntity> historicClass) {
+        this.jsonIdentifier = History.getJsonIdentifier(historicClass);
+        this.declaredFields = historicClass.getDeclaredFields();
+        this.prototype = Arrays.stream(declaredFields).map(Field::getName).collect(Collectors.toList());
+        this.declaredFieldDiffs = Arrays.stream(declaredFields)
+                .map(field -> FieldDiff.create(historicClass, field))
+                .toArray(FieldDiff[]::new);
+        this.fields = Arrays.stream(declaredFieldDiffs)
+                .filter(field -> !field.name.equals("id"))
+                .toArray(FieldDiff[]::new);
+    }
+
+    static HistoricClass of(Class<? extends HistoricEntity> historicClass) {
+        return CLASSES.get(historicClass);
+    }
+
+    String getJsonIdentifier() {
+        return jsonIdentifier;
+    }
+
+    /**
+     * @return the names of all the declared fields.
+     */
+    List<String> getPrototype() {
+        return prototype;
+    }
+
+    /**
+     * @return all the declared fields, in the order of the prototype.
+     */
+    Field[] getDeclaredFields() {
+        return declaredFields;
+    }
+
+    /**
+     * @param field It is the position of the field in the prototype.
+     * @return if the field has the same value in two states of an entity. The fields of
+     * primitive types are compared without boxing them.
+     */
+    boolean sameValue(int field, HistoricEntity oldEntity, HistoricEntity entity) {
+        return declaredFieldDiffs[field].sameValue(oldEntity, entity);
+    }
+
+    /**
+     * @param field It is the position of the field in the prototype.
+     * @return the value of the field, boxed if it's of a primitive type.
+     */
+    Object getValue(int field, HistoricEntity entity) {
+        return declaredFieldDiffs[field].value(entity);
+    }
+
+    /**
+     * It finds out the fields which have changed between two states of an entity.
+     * The routes of the new state are replaced by the equal ones of the route table, so the
+     * states of the entities which the history keeps share them.
+     * @param routes It is the route table of the history, where the new routes are added.
+     * @return a json object with the old and the new values of each changed field, or null if
+     * none has changed.
+     */
+    JsonObject changes(HistoricEntity oldEntity, HistoricEntity entity, RouteTable routes) {
+        JsonObject changes = null;
+        for (FieldDiff field : fields) {
+            JsonObject property = field.change(oldEntity, entity, routes);
+            if (property != null) {
+                if (changes == null) {
+                    changes = new JsonObject();
+                }
+                changes.add(field.name, property);
+            }
+        }
+        return changes;
+    }
+
+    /**
+     * This class compares a field of two instances of a historic class.
+     */
+    private abstract static class FieldDiff {
+
+        private static final MethodType OBJECT_GETTER = MethodType.methodType(Object.class, Object.class);
+
+        final String name;
+        final MethodHandle getter;
+
+        FieldDiff(String name, MethodHandle getter) {
+            this.name = name;
+            this.getter = getter;
+        }
+
+        static FieldDiff create(Class<? extends HistoricEntity> historicClass, Field field) {
+            field.setAccessible(true);
+            MethodHandle getter;
+            try {
+                getter = MethodHandles.lookup().unreflectGetter(field);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("Error reading field " + field + " from " + historicClass);
+            }
+            Class<?> type = field.getType();
+            if (type == int.class) {
+                return new IntDiff(field.getName(), getter.asType(MethodType.methodType(int.class, Object.class)));
+            }
+            if (type == double.class) {
+                return new DoubleDiff(field.getName(), getter.asType(MethodType.methodType(double.class, Object.class)));
+            }
+            if (type == boolean.class) {
+                return new BooleanDiff(field.getName(), getter.asType(MethodType.methodType(boolean.class, Object.class)));
+            }
+            if (type == History.IdReference.class) {
+                return new IdReferenceDiff(field.getName(), getter.asType(OBJECT_GETTER));
+            }
+            if (type == GeoRoute.class) {
+                MethodHandle setter;
+                try {
+                    setter = MethodHandles.lookup().unreflectSetter(field);
+                } catch (IllegalAccessException e) {
+                    throw new IllegalStateException("Error writing field " + field + " of " + historicClass);
+                }
+                return new RouteDiff(field.getName(), getter.asType(OBJECT_GETTER),
+                        setter.asType(MethodType.methodType(void.class, Object.class, Object.class)));
+            }
+            return new ObjectDiff(field.getName(), getter.asType(OBJECT_GETTER));
+        }
+
+        /**
+         * @return a json object with the old and new values of the field, or null if they're equal.
+         */
+        abstract JsonObject change(Object oldEntity, Object entity, RouteTable routes);
+
+        abstract boolean sameValue(Object oldEntity, Object entity);
+
+        Object value(Object entity) {
+            try {
+                return getter.invoke(entity);
+            } catch (Throwable e) {
+                throw readError(e);
+            }
+        }
+
+        static JsonObject property(JsonElement oldValue, JsonElement newValue) {
+            JsonObject property = new JsonObject();
+            property.add("old", oldValue);
+            property.add("new", newValue);
+            return property;
+        }
+
+        IllegalStateException readError(Throwable e) {
+            return new IllegalStateException("Error reading field " + name, e);
+        }
+    }
+
+    private static class IntDiff extends FieldDiff {
+
+        IntDiff(String name, MethodHandle getter) {
+            super(name, getter);
+        }
+
+        @Override
+        JsonObject change(Object oldEntity, Object entity, RouteTable routes) {
+            int oldValue;
+            int value;
+            try {
+                oldValue = (int) getter.invokeExact(oldEntity);
+                value = (int) getter.invokeExact(entity);
+            } catch (Throwable e) {
+                throw readError(e);
+            }
+            return oldValue == value ? null : property(new JsonPrimitive(oldValue), new JsonPrimitive(value));
+        }
+
+        @Override
+        boolean sameValue(Object oldEntity, Object entity) {
+            try {
+                return (int) getter.invokeExact(oldEntity) == (int) getter.invokeExact(entity);
+            } catch (Throwable e) {
+                throw readError(e);
+            }
+        }
+    }
+
+    /**
+     * The values are compared as {@link Double#equals(Object)} does, as the boxed values were.
+     */
+    private static class DoubleDiff extends FieldDiff {
+
+        DoubleDiff(String name, MethodHandle getter) {
+            super(name, getter);
+        }
+
+        @Override
+        JsonObject change(Object oldEntity, Object entity, RouteTable routes) {
+            double oldValue;
+            double value;
+            try {
+                oldValue = (double) getter.invokeExact(oldEntity);
+                value = (double) getter.invokeExact(entity);
+            } catch (Throwable e) {
+                throw readError(e);
+            }
+            if (Double.doubleToLongBits(oldValue) == Double.doubleToLongBits(value)) {
+                return null;
+            }
+            return property(new JsonPrimitive(oldValue), new JsonPrimitive(value));
+        }
+
+        @Override
+        boolean sameValue(Object oldEntity, Object entity) {
+            try {
+                return Double.doubleToLongBits((double) getter.invokeExact(oldEntity))
+                        == Double.doubleToLongBits((double) getter.invokeExact(entity));
+            } catch (Throwable e) {
+                throw readError(e);
+            }
+        }
+    }
+
+    private static class BooleanDiff extends FieldDiff {
+
+        BooleanDiff(String name, MethodHandle getter) {
+            super(name, getter);
+        }
+
+        @Override
+        JsonObject change(Object oldEntity, Object entity, RouteTable routes) {
+            boolean oldValue;
+            boolean value;
+            try {
+                oldValue = (boolean) getter.invokeExact(oldEntity);
+                value = (boolean) getter.invokeExact(entity);
+            } catch (Throwable e) {
+                throw readError(e);
+            }
+            return oldValue == value ? null : property(new JsonPrimitive(oldValue), new JsonPrimitive(value));
+        }
+
+        @Override
+        boolean sameValue(Object oldEntity, Object entity) {
+            try {
+                return (boolean) getter.invokeExact(oldEntity) == (boolean) getter.invokeExact(entity);
+            } catch (Throwable e) {
+                throw readError(e);
+            }
+        }
+    }
+
+    private static class ObjectDiff extends FieldDiff {
+
+        ObjectDiff(String name, MethodHandle getter) {
+            super(name, getter);
+        }
+
+        @Override
+        JsonObject change(Object oldEntity, Object entity, RouteTable routes) {
+            Object oldValue;
+            Object value;
+            try {
+                oldValue = (Object) getter.invokeExact(oldEntity);
+                value = (Object) getter.invokeExact(entity);
+            } catch (Throwable e) {
+                throw readError(e);
+            }
+            if (Objects.equals(oldValue, value)) {
+                return null;
+            }
+            return objectProperty(oldValue, value);
+        }
+
+        static JsonObject objectProperty(Object oldValue, Object value) {
+            JsonObject property = new JsonObject();
+            property.add("old", History.gson.toJsonTree(oldValue));
+            property.add("new", History.gson.toJsonTree(value));
+            return property;
+        }
+
+        @Override
+        boolean sameValue(Object oldEntity, Object entity) {
+            try {
+                return Objects.equals((Object) getter.invokeExact(oldEntity), (Object) getter.invokeExact(entity));
+            } catch (Throwable e) {
+                throw readError(e);
+            }
+        }
+    }
+
+    /**
+     * The changes of the references to lists of entities only contain the changed positions,
+     * see {@link IdListChange}.
+     */
+    private static class IdReferenceDiff extends FieldDiff {
+
+        IdReferenceDiff(String name, MethodHandle getter) {
+            super(name, getter);
+        }
+
+        @Override
+        JsonObject change(Object oldEntity, Object entity, RouteTable routes) {
+            History.IdReference oldValue;
+            History.IdReference value;
+            try {
+                oldValue = (History.IdReference) (Object) getter.invokeExact(oldEntity);
+                value = (History.IdReference) (Object) getter.invokeExact(entity);
+            } catch (Throwable e) {
+                throw readError(e);
+            }
+            if (Objects.equals(oldValue, value)) {
+                return null;
+            }
+            if (oldValue != null && value != null && oldValue.getId() instanceof List && value.getId() instanceof List
+                    && oldValue.getType().equals(value.getType())) {
+                return IdListChange.create(value.getType(), (List<?>) oldValue.getId(), (List<?>) value.getId());
+            }
+            return ObjectDiff.objectProperty(oldValue, value);
+        }
+
+        @Override
+        boolean sameValue(Object oldEntity, Object entity) {
+            try {
+                return Objects.equals((Object) getter.invokeExact(oldEntity), (Object) getter.invokeExact(entity));
+            } catch (Throwable e) {
+                throw readError(e);
+            }
+        }
+    }
+
+    /**
+     * The routes are compared by content. When they're different, both are added to the route
+     * table, the old one first, and the change has the references to them.
+     */
+    private static class RouteDiff extends FieldDiff {
+
+        private final MethodHandle setter;
+
+        RouteDiff(String name, MethodHandle getter, MethodHandle setter) {
+            super(name, getter);
+            this.setter = setter;
+        }
+
+        @Override
+        JsonObject change(Object oldEntity, Object entity, RouteTable routes) {
+            GeoRoute oldValue;
+            GeoRoute value;
+            try {
+                oldValue = (GeoRoute) (Object) getter.invokeExact(oldEntity);
+                value = (GeoRoute) (Object) getter.invokeExact(entity);
+            } catch (Throwable e) {
+                throw readError(e);
+            }
+            if (oldValue == value) {
+                return null;
+            }
+            if (Objects.equals(oldValue, value)) {
+                setRoute(entity, oldValue);
+                return null;
+            }
+            JsonElement oldReference = oldValue == null ? JsonNull.INSTANCE : RouteTable.reference(routes.add(oldValue));
+            if (value == null) {
+                return property(oldReference, JsonNull.INSTANCE);
+            }
+            int id = routes.add(value);
+            setRoute(entity, routes.get(id));
+            return property(oldReference, RouteTable.reference(id));
+        }
+
+        private void setRoute(Object entity, GeoRoute route) {
+            try {
+                setter.invokeExact(entity, (Object) route);
+            } catch (Throwable e) {
+                throw new IllegalStateException("Error writing field " + name, e);
+            }
+        }
+
+        @Override
+        boolean sameValue(Object oldEntity, Object entity) {
+            try {
+                return Objects.equals((Object) getter.invokeExact(oldEntity), (Object) getter.invokeExact(entity));
+            } catch (Throwable e) {
+                throw readError(e);
+            }
+        }
+    }
+}
@@ -9,32 +9,70 @@ import es.urjc.ia.bikesurbanfleets.common.interfaces.Entity;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.lang.reflect.Constructor;
-import java.lang.reflect.Field;
+import java.io.Writer;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
-import java.util.stream.Collectors;
 
 /**
- * This class finds out the changes which have happened through the entire simulation and registers them.  
+ * This class finds out the changes which have happened through the entire simulation and registers them.
+ * Each simulation has its own history instance.
+ * The simulation thread only creates the historic instances of the entities, which are copies of
+ * their state, and only for the entities which have been modified since their previous copy
+ * (see {@link EntityVersions}). Once the history is initialized, the changes are found out in a background stage and
+ * the time entries are serialized and written in another one, so the simulation doesn't wait for
+ * the files. The stages have bounded queues: when they're full, the simulation waits for them.
+ * The routes of the users are written once to a route table (see {@link RouteTable}), and the
+ * changes reference them.
  * @author IAgroup
  *
  */
-public class History {
+public class History implements HistorySink {
 
-    private final static int TIMEENTRIES_PER_FILE = 100;
+    public static final String TYPE = "JSON";
 
-    private static String DEFAULT_HISTORY_OUTPUT_PATH = "history";
+    final static int TIMEENTRIES_PER_FILE = 100;
 
-    private final static String FINAL_GLOBAL_VALUES_FILENAME = "final-global-values.json";
+    final static String DEFAULT_HISTORY_OUTPUT_PATH = "history";
+
+    final static String FINAL_GLOBAL_VALUES_FILENAME = "final-global-values.json";
 
     //Needed if the are no reservations in the system
-    private static Class<? extends HistoricEntity> reservationClass;
+    private Class<? extends HistoricEntity> reservationClass;
+
+    /*
+     * The annotations and constructors of the entity and historic classes are looked up once
+     * for each class, as they're needed for every entity of every event.
+     */
+    private static final ClassValue<String> JSON_IDENTIFIERS = new ClassValue<String>() {
+        @Override
+        protected String computeValue(Class<?> type) {
+            return findJsonIdentifier(type);
+        }
+    };
+
+    private static final ClassValue<Class<? extends HistoricEntity>> REFERENCE_CLASSES =
+            new ClassValue<Class<? extends HistoricEntity>>() {
+        @Override
+        protected Class<? extends HistoricEntity> computeValue(Class<?> type) {
+            return findReferenceClass(type);
+        }
+    };
 
-    private static Gson gson = new GsonBuilder()
+    private static final ClassValue<MethodHandle> HISTORIC_CONSTRUCTORS = new ClassValue<MethodHandle>() {
+        @Override
+        protected MethodHandle computeValue(Class<?> type) {
+            return findHistoricConstructor(type);
+        }
+    };
+
+    static Gson gson = new GsonBuilder()
             .excludeFieldsWithoutExposeAnnotation()
             .serializeNulls()
             .setFieldNamingPolicy(FieldNamingPolicy.IDENTITY)
@@ -44,31 +82,83 @@ public class History {
     /**
      * It is the initial state of the entities in the system.
      */
-    private static EntityCollection initialEntities = new EntityCollection();
+    private EntityCollection initialEntities = new EntityCollection();
 
     /**
      * It is the current state of the entities in the system.
      */
-    private static EntityCollection updatedEntities = new EntityCollection();
+    private EntityCollection updatedEntities = new EntityCollection();
+
+    /**
+     * They are the distinct routes of the changes of the users.
+     */
+    private RouteTable routes = new RouteTable();
+
+    /**
+     * They are the versions of the entities when their last historic instances were created.
+     * It is only used in the simulation thread.
+     */
+    private EntityVersions versions = new EntityVersions();
 
     /**
      * This map stores, for each moment of the simulation, the changes of the entities of
      * all the events occurred in a specific time instant.
      */
-    private static TreeMap<Integer, List<EventEntry>> serializedEvents = new TreeMap<>();
+    private TreeMap<Integer, List<EventEntry>> serializedEvents = new TreeMap<>();
+
+    /**
+     * These are the changes of the events of the instant which is being executed. They are
+     * added to the map of serialized events when the instant ends.
+     */
+    private List<EventEntry> instantEvents = new ArrayList<>();
+    private int currentInstant;
 
     /**
      * This is the path where historic files will be saved.  
      */
-    private static Path outputPath = Paths.get(DEFAULT_HISTORY_OUTPUT_PATH);
+    private Path outputPath = Paths.get(DEFAULT_HISTORY_OUTPUT_PATH);
+
+    /**
+     * It is the capacity of the queues of the stages. If it's 0, there're no background stages.
+     */
+    private int queueCapacity;
+
+    /**
+     * It finds out the changes of the entities. Before the history is initialized, it runs in
+     * the simulation thread.
+     */
+    private HistoryStage diffStage = new HistoryStage("history-diff", 0);
+
+    /**
+     * It serializes the time entries and writes them to the files.
+     */
+    private HistoryStage writeStage = new HistoryStage("history-write", 0);
+
+    /**
+     * It creates a history which is written in the simulation thread.
+     */
+    public History() {
+        this(0);
+    }
 
+    /**
+     * @param queueCapacity the maximum number of pending entities and events of the background
+     * stages. If it's 0, the history is written in the simulation thread.
+     */
+    public History(int queueCapacity) {
+        if (queueCapacity < 0) {
+            throw new IllegalArgumentException("The capacity of the history queue can't be negative");
+        }
+        this.queueCapacity = queueCapacity;
+    }
 
     /**
      * It prepares the history instance to be used. Specifically, it initializes the path 
      * of the directory where historic files will be stored.
      * @param outPath It contains the path where the history will be stored
      */
-    public static void init(String outPath) throws IOException {
+    @Override
+    public void init(String outPath) throws IOException {
         if(outPath != null) {
             outputPath = Paths.get(outPath);
         }
@@ -76,9 +166,19 @@ public class History {
         if(outputDirectory.exists() && outputDirectory.isDirectory()) {
             outputDirectory.mkdirs();
         }
+        if (queueCapacity > 0) {
+            diffStage = new HistoryStage("history-diff", queueCapacity);
+            // each task of this stage writes a file, so it doesn't need to have many pending
+            writeStage = new HistoryStage("history-write", 2);
+        }
     }
 
-    public static void writeGlobalInformation(FinalGlobalValues finalGlobalValues) throws IOException {
+    @Override
+    public void writeGlobalInformation(FinalGlobalValues finalGlobalValues) throws IOException {
+        writeGlobalInformation(outputPath, finalGlobalValues);
+    }
+
+    static void writeGlobalInformation(Path outputPath, FinalGlobalValues finalGlobalValues) throws IOException {
         // it creates a file with the specified name in the history directory
         File json = outputPath.resolve(FINAL_GLOBAL_VALUES_FILENAME).toFile();
         json.getParentFile().mkdirs();
@@ -94,7 +194,32 @@ public class History {
      * It saves in a file the initial states of all entities in the system and, in other files,
      * the changes that the entities have been passing throught the entire simulation.
      */
-    public static void close() throws IOException {
+    @Override
+    public void close() throws IOException {
+        try {
+            diffStage.submit(this::writeEntries);
+        } finally {
+            try {
+                diffStage.finish();
+            } finally {
+                writeStage.finish();
+            }
+        }
+    }
+
+    /**
+     * It stops the background stages without writing the pending changes.
+     */
+    @Override
+    public void abort() {
+        // the diff stage first, as its tasks submit tasks to the write stage
+        diffStage.abort();
+        writeStage.abort();
+    }
+
+    private void writeEntries() throws IOException {
+        closeInstant();
+
         /*q
          * It is a map with the names of the entities'  history classes as the key and
          * a list of historic classes of a concrete entity as the value.
@@ -112,11 +237,16 @@ public class History {
             entries.put(resJsonIdentifier, new EntitiesJson(reservationClass, new ArrayList<>()));
         }
 
-        for (Map.Entry<String, EntitiesJson> entry : entries.entrySet()) {
-            writeJson("entities/" + entry.getKey() + ".json", entry.getValue());
-        }
+        JsonObject routesJson = routes.toJson();
 
-        writeTimeEntries();
+        TreeMap<Integer, List<EventEntry>> timeEntries = serializedEvents;
+        writeStage.submit(() -> {
+            for (Map.Entry<String, EntitiesJson> entry : entries.entrySet()) {
+                writeJson("entities/" + entry.getKey() + ".json", entry.getValue());
+            }
+            writeJson("entities/" + RouteTable.JSON_IDENTIFIER + ".json", routesJson);
+            writeTimeEntries(timeEntries);
+        });
     }
 
     /**
@@ -124,74 +254,136 @@ public class History {
      * entity collection of updated entities.
      * @param entity It is the entity to register.
      */
-    public static void registerEntity(Entity entity) {
+    @Override
+    public void registerEntity(Entity entity) {
         Class<? extends HistoricEntity> historicClass = getReferenceClass(entity.getClass());
         HistoricEntity historicEntity = instantiateHistoric(entity);
-        initialEntities.addToMapFor(historicClass, historicEntity);
-        updatedEntities.addToMapFor(historicClass, historicEntity);
+        versions.copied(entity);
+        try {
+            diffStage.submit(() -> {
+                initialEntities.addToMapFor(historicClass, historicEntity);
+                updatedEntities.addToMapFor(historicClass, historicEntity);
+            });
+        } catch (IOException e) {
+            throw new IllegalStateException("Error registering the entity " + historicEntity.getId() + " in the history", e);
+        }
     }
 
     /**
-     * It creates an event entry (in the map of serialized events) to register all the 
-     * changes detected in the entities involved in the event and saves its entities 
-     * into the entity collection of updated entities. 
+     * It creates an event entry to register all the changes detected in the entities
+     * involved in the event and saves its entities into the entity collection of updated
+     * entities. The entry is added to the map of serialized events when its time instant
+     * ends, so the events of a time instant must be registered together.
      * @param event It is the event to register.
      */
-    public static void registerEvent(Event event) throws IOException {
+    @Override
+    public void registerEvent(Event event) throws IOException {
 
-        /* It creates the historic entities instances coreesponding to all the
-         * entities involved in an evet.
+        /* It creates the historic entities instances coreesponding to the
+         * entities involved in an evet which have been modified.
          */
-        List<HistoricEntity> historicEntities = new ArrayList<>();
-        for (Entity entity : event.getEntities()) {
-            historicEntities.add(instantiateHistoric(entity));
+        List<Entity> entities = event.getEntities();
+        HistoricEntity[] historicEntities = versions.copyModified(entities);
+
+        // the event has the types of the entities which haven't been modified, without changes
+        List<String> unmodifiedTypes = new ArrayList<>();
+        for (int i = 0; i < historicEntities.length; i++) {
+            if (historicEntities[i] == null) {
+                unmodifiedTypes.add(getJsonIdentifier(getReferenceClass(entities.get(i).getClass())));
+            }
         }
+        String name = event.getClass().getSimpleName();
+        int instant = event.getInstant();
 
+        diffStage.submit(() -> addEvent(name, instant, historicEntities, unmodifiedTypes));
+    }
+
+    private void addEvent(String name, int instant, HistoricEntity[] historicEntities, List<String> unmodifiedTypes) {
         /* It obtains the changes that the created historic entities have passed
          * with respect to previous ones.
          */
         Map<String, List<JsonObject>> changes = serializeChanges(historicEntities);
+        for (String type : unmodifiedTypes) {
+            changes.computeIfAbsent(type, key -> new ArrayList<>());
+        }
 
-        /* If the map of serialized changes doesn't conatin an entry with the time
-         * instance of this event, it creates it.
-         */
-        if (!serializedEvents.containsKey(event.getInstant())) {
-            // TODO: test entry limit with more real world examples to not generate too large jsons
-            if (serializedEvents.size() == TIMEENTRIES_PER_FILE) {
-                writeTimeEntries();
-                serializedEvents.clear();
-            }
-
-            serializedEvents.put(event.getInstant(), new ArrayList<>());
+        if (!instantEvents.isEmpty() && instant != currentInstant) {
+            closeInstant();
         }
 
         // It adds the event to the current time instant
-        serializedEvents.get(event.getInstant()).add(new EventEntry(event.getClass().getSimpleName(), changes));
+        currentInstant = instant;
+        instantEvents.add(new EventEntry(name, changes));
 
         /* It adds all the historic entities created from the event to the entity
          * collection of updated entities
          */
         for (HistoricEntity entity : historicEntities) {
-            updatedEntities.addToMapFor(entity.getClass(), entity);
+            if (entity != null) {
+                updatedEntities.addToMapFor(entity.getClass(), entity);
+            }
+        }
+    }
+
+    /**
+     * It adds the events of the current time instant to the map of serialized events.
+     * It must be called when all the events of the instant have been registered.
+     */
+    @Override
+    public void endInstant() throws IOException {
+        diffStage.submit(this::closeInstant);
+    }
+
+    private void closeInstant() {
+        if (instantEvents.isEmpty()) {
+            return;
+        }
+
+        /* If the map of serialized changes doesn't conatin an entry with the time
+         * instance of these events, it creates it.
+         */
+        List<EventEntry> entries = serializedEvents.get(currentInstant);
+        if (entries == null) {
+            // TODO: test entry limit with more real world examples to not generate too large jsons
+            if (serializedEvents.size() == TIMEENTRIES_PER_FILE) {
+                TreeMap<Integer, List<EventEntry>> timeEntries = serializedEvents;
+                submitWrite(() -> writeTimeEntries(timeEntries));
+                serializedEvents = new TreeMap<>();
+            }
+
+            serializedEvents.put(currentInstant, instantEvents);
+            instantEvents = new ArrayList<>();
+        } else {
+            entries.addAll(instantEvents);
+            instantEvents.clear();
         }
     }
 
-    public static void reservationClass(Class<? extends HistoricEntity> resClass) {
+    @Override
+    public void reservationClass(Class<? extends HistoricEntity> resClass) {
         reservationClass = resClass;
     }
 
+    private void submitWrite(HistoryStage.Task task) {
+        try {
+            writeStage.submit(task);
+        } catch (IOException e) {
+            throw new IllegalStateException("Error writing the history", e);
+        }
+    }
+
     /**
      * It creates a file and writes the specified information inside it.
      * @param name It is the name of the file which is created.
      * @param content It is the information which is written in the file. 
      */
-    private static void writeJson(String name, Object content) throws IOException {
+    private void writeJson(String name, Object content) throws IOException {
         // it creates a file with the specified name in the history directory
         File json = outputPath.resolve(name).toFile();
         json.getParentFile().mkdirs();
 
         // it writes the specified content in the created file
-        try (FileWriter writer = new FileWriter(json)) {
+        try (Writer writer = Files.newBufferedWriter(json.toPath())) {
             gson.toJson(content, writer);
         }
     }
@@ -200,10 +392,10 @@ public class History {
      * It transforms the map of serialized events into a list of time entries and writes it 
      * into a file whose name is set with a format which follows a concrete pattern. 
      */
-    private static void writeTimeEntries() throws IOException {
+    private void writeTimeEntries(TreeMap<Integer, List<EventEntry>> events) throws IOException {
         List<TimeEntry> timeEntries = new ArrayList<>();
 
-        serializedEvents.forEach((time, eventEntries) -> {
+        events.forEach((time, eventEntries) -> {
             timeEntries.add(new TimeEntry(time, eventEntries));
         });
 
@@ -213,58 +405,41 @@ public class History {
          * registered time instants of the simulation.json"
          */
         String fileName = new StringBuilder()
-                .append(serializedEvents.firstKey()).append("-")
-                .append(serializedEvents.lastKey()).append("_")
-                .append(serializedEvents.size()).append(".json").toString();
+                .append(events.firstKey()).append("-")
+                .append(events.lastKey()).append("_")
+                .append(events.size()).append(".json").toString();
 
         writeJson(fileName, timeEntries);
     }
 
     /**
      * It detects if several entities have changed their states.   
-     * @param entities It is a list of historic entities instances. 
+     * @param entities They are historic entities instances, or null for the entities which
+     * haven't been modified.
      * @return a map whose key is the historic entity name and whose value is a Json object 
      * which contains the changes.   
      */
-    private static Map<String, List<JsonObject>> serializeChanges(List<HistoricEntity> entities) {
+    private Map<String, List<JsonObject>> serializeChanges(HistoricEntity[] entities) {
         Map<String, List<JsonObject>> changes = new HashMap<>();
 
         for (HistoricEntity entity : entities) {
+            if (entity == null) {
+                continue;
+            }
             Class<? extends HistoricEntity> historicClass = entity.getClass();
+            HistoricClass historicClassInfo = HistoricClass.of(historicClass);
             // It obtains the previous state of the current entity, its history 
             HistoricEntity oldEntity = updatedEntities.getMapFor(historicClass).get(entity.getId());
-            String jsonIdentifier = getJsonIdentifier(historicClass);
-            JsonObject jsonEntity = new JsonObject();
-
-            // The field type represents an attribute  
-            for (Field field : historicClass.getDeclaredFields()) {
-
-                if (field.getName().equals("id")) continue;
+            String jsonIdentifier = historicClassInfo.getJsonIdentifier();
 
-                JsonElement property;
+            // It compares each attribute but the identifier
+            JsonObject jsonEntity = historicClassInfo.changes(oldEntity, entity, routes);
 
-                // It changes the attribute visibility to public
-                field.setAccessible(true);
+            List<JsonObject> entityChanges = changes.computeIfAbsent(jsonIdentifier, key -> new ArrayList<>());
 
-                try {
-                    property = propertyChange(field.get(oldEntity), field.get(entity));
-                } catch (Exception e) {
-                    e.printStackTrace();
-                    throw new IllegalStateException("Error reading field " + field + " from " + historicClass);
-                }
-
-                if (property != null) {
-                    jsonEntity.add(field.getName(), property);
-                }
-            }
-
-            if (!changes.containsKey(jsonIdentifier)) {
-                changes.put(jsonIdentifier, new ArrayList<>());
-            }
-
-            if (!jsonEntity.entrySet().isEmpty()) {
+            if (jsonEntity != null) {
                 jsonEntity.add("id", new JsonPrimitive(entity.getId()));
-                changes.get(jsonIdentifier).add(jsonEntity);
+                entityChanges.add(jsonEntity);
             }
         }
 
@@ -276,7 +451,11 @@ public class History {
      * @param entityClass It is the entity class whose corresponding history class musts be found out.
      * @return the corresponding history class to the entity class.
      */
-    private static Class<? extends HistoricEntity> getReferenceClass(Class<? extends Entity> entityClass) {
+    static Class<? extends HistoricEntity> getReferenceClass(Class<? extends Entity> entityClass) {
+        return REFERENCE_CLASSES.get(entityClass);
+    }
+
+    private static Class<? extends HistoricEntity> findReferenceClass(Class<?> entityClass) {
         HistoryReference[] referenceClasses = entityClass.getAnnotationsByType(HistoryReference.class);
 
         if (referenceClasses.length == 0) {
@@ -295,7 +474,11 @@ public class History {
      * @param historicClass It is the history class whose identifier wants to be found out.
      * @return the string of a Json identifier corresponding to the specified histry class. 
      */
-    private static String getJsonIdentifier(Class<? extends HistoricEntity> historicClass) {
+    static String getJsonIdentifier(Class<? extends HistoricEntity> historicClass) {
+        return JSON_IDENTIFIERS.get(historicClass);
+    }
+
+    private static String findJsonIdentifier(Class<?> historicClass) {
         JsonIdentifier[] jsonIdentifiers = historicClass.getAnnotationsByType(JsonIdentifier.class);
 
         if (jsonIdentifiers.length == 0) {
@@ -314,47 +497,42 @@ public class History {
      * @param entity It is the entity whose history must be created.
      * @return the concrete history corresponding to the entity.
      */
-    @SuppressWarnings("unchecked")
-    private static HistoricEntity instantiateHistoric(Entity entity) {
+    static HistoricEntity instantiateHistoric(Entity entity) {
+        try {
+            return (HistoricEntity) HISTORIC_CONSTRUCTORS.get(entity.getClass()).invokeExact(entity);
+        } catch (IllegalStateException e) {
+            throw e;
+        } catch (Throwable e) {
+            e.printStackTrace();
+            throw new IllegalStateException("Error trying to instantiate " + getReferenceClass(entity.getClass()));
+        }
+    }
 
-        Class<? extends Entity> entityClass = entity.getClass();
-        Class<? extends HistoricEntity> historicClass = getReferenceClass(entityClass);
+    /**
+     * It finds out the constructor of the historic class of an entity class, whose parameter is
+     * the root class of the entity class.
+     */
+    private static MethodHandle findHistoricConstructor(Class<?> entityClass) {
+        Class<? extends HistoricEntity> historicClass = findReferenceClass(entityClass);
 
-        Class<? extends Entity> constructorParameter = entityClass;
+        Class<?> constructorParameter = entityClass;
 
         while (!constructorParameter.getSuperclass().equals(Object.class)) {
-            constructorParameter = (Class<? extends Entity>) constructorParameter.getSuperclass();
+            constructorParameter = constructorParameter.getSuperclass();
         }
 
         try {
-            Constructor<? extends HistoricEntity> historicConstructor = historicClass.getConstructor(constructorParameter);
-            return historicConstructor.newInstance(entity);
+            return MethodHandles.publicLookup().unreflectConstructor(historicClass.getConstructor(constructorParameter))
+                    .asType(MethodType.methodType(HistoricEntity.class, Entity.class));
         } catch (NoSuchMethodException e) {
             e.printStackTrace();
             throw new IllegalStateException("No matching constructor found for " + historicClass);
-        } catch (Exception e) {
+        } catch (IllegalAccessException e) {
             e.printStackTrace();
             throw new IllegalStateException("Error trying to instantiate " + historicClass);
         }
     }
 
-    /**
-     * It creates a Json object which contains the previous and current states of specific property..
-     * @param oldProperty It is the previous state of the property.
-     * @param newProperty It is the current state of the property.
-     * @return a Json object which conatins the previous and curent states of the property.
-     */
-    private static JsonObject propertyChange(Object oldProperty, Object newProperty) {
-        if (Objects.equals(oldProperty, newProperty)) return null;
-
-        JsonObject property = new JsonObject();
-        property.add("old", gson.toJsonTree(oldProperty));
-        property.add("new", gson.toJsonTree(newProperty));
-
-        return property;
-    }
-
-
     /**
      * This class is used to save the histories of all the entities of the system.
      * It provides methods to save a new entity history and to consult one.
@@ -406,7 +584,7 @@ public class History {
         private Collection<HistoricEntity> instances;
 
         EntitiesJson(Class<? extends HistoricEntity> historicClass, Collection<HistoricEntity> entities) {
-            this.prototype = Arrays.stream(historicClass.getDeclaredFields()).map(Field::getName).collect(Collectors.toList());
+            this.prototype = HistoricClass.of(historicClass).getPrototype();
             this.instances = entities;
         }
     }
@@ -481,6 +659,17 @@ public class History {
             this(type, (Object)idList);
         }
 
+        String getType() {
+            return type;
+        }
+
+        /**
+         * @return an identifier or a list of identifiers.
+         */
+        Object getId() {
+            return id;
+        }
+
         @Override
         public boolean equals(Object o) {
             if (this == o) return true;
@@ -508,6 +697,10 @@ public class History {
             this.formatted = LocalTime.ofSecondOfDay(seconds).format(DateTimeFormatter.ofPattern("HH:mm:ss"));
         }
 
+        int getSeconds() {
+            return seconds;
+        }
+
         @Override
         public boolean equals(Object o) {
             if (this == o) return true;
@@ -0,0 +1,222 @@
+package es.urjc.ia.bikesurbanfleets.history;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class reads a history written by {@link BinaryHistory}. The entities and their fields are
+ * read as the json elements of the json history, so the consumers can use the same structure for
+ * both formats. The time entries are read one by one, without loading the whole history.
+ * @author IAgroup
+ *
+ */
+public class HistoryReader implements Closeable {
+
+    private Path historyPath;
+
+    private BinaryHistoryInput events;
+
+    private int previousInstant;
+
+    /**
+     * @param historyPath the directory of the binary history.
+     */
+    public HistoryReader(Path historyPath) throws IOException {
+        this.historyPath = historyPath;
+        this.events = new BinaryHistoryInput(historyPath.resolve(BinaryHistory.EVENTS_FILENAME));
+    }
+
+    /**
+     * It reads all the entities registered in the simulation: the initial ones and the ones
+     * created while it ran.
+     * @return the entities of each type by json identifier, in the order they were registered.
+     */
+    public Map<String, EntityType> readEntities() throws IOException {
+        Map<String, EntityType> types = new LinkedHashMap<>();
+        try (BinaryHistoryInput input = new BinaryHistoryInput(historyPath.resolve(BinaryHistory.ENTITIES_FILENAME))) {
+            int tag = input.nextRecord();
+            while (tag != BinaryHistoryOutput.END) {
+                BinaryEntitySchema schema = input.schema((int) input.header(0));
+                int id = schema.idFromDelta((int) BinaryHistoryInput.zigZag(input.header(1)));
+                JsonObject instance = new JsonObject();
+                for (int i = 0; i < schema.getFieldCount(); i++) {
+                    if (schema.isId(i)) {
+                        instance.addProperty(schema.getFieldName(i), id);
+                    } else if (schema.isExposed(i)) {
+                        instance.add(schema.getFieldName(i), schema.getCodec(i).read(input));
+                    }
+                }
+                types.computeIfAbsent(schema.getJsonIdentifier(), key -> new EntityType(schema))
+                        .instances.add(instance);
+                tag = input.nextRecord();
+            }
+            // the types without entities, e.g. the reservations if there're none
+            for (BinaryEntitySchema schema : input.getSchemas()) {
+                types.computeIfAbsent(schema.getJsonIdentifier(), key -> new EntityType(schema));
+            }
+        }
+        return types;
+    }
+
+    /**
+     * @return the next time entry, or null if there're no more.
+     */
+    public TimeEntry nextTimeEntry() throws IOException {
+        if (events.nextRecord() == BinaryHistoryOutput.END) {
+            return null;
+        }
+        int time = previousInstant + (int) BinaryHistoryInput.zigZag(events.header(0));
+        previousInstant = time;
+        int eventCount = (int) events.header(1);
+
+        List<EventEntry> eventEntries = new ArrayList<>(eventCount);
+        for (int e = 0; e < eventCount; e++) {
+            String name = events.string((int) events.readVarint());
+            Map<String, List<JsonObject>> changes = new HashMap<>();
+            int groups = (int) events.readVarint();
+            for (int g = 0; g < groups; g++) {
+                BinaryEntitySchema schema = events.schema((int) events.readVarint());
+                int changed = (int) events.readVarint();
+                List<JsonObject> entities = changes.computeIfAbsent(schema.getJsonIdentifier(), key -> new ArrayList<>());
+                for (int c = 0; c < changed; c++) {
+                    entities.add(readChange(schema));
+                }
+            }
+            eventEntries.add(new EventEntry(name, changes));
+        }
+        return new TimeEntry(time, eventEntries);
+    }
+
+    /**
+     * The routes are referenced by the changes of the users, and they're defined in the history
+     * before the first time entry which references them.
+     * @return the routes of the time entries read until now, by identifier, as the instances of
+     * the routes file of the json history.
+     */
+    public List<JsonObject> getRoutes() {
+        return events.getRoutes();
+    }
+
+    private JsonObject readChange(BinaryEntitySchema schema) throws IOException {
+        int id = (int) events.readSignedVarint();
+        long mask = events.readVarint();
+        JsonObject change = new JsonObject();
+        for (int i = 0; i < schema.getFieldCount(); i++) {
+            if ((mask & (1L << i)) != 0) {
+                JsonElement oldValue = schema.getCodec(i).read(events);
+                JsonElement newValue = schema.getCodec(i).read(events);
+                JsonObject property = schema.getCodec(i) == BinaryFieldCodec.ID_REFERENCE
+                        ? IdListChange.create(oldValue, newValue) : null;
+                if (property == null) {
+                    property = new JsonObject();
+                    property.add("old", oldValue);
+                    property.add("new", newValue);
+                }
+                change.add(schema.getFieldName(i), property);
+            }
+        }
+        change.add("id", new JsonPrimitive(id));
+        return change;
+    }
+
+    @Override
+    public void close() throws IOException {
+        events.close();
+    }
+
+    /**
+     * This class contains the entities of a historic class.
+     * @author IAgroup
+     *
+     */
+    public static class EntityType {
+
+        /**
+         * They are the names of the fields of the historic class.
+         */
+        private List<String> prototype = new ArrayList<>();
+
+        /**
+         * They are the initial states of the entities, with their exposed fields.
+         */
+        private List<JsonObject> instances = new ArrayList<>();
+
+        private EntityType(BinaryEntitySchema schema) {
+            for (int i = 0; i < schema.getFieldCount(); i++) {
+                prototype.add(schema.getFieldName(i));
+            }
+        }
+
+        public List<String> getPrototype() {
+            return prototype;
+        }
+
+        public List<JsonObject> getInstances() {
+            return instances;
+        }
+    }
+
+    /**
+     * This class represents a time instant of the simulation and contains all the events
+     * which happen at this moment.
+     * @author IAgroup
+     *
+     */
+    public static class TimeEntry {
+
+        private int time;
+
+        private List<EventEntry> events;
+
+        private TimeEntry(int time, List<EventEntry> events) {
+            this.time = time;
+            this.events = events;
+        }
+
+        public int getTime() {
+            return time;
+        }
+
+        public List<EventEntry> getEvents() {
+            return events;
+        }
+    }
+
+    /**
+     * This class represents an event and contains, by json identifier, the changes of the
+     * entities which have changed. Each change has the old and the new value of each changed
+     * field, or the changed positions if it references a list of entities (see
+     * {@link IdListChange}), and the identifier of the entity.
+     * @author IAgroup
+     *
+     */
+    public static class EventEntry {
+
+        private String name;
+
+        private Map<String, List<JsonObject>> changes;
+
+        private EventEntry(String name, Map<String, List<JsonObject>> changes) {
+            this.name = name;
+            this.changes = changes;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Map<String, List<JsonObject>> getChanges() {
+            return changes;
+        }
+    }
+}
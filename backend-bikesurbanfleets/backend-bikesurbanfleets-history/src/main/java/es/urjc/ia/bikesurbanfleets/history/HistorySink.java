@@ -0,0 +1,60 @@
+package es.urjc.ia.bikesurbanfleets.history;
+
+import es.urjc.ia.bikesurbanfleets.common.interfaces.Entity;
+import es.urjc.ia.bikesurbanfleets.common.interfaces.Event;
+import es.urjc.ia.bikesurbanfleets.common.interfaces.HistoricEntity;
+
+import java.io.IOException;
+
+/**
+ * This interface receives the entities and the executed events of a simulation. The
+ * {@link History} writes all of them to the history files, which the frontend replays and
+ * analyses, but other implementations can keep only what they need, e.g. aggregated indicators.
+ * Each simulation has its own sink.
+ * @author IAgroup
+ *
+ */
+public interface HistorySink {
+
+    /**
+     * It prepares the sink to be used.
+     * @param outPath It contains the path where the output will be stored
+     */
+    void init(String outPath) throws IOException;
+
+    /**
+     * It registers a new entity. The entities created before the simulation starts are its
+     * initial state.
+     */
+    void registerEntity(Entity entity);
+
+    /**
+     * It registers an executed event.
+     */
+    void registerEvent(Event event) throws IOException;
+
+    /**
+     * It must be called when all the events of the current time instant have been registered.
+     */
+    void endInstant() throws IOException;
+
+    void writeGlobalInformation(FinalGlobalValues finalGlobalValues) throws IOException;
+
+    /**
+     * It writes what is still pending when the simulation ends.
+     */
+    void close() throws IOException;
+
+    /**
+     * It releases what the sink is using when the simulation fails, e.g. its threads, without
+     * writing what is pending. It does nothing if the sink has been closed.
+     */
+    default void abort() {
+    }
+
+    /**
+     * It sets the historic class of the reservations, which is needed if there're no reservations.
+     */
+    default void reservationClass(Class<? extends HistoricEntity> resClass) {
+    }
+}
@@ -0,0 +1,139 @@
+package es.urjc.ia.bikesurbanfleets.history;
+
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * This class is a stage of the history pipeline: it executes its tasks in order in its own
+ * thread. The pending tasks are kept in a bounded queue, so the thread which submits them waits
+ * when the stage is behind it. If the capacity is 0, the tasks are executed in the thread which
+ * submits them.
+ * If a task fails, the error is thrown to the thread which submits the next task or finishes
+ * the stage. If the simulation fails, the stage is aborted, so its thread doesn't keep waiting
+ * for tasks which won't come.
+ * @author IAgroup
+ *
+ */
+class HistoryStage {
+
+    /**
+     * It is a task of the history which can fail writing the history files.
+     */
+    @FunctionalInterface
+    interface Task {
+        void run() throws IOException;
+    }
+
+    private static final Task END = () -> {};
+
+    private BlockingQueue<Task> tasks;
+    private Thread thread;
+    private volatile Throwable failure;
+    private volatile boolean aborted;
+
+    HistoryStage(String name, int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("The capacity of the history queue can't be negative");
+        }
+        if (capacity > 0) {
+            this.tasks = new ArrayBlockingQueue<>(capacity);
+            this.thread = new Thread(this::execute, name);
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    /**
+     * It adds a task to the stage. If the stage queue is full, it waits until there's space.
+     */
+    void submit(Task task) throws IOException {
+        if (aborted) {
+            throw new IOException("The history has been aborted");
+        }
+        checkFailure();
+        if (thread == null) {
+            task.run();
+            return;
+        }
+        try {
+            tasks.put(task);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for the history", e);
+        }
+    }
+
+    /**
+     * It waits until all the submitted tasks have been executed and stops the stage.
+     */
+    void finish() throws IOException {
+        if (thread != null) {
+            try {
+                tasks.put(END);
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting for the history", e);
+            }
+            thread = null;
+        }
+        checkFailure();
+    }
+
+    /**
+     * It stops the stage without executing the pending tasks. The task which is being executed,
+     * if any, is interrupted, and the stage waits for it to end.
+     */
+    void abort() {
+        aborted = true;
+        if (thread != null) {
+            thread.interrupt();
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            thread = null;
+            tasks.clear();
+        }
+    }
+
+    /**
+     * After a task fails, the next ones are discarded, but they're still taken from the queue
+     * so the submitters don't wait for a stage which has stopped.
+     */
+    private void execute() {
+        try {
+            Task task = tasks.take();
+            while (task != END && !aborted) {
+                if (failure == null) {
+                    try {
+                        task.run();
+                    } catch (Throwable e) {
+                        failure = e;
+                    }
+                }
+                task = tasks.take();
+            }
+        } catch (InterruptedException e) {
+            if (!aborted) {
+                failure = e;
+            }
+        }
+    }
+
+    private void checkFailure() throws IOException {
+        Throwable error = failure;
+        if (error == null) {
+            return;
+        }
+        if (error instanceof IOException) {
+            throw new IOException(error.getMessage(), error);
+        }
+        if (error instanceof RuntimeException) {
+            throw new IllegalStateException(error.getMessage(), error);
+        }
+        throw new IllegalStateException("Error writing the history", error);
+    }
+}
@@ -0,0 +1,81 @@
+package es.urjc.ia.bikesurbanfleets.history;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * This class creates the change of a field which references a list of entities, e.g. the bikes
+ * of a station. Instead of the old and the new lists, it contains their lengths and the positions
+ * whose identifier has changed, with the old and the new identifier:
+ * {"type": "bikes", "length": {"old": 20, "new": 20}, "slots": [{"index": 4, "old": 17, "new": null}]}
+ * The positions beyond the length of a list are null. As the lists usually only change in a few
+ * positions or grow at the end, the size of the change doesn't depend on the length of the list.
+ * @author IAgroup
+ *
+ */
+final class IdListChange {
+
+    private IdListChange() {
+    }
+
+    /**
+     * @return the change between two lists of identifiers of the given type.
+     */
+    static JsonObject create(String type, List<?> oldIds, List<?> newIds) {
+        JsonArray slots = new JsonArray();
+        int length = Math.max(oldIds.size(), newIds.size());
+        for (int i = 0; i < length; i++) {
+            Object oldId = i < oldIds.size() ? oldIds.get(i) : null;
+            Object newId = i < newIds.size() ? newIds.get(i) : null;
+            if (!Objects.equals(oldId, newId)) {
+                JsonObject slot = new JsonObject();
+                slot.addProperty("index", i);
+                slot.addProperty("old", (Number) oldId);
+                slot.addProperty("new", (Number) newId);
+                slots.add(slot);
+            }
+        }
+
+        JsonObject lengthChange = new JsonObject();
+        lengthChange.addProperty("old", oldIds.size());
+        lengthChange.addProperty("new", newIds.size());
+
+        JsonObject change = new JsonObject();
+        change.addProperty("type", type);
+        change.add("length", lengthChange);
+        change.add("slots", slots);
+        return change;
+    }
+
+    /**
+     * It creates the change between two references as they're serialized in the history, or
+     * returns null if they aren't both references to lists of the same type.
+     */
+    static JsonObject create(JsonElement oldReference, JsonElement newReference) {
+        if (!isIdList(oldReference) || !isIdList(newReference)) {
+            return null;
+        }
+        String type = oldReference.getAsJsonObject().get("type").getAsString();
+        if (!type.equals(newReference.getAsJsonObject().get("type").getAsString())) {
+            return null;
+        }
+        return create(type, ids(oldReference), ids(newReference));
+    }
+
+    private static boolean isIdList(JsonElement reference) {
+        return reference.isJsonObject() && reference.getAsJsonObject().get("id").isJsonArray();
+    }
+
+    private static List<Integer> ids(JsonElement reference) {
+        List<Integer> ids = new ArrayList<>();
+        for (JsonElement id : reference.getAsJsonObject().getAsJsonArray("id")) {
+            ids.add(id.isJsonNull() ? null : id.getAsInt());
+        }
+        return ids;
+    }
+}
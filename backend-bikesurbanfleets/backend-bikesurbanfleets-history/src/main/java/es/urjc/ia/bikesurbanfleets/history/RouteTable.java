@@ -0,0 +1,97 @@
+package es.urjc.ia.bikesurbanfleets.history;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import es.urjc.ia.bikesurbanfleets.common.graphs.GeoRoute;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class contains the distinct routes of the users which the history has registered. Each
+ * route is kept once and identified by the order in which it was found, so the changes of the
+ * users reference their routes by identifier, as the other entities, instead of repeating all
+ * their points. The routes are compared by content, as the same route between two stations is
+ * calculated again every time a user travels it.
+ * The table is written as one more file of entities, whose json identifier is {@link #JSON_IDENTIFIER}.
+ * @author IAgroup
+ *
+ */
+final class RouteTable {
+
+    static final String JSON_IDENTIFIER = "routes";
+
+    static final List<String> PROTOTYPE = Arrays.asList("id", "points", "totalDistance");
+
+    private Map<GeoRoute, Integer> ids = new HashMap<>();
+
+    private List<GeoRoute> routes = new ArrayList<>();
+
+    /**
+     * It adds a route to the table if there's no equal route in it.
+     * @return the identifier of the route of the table which is equal to the given one.
+     */
+    int add(GeoRoute route) {
+        Integer id = ids.get(route);
+        if (id == null) {
+            id = routes.size();
+            ids.put(route, id);
+            routes.add(route);
+        }
+        return id;
+    }
+
+    GeoRoute get(int id) {
+        return routes.get(id);
+    }
+
+    int size() {
+        return routes.size();
+    }
+
+    /**
+     * @return the reference to a route as it's written in the changes of the users.
+     */
+    static JsonObject reference(int id) {
+        JsonObject reference = new JsonObject();
+        reference.addProperty("type", JSON_IDENTIFIER);
+        reference.addProperty("id", id);
+        return reference;
+    }
+
+    /**
+     * @return the json of a route of the table, with its identifier and the exposed fields
+     * of {@link GeoRoute}.
+     */
+    static JsonObject instance(int id, JsonArray points, double totalDistance) {
+        JsonObject instance = new JsonObject();
+        instance.addProperty("id", id);
+        instance.add("points", points);
+        instance.addProperty("totalDistance", totalDistance);
+        return instance;
+    }
+
+    /**
+     * @return the routes file, with the same layout as the files of the entities.
+     */
+    JsonObject toJson() {
+        JsonArray instances = new JsonArray();
+        for (int id = 0; id < routes.size(); id++) {
+            GeoRoute route = routes.get(id);
+            instances.add(instance(id, History.gson.toJsonTree(route.getPoints()).getAsJsonArray(), route.getTotalDistance()));
+        }
+        return entitiesJson(instances);
+    }
+
+    static JsonObject entitiesJson(JsonArray instances) {
+        JsonArray prototype = new JsonArray();
+        PROTOTYPE.forEach(prototype::add);
+        JsonObject json = new JsonObject();
+        json.add("prototype", prototype);
+        json.add("instances", instances);
+        return json;
+    }
+}
@@ -4,6 +4,7 @@ import com.google.gson.*;
 import es.urjc.ia.bikesurbanfleets.common.graphs.GeoPoint;
 import es.urjc.ia.bikesurbanfleets.infraestructure.entities.Bike;
 import es.urjc.ia.bikesurbanfleets.infraestructure.entities.Station;
+import es.urjc.ia.bikesurbanfleets.services.SimulationContext;
 
 import java.lang.reflect.Type;
 import java.util.ArrayList;
@@ -19,7 +20,16 @@ public class StationDeserializer implements JsonDeserializer<List<Station>>  {
     private static final String JSON_ATTR_BIKES = "bikes";
     private static final String JSON_ATTR_CAPACITY = "capacity";
     private static final String JSON_ATTR_POSITION = "position";
-    
+
+    /**
+     * It is the context of the simulation the stations belong to.
+     */
+    private SimulationContext simulationContext;
+
+    public StationDeserializer(SimulationContext simulationContext) {
+        this.simulationContext = simulationContext;
+    }
+
     @Override
     public List<Station> deserialize(JsonElement json, Type typeOfT, JsonDeserializationContext context) throws JsonParseException {
 
@@ -37,7 +47,7 @@ public class StationDeserializer implements JsonDeserializer<List<Station>>  {
             int naux = capacity - n;
             for (int i = 0; i < n; i++) {
                 // TODO: check if the deserialization context actually calls the bike constructor
-                Bike bike = isArray ? context.deserialize(jsonArrayBikes.get(i), Bike.class) : new Bike();
+                Bike bike = isArray ? context.deserialize(jsonArrayBikes.get(i), Bike.class) : new Bike(simulationContext);
                 bikes.add(bike);
             }
             for(int i = 0; i < naux; i++) {
@@ -46,7 +56,7 @@ public class StationDeserializer implements JsonDeserializer<List<Station>>  {
 
             JsonElement jsonElemGeoP = element.getAsJsonObject().get(JSON_ATTR_POSITION);
             GeoPoint position = context.deserialize(jsonElemGeoP, GeoPoint.class);
-            stations.add(new Station(position, capacity, bikes));
+            stations.add(new Station(simulationContext, position, capacity, bikes));
         }
         
         return stations;
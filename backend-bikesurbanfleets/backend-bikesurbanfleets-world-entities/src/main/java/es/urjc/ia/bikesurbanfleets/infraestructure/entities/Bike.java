@@ -1,10 +1,9 @@
 package es.urjc.ia.bikesurbanfleets.infraestructure.entities;
 
-import es.urjc.ia.bikesurbanfleets.common.interfaces.Entity;
-import es.urjc.ia.bikesurbanfleets.common.util.IdGenerator;
+import es.urjc.ia.bikesurbanfleets.common.interfaces.VersionedEntity;
 import es.urjc.ia.bikesurbanfleets.history.entities.HistoricBike;
-import es.urjc.ia.bikesurbanfleets.history.History;
 import es.urjc.ia.bikesurbanfleets.history.HistoryReference;
+import es.urjc.ia.bikesurbanfleets.services.SimulationContext;
 
 /**
  * This is the main entity with which users and stations interact
@@ -13,17 +12,20 @@ import es.urjc.ia.bikesurbanfleets.history.HistoryReference;
  *
  */
 @HistoryReference(HistoricBike.class)
-public class Bike implements Entity {
-
-    private static IdGenerator idGenerator = new IdGenerator();
+public class Bike implements VersionedEntity {
 
     private int id;
     private boolean reserved;
 
-    public Bike() {
-        this.id  = idGenerator.next();
+    /**
+     * It counts the modifications of the bike.
+     */
+    private int version;
+
+    public Bike(SimulationContext context) {
+        this.id  = context.getBikeIdGenerator().next();
         this.reserved = false;
-        History.registerEntity(this);
+        context.getHistory().registerEntity(this);
     }
 
     @Override
@@ -31,11 +33,17 @@ public class Bike implements Entity {
         return id;
     }
 
+    @Override
+    public int getVersion() {
+        return version;
+    }
+
     public boolean isReserved() {
         return reserved;
     }
 
     public void setReserved(boolean reserved) {
         this.reserved = reserved;
+        version++;
     }
 }
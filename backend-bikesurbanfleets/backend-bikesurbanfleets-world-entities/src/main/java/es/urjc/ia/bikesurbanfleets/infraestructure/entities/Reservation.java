@@ -1,10 +1,9 @@
 package es.urjc.ia.bikesurbanfleets.infraestructure.entities;
 
-import es.urjc.ia.bikesurbanfleets.common.interfaces.Entity;
-import es.urjc.ia.bikesurbanfleets.common.util.IdGenerator;
+import es.urjc.ia.bikesurbanfleets.common.interfaces.VersionedEntity;
 import es.urjc.ia.bikesurbanfleets.history.entities.HistoricReservation;
+import es.urjc.ia.bikesurbanfleets.services.SimulationContext;
 import es.urjc.ia.bikesurbanfleets.users.User;
-import es.urjc.ia.bikesurbanfleets.history.History;
 import es.urjc.ia.bikesurbanfleets.history.HistoryReference;
 
 /**
@@ -19,7 +18,7 @@ import es.urjc.ia.bikesurbanfleets.history.HistoryReference;
  */
 
 @HistoryReference(HistoricReservation.class)
-public class Reservation implements Entity {
+public class Reservation implements VersionedEntity {
 
     public enum ReservationType {
         SLOT, BIKE
@@ -29,13 +28,6 @@ public class Reservation implements Entity {
         ACTIVE, FAILED, EXPIRED, SUCCESSFUL
     }
 
-    /**
-     * It is the time during which a reservation is active.
-     */
-    public static int VALID_TIME;
-
-    private static IdGenerator idGenerator = new IdGenerator();
-
     private int id;
     private int startInstant;  // instant when user makes the reservation
     private int endInstant;  // instant when reservation is resolved or expired
@@ -48,12 +40,22 @@ public class Reservation implements Entity {
      */
     private Bike bike;
 
+    /**
+     * It is the time during which the reservation is active.
+     */
+    private int validTime;
+
+    /**
+     * It counts the modifications of the reservation.
+     */
+    private int version;
+
     /**
      * As it receives a bike param, it creates an active reservation
      */
 
-    public Reservation(int startInstant, ReservationType type, User user, Station station, Bike bike) {
-        this.id = idGenerator.next();
+    public Reservation(SimulationContext context, int startInstant, ReservationType type, User user, Station station, Bike bike) {
+        this.id = context.getReservationIdGenerator().next();
         this.startInstant = startInstant;
         this.endInstant = -1; // reservation has'nt ended
         this.type = type;
@@ -61,14 +63,15 @@ public class Reservation implements Entity {
         this.user = user;
         this.station = station;
         this.bike = bike;
-        History.registerEntity(this);
+        this.validTime = context.getReservationTime();
+        context.getHistory().registerEntity(this);
     }
 
     /**
      * As it doesn't receive a bike parameter, it creates a failed reservation
      */
-    public Reservation(int startInstant, ReservationType type, User user, Station station) {
-        this.id = idGenerator.next();
+    public Reservation(SimulationContext context, int startInstant, ReservationType type, User user, Station station) {
+        this.id = context.getReservationIdGenerator().next();
         this.startInstant = startInstant;
         this.endInstant = startInstant;
         this.type = type;
@@ -76,7 +79,8 @@ public class Reservation implements Entity {
         this.user = user;
         this.station = station;
         this.bike = null;
-        History.registerEntity(this);
+        this.validTime = context.getReservationTime();
+        context.getHistory().registerEntity(this);
     }
 
     @Override
@@ -84,6 +88,11 @@ public class Reservation implements Entity {
         return id;
     }
 
+    @Override
+    public int getVersion() {
+        return version;
+    }
+
     public int getStartInstant() {
         return startInstant;
     }
@@ -117,7 +126,8 @@ public class Reservation implements Entity {
      */
     public void expire() {
         this.state = ReservationState.EXPIRED;
-        this.endInstant = this.startInstant + VALID_TIME;
+        this.endInstant = this.startInstant + validTime;
+        version++;
     }
 
     /**
@@ -127,5 +137,6 @@ public class Reservation implements Entity {
     public void resolve(int endInstant) {
         this.state = ReservationState.SUCCESSFUL;
         this.endInstant = endInstant;
+        version++;
     }
 }
\ No newline at end of file
@@ -1,13 +1,13 @@
 package es.urjc.ia.bikesurbanfleets.infraestructure.entities;
 
-import es.urjc.ia.bikesurbanfleets.common.interfaces.Entity;
+import es.urjc.ia.bikesurbanfleets.common.interfaces.VersionedEntity;
 import es.urjc.ia.bikesurbanfleets.common.graphs.GeoPoint;
-import es.urjc.ia.bikesurbanfleets.common.util.IdGenerator;
 import es.urjc.ia.bikesurbanfleets.history.entities.HistoricStation;
-import es.urjc.ia.bikesurbanfleets.history.History;
 import es.urjc.ia.bikesurbanfleets.history.HistoryReference;
+import es.urjc.ia.bikesurbanfleets.services.SimulationContext;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 
@@ -15,13 +15,12 @@ import java.util.Objects;
  * This is the second main entity of the system
  * It represents station state: how many bikes and slots contains and which of them are reserved
  * It provides all actions a user can carry out with bikes (to remove, return or reserve them) and slots (to reserve)  
+ * The lists of bikes and reservations can only be modified through these actions, so the station knows when it changes.
  * @author IAgroup
  *
  */
 @HistoryReference(HistoricStation.class)
-public class Station implements Entity {
-
-    private static IdGenerator idGenerator = new IdGenerator();
+public class Station implements VersionedEntity {
 
     private int id;
     private final GeoPoint position;
@@ -32,15 +31,20 @@ public class Station implements Entity {
     private int reservedBikes;
     private int reservedSlots;
 
-    public Station(GeoPoint position, int capacity, List<Bike> bikes) {
-        this.id = idGenerator.next();
+    /**
+     * It counts the modifications of the station.
+     */
+    private int version;
+
+    public Station(SimulationContext context, GeoPoint position, int capacity, List<Bike> bikes) {
+        this.id = context.getStationIdGenerator().next();
         this.position = position;
         this.capacity = capacity;
         this.bikes = bikes;
         this.reservedBikes = 0;
         this.reservedSlots = 0;
         this.reservations = new ArrayList<>();
-        History.registerEntity(this);
+        context.getHistory().registerEntity(this);
     }
 
     @Override
@@ -48,6 +52,11 @@ public class Station implements Entity {
         return id;
     }
 
+    @Override
+    public int getVersion() {
+        return version;
+    }
+
     public GeoPoint getPosition() {
         return position;
     }
@@ -57,11 +66,19 @@ public class Station implements Entity {
     }
 
     public List<Bike> getBikes() {
-        return bikes;
+        return Collections.unmodifiableList(bikes);
     }
 
     public List<Reservation> getReservations() {
-        return this.reservations;
+        return Collections.unmodifiableList(reservations);
+    }
+
+    /**
+     * It registers a bike or slot reservation, in any state, made at the station.
+     */
+    public void addReservation(Reservation reservation) {
+        this.reservations.add(reservation);
+        version++;
     }
 
     public int getReservedBikes() {
@@ -102,6 +119,7 @@ public class Station implements Entity {
             bike = getFirstAvailableBike();
             bike.setReserved(true);
             this.reservedBikes++;
+            version++;
         }
         return bike;
     }
@@ -113,6 +131,7 @@ public class Station implements Entity {
     public void cancelsBikeReservation(Reservation reservation) {
         this.reservedBikes--;
         reservation.getBike().setReserved(false);
+        version++;
     }
 
     /**
@@ -120,8 +139,10 @@ public class Station implements Entity {
      */
 
     public void reservesSlot() {
-        if (availableSlots() > 0)
+        if (availableSlots() > 0) {
             this.reservedSlots++;
+            version++;
+        }
     }
 
     /**
@@ -130,6 +151,7 @@ public class Station implements Entity {
 
     public void cancelsSlotReservation() {
         this.reservedSlots--;
+        version++;
     }
 
     /**
@@ -146,6 +168,7 @@ public class Station implements Entity {
             bike = bikes.get(i);
             if (bike != null && !bike.isReserved()) {
                 bikes.set(i, null);
+                version++;
                 break;
             }
         }
@@ -163,6 +186,7 @@ public class Station implements Entity {
         int i = bikes.indexOf(bike);
         bikes.set(i, null);
         bike.setReserved(false);
+        version++;
         return bike;
     }
 
@@ -181,6 +205,7 @@ public class Station implements Entity {
             if (bikes.get(i) == null) {
                 bikes.set(i, bike);
                 returned = true;
+                version++;
                 break;
             }
         }
@@ -0,0 +1,91 @@
+package es.urjc.ia.bikesurbanfleets.services;
+
+import es.urjc.ia.bikesurbanfleets.common.config.GlobalInfo;
+import es.urjc.ia.bikesurbanfleets.common.util.IdGenerator;
+import es.urjc.ia.bikesurbanfleets.history.History;
+import es.urjc.ia.bikesurbanfleets.history.HistorySink;
+import es.urjc.ia.bikesurbanfleets.log.Debug;
+
+/**
+ * This class contains the state which belongs to a single simulation: its history, its debug
+ * logs, the reservation valid time and the identifier generators of the entities.
+ * As nothing of this is global, several simulations can run at the same time in the same JVM,
+ * each one with its own context.
+ * @author IAgroup
+ *
+ */
+public class SimulationContext {
+
+    private HistorySink history;
+    private Debug debug;
+
+    /**
+     * It is the time during which a reservation is active.
+     */
+    private int reservationTime;
+
+    private IdGenerator stationIdGenerator;
+    private IdGenerator bikeIdGenerator;
+    private IdGenerator userIdGenerator;
+    private IdGenerator reservationIdGenerator;
+
+    /**
+     * It creates a context whose history is written to the history files.
+     */
+    public SimulationContext(GlobalInfo globalInfo) {
+        this(globalInfo, new History());
+    }
+
+    /**
+     * @param history the sink which receives the entities and the events of the simulation.
+     */
+    public SimulationContext(GlobalInfo globalInfo, HistorySink history) {
+        this.history = history;
+        this.debug = new Debug(globalInfo.isDebugMode(), globalInfo.getDebugDir());
+        this.reservationTime = globalInfo.getReservationTime();
+        this.stationIdGenerator = new IdGenerator();
+        this.bikeIdGenerator = new IdGenerator();
+        this.userIdGenerator = new IdGenerator();
+        this.reservationIdGenerator = new IdGenerator();
+    }
+
+    public HistorySink getHistory() {
+        return history;
+    }
+
+    public Debug getDebug() {
+        return debug;
+    }
+
+    public int getReservationTime() {
+        return reservationTime;
+    }
+
+    public IdGenerator getStationIdGenerator() {
+        return stationIdGenerator;
+    }
+
+    public IdGenerator getBikeIdGenerator() {
+        return bikeIdGenerator;
+    }
+
+    public IdGenerator getUserIdGenerator() {
+        return userIdGenerator;
+    }
+
+    public IdGenerator getReservationIdGenerator() {
+        return reservationIdGenerator;
+    }
+
+    /**
+     * It replaces the identifier generators by the ones of a restored simulation, so new
+     * entities don't reuse the identifiers of the restored ones.
+     */
+    public void restoreIdGenerators(IdGenerator stationIdGenerator, IdGenerator bikeIdGenerator,
+                                    IdGenerator userIdGenerator, IdGenerator reservationIdGenerator) {
+        this.stationIdGenerator = stationIdGenerator;
+        this.bikeIdGenerator = bikeIdGenerator;
+        this.userIdGenerator = userIdGenerator;
+        this.reservationIdGenerator = reservationIdGenerator;
+    }
+}
@@ -2,6 +2,7 @@ package es.urjc.ia.bikesurbanfleets.services;
 
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import es.urjc.ia.bikesurbanfleets.common.graphs.GraphManager;
 import es.urjc.ia.bikesurbanfleets.common.util.BoundingBox;
 import es.urjc.ia.bikesurbanfleets.infraestructure.entities.Station;
 
@@ -16,6 +17,25 @@ public class  SimulationServiceConfigData {
     private JsonObject recomSystemType;
     private JsonElement graphParameters;
 
+    /**
+     * It is an already created graph manager. If it is set, the graph manager type and
+     * its parameters are not used.
+     */
+    private GraphManager graphManager;
+
+    /**
+     * If it is greater than 0, the shortest routes of the graph manager are cached, see
+     * {@link es.urjc.ia.bikesurbanfleets.common.graphs.CachedGraphManager}.
+     */
+    private int routeCacheSize;
+    private double routeCacheGridSize;
+
+    /**
+     * If it is set, the routes between stations are read from this file, see
+     * {@link es.urjc.ia.bikesurbanfleets.common.graphs.StationRouteMatrix}.
+     */
+    private String stationRouteMatrix;
+
     public SimulationServiceConfigData() {}
 
     public String getGraphManagerType() {
@@ -45,6 +65,38 @@ public class  SimulationServiceConfigData {
         return this;
     }
 
+    public GraphManager getGraphManager() {
+        return graphManager;
+    }
+
+    public SimulationServiceConfigData setGraphManager(GraphManager graphManager) {
+        this.graphManager = graphManager;
+        return this;
+    }
+
+    public int getRouteCacheSize() {
+        return routeCacheSize;
+    }
+
+    public double getRouteCacheGridSize() {
+        return routeCacheGridSize;
+    }
+
+    public SimulationServiceConfigData setRouteCache(int routeCacheSize, double routeCacheGridSize) {
+        this.routeCacheSize = routeCacheSize;
+        this.routeCacheGridSize = routeCacheGridSize;
+        return this;
+    }
+
+    public String getStationRouteMatrix() {
+        return stationRouteMatrix;
+    }
+
+    public SimulationServiceConfigData setStationRouteMatrix(String stationRouteMatrix) {
+        this.stationRouteMatrix = stationRouteMatrix;
+        return this;
+    }
+
     public List<Station> getStations() {
         return stations;
     }
@@ -3,10 +3,17 @@ package es.urjc.ia.bikesurbanfleets.services;
 import com.google.gson.Gson;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import es.urjc.ia.bikesurbanfleets.common.graphs.CachedGraphManager;
+import es.urjc.ia.bikesurbanfleets.common.graphs.GeoPoint;
+import es.urjc.ia.bikesurbanfleets.common.graphs.GraphHopperIntegration;
 import es.urjc.ia.bikesurbanfleets.common.graphs.GraphManager;
 import es.urjc.ia.bikesurbanfleets.common.graphs.GraphManagerParameters;
 import es.urjc.ia.bikesurbanfleets.common.graphs.GraphManagerType;
+import es.urjc.ia.bikesurbanfleets.common.graphs.PrecomputedGraphManager;
+import es.urjc.ia.bikesurbanfleets.common.graphs.StationRouteMatrix;
 import es.urjc.ia.bikesurbanfleets.common.graphs.exceptions.GraphHopperIntegrationException;
+import es.urjc.ia.bikesurbanfleets.common.index.TypeIndex;
+import es.urjc.ia.bikesurbanfleets.common.util.CheckSum;
 import es.urjc.ia.bikesurbanfleets.common.util.MessageGuiFormatter;
 import es.urjc.ia.bikesurbanfleets.comparators.StationComparator;
 import es.urjc.ia.bikesurbanfleets.consultSystems.InformationSystem;
@@ -14,38 +21,70 @@ import es.urjc.ia.bikesurbanfleets.consultSystems.RecommendationSystem;
 import es.urjc.ia.bikesurbanfleets.consultSystems.RecommendationSystemParameters;
 import es.urjc.ia.bikesurbanfleets.consultSystems.RecommendationSystemType;
 import es.urjc.ia.bikesurbanfleets.infraestructure.InfraestructureManager;
-import org.reflections.Reflections;
+import es.urjc.ia.bikesurbanfleets.infraestructure.entities.Station;
 
+import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Constructor;
 import java.util.Arrays;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
 
 public class SimulationServices {
 
     private final String INIT_EXCEPTION_MESSAGE = "Simulation Service is not correctly started."
             + " You should init all the services";
 
+    private SimulationContext context;
     private InfraestructureManager infrastructureManager;
     private RecommendationSystem recommendationSystem;
     private InformationSystem informationSystem;
     private GraphManager graphManager;
 
-    private Set<Class<?>> graphClasses;
-    private Set<Class<?>> recommendationSystemClasses;
+    /**
+     * These are the constructors of the recommendation system types, by type name. They are
+     * looked up once and shared by all the simulations, e.g. the ones of a sweep.
+     */
+    private static final Map<String, MethodHandle> recommendationSystemConstructors = new ConcurrentHashMap<>();
+
+    /**
+     * These are the mapped station route matrices, by file, map checksum and station layout.
+     * They are shared by all the simulations of the process.
+     */
+    private static final Map<String, StationRouteMatrix> stationRouteMatrices = new ConcurrentHashMap<>();
+
+    /**
+     * These are the checksums of the maps, by path, size and modification time, so the map of
+     * the simulations which share a graph isn't read again for each one.
+     */
+    private static final Map<String, String> mapChecksums = new ConcurrentHashMap<>();
 
     private Gson gson = new Gson();
 
-    public SimulationServices(SimulationServiceConfigData configData)
+    public SimulationServices(SimulationContext context, SimulationServiceConfigData configData)
             throws IOException, GraphHopperIntegrationException {
 
-        Reflections reflections = new Reflections();
-        this.graphClasses = reflections.getTypesAnnotatedWith(GraphManagerType.class);
-        this.recommendationSystemClasses = reflections.getTypesAnnotatedWith(RecommendationSystemType.class);
+        this.context = context;
 
         this.infrastructureManager = new InfraestructureManager(configData.getStations(), configData.getBbox());
-        this.graphManager = initGraphManager(configData.getGraphManagerType(), configData.getGraphParameters());
+        if (configData.getGraphManager() != null) {
+            this.graphManager = configData.getGraphManager();
+        } else {
+            this.graphManager = initGraphManager(configData.getGraphManagerType(), configData.getGraphParameters());
+        }
+        if (this.graphManager != null && configData.getStationRouteMatrix() != null) {
+            this.graphManager = new PrecomputedGraphManager(this.graphManager,
+                    initStationRouteMatrix(this.graphManager, configData));
+        }
+        if (this.graphManager != null && configData.getRouteCacheSize() > 0) {
+            this.graphManager = initRouteCache(this.graphManager, configData);
+        }
        this.informationSystem = new InformationSystem(this.infrastructureManager);
         this.recommendationSystem = initRecommendationSystem(configData.getRecomSystemType());
     }
@@ -55,58 +94,128 @@ public class SimulationServices {
         //find the usertype
         String type = recsystemdef.get("typeName").getAsString();
 
-        for (Class<?> recommendationSystemClass : recommendationSystemClasses) {
-            String recomTypeAnnotation = recommendationSystemClass.getAnnotation(RecommendationSystemType.class).value();
-            if (recomTypeAnnotation.equals(type)) {
-
-                try {
-                    Constructor constructor = recommendationSystemClass.getConstructor(JsonObject.class, InfraestructureManager.class);
-                    RecommendationSystem recomSys = (RecommendationSystem) constructor.newInstance(recsystemdef, this.infrastructureManager);
-                    return recomSys;
-                } catch (Exception e) {
-                    MessageGuiFormatter.showErrorsForGui("Error Creating Recommendation System");
-                    MessageGuiFormatter.showErrorsForGui(e);
-                }
+        MethodHandle constructor = recommendationSystemConstructors.computeIfAbsent(type,
+                SimulationServices::findRecommendationSystemConstructor);
+        if (constructor != null) {
+            try {
+                return (RecommendationSystem) constructor.invokeExact(recsystemdef, this.infrastructureManager);
+            } catch (Throwable e) {
+                MessageGuiFormatter.showErrorsForGui("Error Creating Recommendation System");
+                MessageGuiFormatter.showErrorsForGui(e);
             }
         }
         return null;
     }
 
+    private static MethodHandle findRecommendationSystemConstructor(String type) {
+        Class<?> recommendationSystemClass = TypeIndex.findType(RecommendationSystemType.class,
+                RecommendationSystemType::value, type);
+        if (recommendationSystemClass == null) {
+            return null;
+        }
+        try {
+            MethodHandle constructor = MethodHandles.publicLookup().findConstructor(recommendationSystemClass,
+                    MethodType.methodType(void.class, JsonObject.class, InfraestructureManager.class));
+            return constructor.asType(constructor.type().changeReturnType(RecommendationSystem.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            MessageGuiFormatter.showErrorsForGui("Error Creating Recommendation System");
+            MessageGuiFormatter.showErrorsForGui(e);
+            return null;
+        }
+    }
+
     private GraphManager initGraphManager(String graphManagerType, JsonElement parameters)
             throws IllegalStateException {
 
-        for (Class<?> graphClass : graphClasses) {
-            String graphTypeAnnotation = graphClass.getAnnotation(GraphManagerType.class).value();
-            if (graphTypeAnnotation.equals(graphManagerType)) {
-                List<Class<?>> innerClasses = Arrays.asList(graphClass.getClasses());
-                Class<?> graphParametersClass = null;
-
-                for (Class<?> innerClass : innerClasses) {
-                    if (innerClass.getAnnotation(GraphManagerParameters.class) != null) {
-                        graphParametersClass = innerClass;
-                        break;
-                    }
+        Class<?> graphClass = TypeIndex.findType(GraphManagerType.class, GraphManagerType::value, graphManagerType);
+        if (graphClass != null) {
+            List<Class<?>> innerClasses = Arrays.asList(graphClass.getClasses());
+            Class<?> graphParametersClass = null;
+
+            for (Class<?> innerClass : innerClasses) {
+                if (innerClass.getAnnotation(GraphManagerParameters.class) != null) {
+                    graphParametersClass = innerClass;
+                    break;
                 }
+            }
 
-                try {
-                    if (graphParametersClass != null) {
-                        Constructor constructor = graphClass.getConstructor(graphParametersClass);
-                        GraphManager graphManager = (GraphManager) constructor.newInstance(gson.fromJson(parameters, graphParametersClass));
-                        return graphManager;
-                    } else {
-                        Constructor constructor = graphClass.getConstructor();
-                        GraphManager graphManager = (GraphManager) constructor.newInstance();
-                        return graphManager;
-                    }
-                } catch (Exception e) {
-                    MessageGuiFormatter.showErrorsForGui("Error Creating Graph Manager");
-                    MessageGuiFormatter.showErrorsForGui(e);
+            try {
+                if (graphParametersClass != null) {
+                    Constructor constructor = graphClass.getConstructor(graphParametersClass);
+                    GraphManager graphManager = (GraphManager) constructor.newInstance(gson.fromJson(parameters, graphParametersClass));
+                    return graphManager;
+                } else {
+                    Constructor constructor = graphClass.getConstructor();
+                    GraphManager graphManager = (GraphManager) constructor.newInstance();
+                    return graphManager;
                 }
+            } catch (Exception e) {
+                MessageGuiFormatter.showErrorsForGui("Error Creating Graph Manager");
+                MessageGuiFormatter.showErrorsForGui(e);
             }
         }
         return null;
     }
 
+    /**
+     * The matrix must have been calculated for the map which has been loaded by the graph manager
+     * and for the stations of the simulation.
+     */
+    private StationRouteMatrix initStationRouteMatrix(GraphManager graphManager,
+            SimulationServiceConfigData configData) throws IOException {
+        if (!(graphManager instanceof GraphHopperIntegration)) {
+            throw new IllegalStateException("The station route matrix can't be used as the map of the graph is unknown");
+        }
+        String mapChecksum = mapChecksum(new File(((GraphHopperIntegration) graphManager).getMapPath()));
+        List<GeoPoint> positions = configData.getStations().stream()
+                .map(Station::getPosition)
+                .collect(Collectors.toList());
+        String key = configData.getStationRouteMatrix() + "|" + mapChecksum + "|" + StationRouteMatrix.layoutHash(positions);
+        try {
+            return stationRouteMatrices.computeIfAbsent(key, k -> {
+                try {
+                    return StationRouteMatrix.open(new File(configData.getStationRouteMatrix()), mapChecksum, positions);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static String mapChecksum(File map) throws IOException {
+        String key = map.getCanonicalPath() + "|" + map.length() + "|" + map.lastModified();
+        try {
+            return mapChecksums.computeIfAbsent(key, k -> {
+                try {
+                    return CheckSum.md5Hex(map);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * The cache belongs to this simulation, so the simulations which share a graph manager don't
+     * share their routes.
+     */
+    private GraphManager initRouteCache(GraphManager graphManager, SimulationServiceConfigData configData) {
+        CachedGraphManager cache = new CachedGraphManager(graphManager, configData.getRouteCacheSize(),
+                configData.getRouteCacheGridSize());
+        for (Station station : configData.getStations()) {
+            cache.registerStation(station.getId(), station.getPosition());
+        }
+        return cache;
+    }
+
+    public SimulationContext getContext() {
+        return context;
+    }
+
     public InfraestructureManager getInfrastructureManager() throws IllegalStateException {
         checkService();
         return this.infrastructureManager;
@@ -10,8 +10,7 @@ import es.urjc.ia.bikesurbanfleets.common.graphs.GraphManager;
 import es.urjc.ia.bikesurbanfleets.common.graphs.exceptions.GeoRouteCreationException;
 import es.urjc.ia.bikesurbanfleets.common.graphs.exceptions.GeoRouteException;
 import es.urjc.ia.bikesurbanfleets.common.graphs.exceptions.GraphHopperIntegrationException;
-import es.urjc.ia.bikesurbanfleets.common.interfaces.Entity;
-import es.urjc.ia.bikesurbanfleets.common.util.IdGenerator;
+import es.urjc.ia.bikesurbanfleets.common.interfaces.VersionedEntity;
 import es.urjc.ia.bikesurbanfleets.common.util.SimpleRandom;
 import es.urjc.ia.bikesurbanfleets.consultSystems.InformationSystem;
 import es.urjc.ia.bikesurbanfleets.consultSystems.RecommendationSystem;
@@ -20,9 +19,8 @@ import es.urjc.ia.bikesurbanfleets.infraestructure.InfraestructureManager;
 import es.urjc.ia.bikesurbanfleets.infraestructure.entities.Bike;
 import es.urjc.ia.bikesurbanfleets.infraestructure.entities.Reservation;
 import es.urjc.ia.bikesurbanfleets.infraestructure.entities.Station;
-import es.urjc.ia.bikesurbanfleets.history.History;
 import es.urjc.ia.bikesurbanfleets.history.HistoryReference;
-import java.lang.reflect.Field;
+import es.urjc.ia.bikesurbanfleets.services.SimulationContext;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -38,15 +36,19 @@ import java.util.List;
  * @author IAgroup
  */
 @HistoryReference(HistoricUser.class)
-public abstract class User implements Entity {
+public abstract class User implements VersionedEntity {
+
+    /**
+     * It reads the positions of the user definitions. Gson instances are thread safe, so it's
+     * shared by all the users.
+     */
+    private static final Gson gson = new Gson();
 
     public enum STATE {
         APPEARED, WALK_TO_STATION, WITH_BIKE, WALK_TO_DESTINATION, EXIT_AFTER_TIMEOUT,
         EXIT_AFTER_FAILED_RESERVATION,EXIT_AFTER_FAILED_RENTAL, EXIT_AFTER_REACHING_DESTINATION, LEFT_SYSTEM 
     }
     
-    private static IdGenerator idGenerator = new IdGenerator();
-
     private int id;
     private STATE state;
 
@@ -110,30 +112,40 @@ public abstract class User implements Entity {
      */
     private UserMemory memory;
 
-    protected InfraestructureManager infraestructure;
+    /**
+     * It counts the modifications of the user, apart from the time instant.
+     */
+    private int version;
+
+    /*
+     * The services are not part of the state of the user. They are not saved in simulation
+     * snapshots and they are set again when a snapshot is restored.
+     */
+
+    protected transient InfraestructureManager infraestructure;
 
     /**
      * It tries to convince the user to rent or return a bike in a specific
      * station to help balance the system.
      */
-    protected RecommendationSystem recommendationSystem;
+    protected transient RecommendationSystem recommendationSystem;
 
     /**
      * It informs the user about the state and distance of the different
      * stations.
      */
-    protected InformationSystem informationSystem;
+    protected transient InformationSystem informationSystem;
 
     /**
      * It provides the user the availables routes between twoe geographical
      * points.
      */
-    protected GraphManager graph;
+    protected transient GraphManager graph;
 
     /**
      * It provides facilities of general purpose.
      */
-    protected SimulationServices services;
+    protected transient SimulationServices services;
 
     /**
      * It is the time instant of the simulation.
@@ -145,7 +157,6 @@ public abstract class User implements Entity {
 
     protected void readConfigParameters(JsonObject userdef) {
         //get the parameters form the configuration json
-        Gson gson = new Gson();
         //necesary paramneters
         JsonElement aux = userdef.get("position");
         if (aux != null) {
@@ -181,7 +192,7 @@ public abstract class User implements Entity {
 
     public User(SimulationServices services, JsonObject userdef, long seed) {
 
-        this.id = idGenerator.next();
+        this.id = services.getContext().getUserIdGenerator().next();
         this.rando = new SimpleRandom(seed);
 
         this.bike = null;
@@ -195,16 +206,25 @@ public abstract class User implements Entity {
         // ******* Historic treatment *******
         // it's necessary to register the user here, to detect changes 
         // in the event execution
-        History.registerEntity(this);
+        services.getContext().getHistory().registerEntity(this);
 
         //first get the parameters form the configuration json
         this.readConfigParameters(userdef);
+        this.setServices(services);
+        this.memory = new UserMemory(this);
+        version++;
+    }
+
+    /**
+     * It sets the services the user consults, e.g. when the user is restored from a snapshot.
+     * @param services the services of the simulation the user belongs to.
+     */
+    public void setServices(SimulationServices services) {
         this.services = services;
         this.infraestructure = services.getInfrastructureManager();
         this.recommendationSystem = services.getRecommendationSystem();
         this.informationSystem = services.getInformationSystem();
-        this.graph = services.getGraphManager(); 
-        this.memory = new UserMemory(this);
+        this.graph = services.getGraphManager();
     }
 
     public STATE getState() {
@@ -213,6 +233,7 @@ public abstract class User implements Entity {
 
     public void setState(STATE state) {
         this.state = state;
+        version++;
     }
 
     public GeoPoint getDestinationPlace() {
@@ -224,10 +245,16 @@ public abstract class User implements Entity {
         return id;
     }
 
+    @Override
+    public int getVersion() {
+        return version;
+    }
+
     public void addReservation(Reservation reservation) {
         infraestructure.addReservation(reservation);
         this.reservation = reservation;
         this.memory.getReservations().add(reservation);
+        version++;
     }
 
     public int getInstant() {
@@ -244,6 +271,7 @@ public abstract class User implements Entity {
 
     public void setPosition(GeoPoint position) {
         this.position = position;
+        version++;
     }
 
     public Bike getBike() {
@@ -282,6 +310,13 @@ public abstract class User implements Entity {
         return this.memory;
     }
 
+    /**
+     * @return the context of the simulation the user belongs to.
+     */
+    public SimulationContext getContext() {
+        return services.getContext();
+    }
+
     /**
      * The user's average velocity in m/s
      *
@@ -305,6 +340,7 @@ public abstract class User implements Entity {
         if (station.availableBikes() > 0) {
             this.reservedBike = true;
             bike = station.reservesBike();
+            version++;
         }
         return bike;
     }
@@ -321,6 +357,7 @@ public abstract class User implements Entity {
         if (station.availableSlots() > 0) {
             this.reservedSlot = true;
             station.reservesSlot();
+            version++;
         }
         return reservedSlot;
     }
@@ -334,6 +371,7 @@ public abstract class User implements Entity {
     public void cancelsBikeReservation(Station station) {
         this.reservedBike = false;
         station.cancelsBikeReservation(reservation);
+        version++;
     }
 
     /**
@@ -345,6 +383,7 @@ public abstract class User implements Entity {
     public void cancelsSlotReservation(Station station) {
         this.reservedSlot = false;
         station.cancelsSlotReservation();
+        version++;
     }
 
     /**
@@ -359,6 +398,7 @@ public abstract class User implements Entity {
             throw new RuntimeException("removeBikeWithoutReservationFrom");
         }
         this.bike = station.removeBikeWithoutReservation();
+        version++;
         return hasBike();
     }
 
@@ -374,6 +414,7 @@ public abstract class User implements Entity {
         }
         this.bike = station.removeBikeWithReservation(reservation);
         this.reservation = null;
+        version++;
     }
 
     /**
@@ -392,6 +433,7 @@ public abstract class User implements Entity {
         if (station.returnBike(this.bike)) {
             this.bike = null;
             returned = true;
+            version++;
         }
         return returned;
     }
@@ -410,6 +452,7 @@ public abstract class User implements Entity {
             this.bike = null;
         }
         this.reservation = null;
+        version++;
     }
 
     private GeoRoute calculateRoute(GeoPoint destinationPoint) throws GeoRouteCreationException, GraphHopperIntegrationException {
@@ -439,7 +482,7 @@ public abstract class User implements Entity {
     }
 
     public GeoPoint reachedPointUntilTimeOut() throws GeoRouteException, GeoRouteCreationException {
-        return route.calculatePositionByTimeAndVelocity(Reservation.VALID_TIME, this.getAverageVelocity());
+        return route.calculatePositionByTimeAndVelocity(getContext().getReservationTime(), this.getAverageVelocity());
     }
 
     /**
@@ -452,6 +495,7 @@ public abstract class User implements Entity {
         route = null;
         destinationStation = null;
         instant = -1;
+        version++;
     }
 
     /**
@@ -460,6 +504,7 @@ public abstract class User implements Entity {
      */
     final public int goToStation(Station dest) throws Exception {
         destinationStation = dest;
+        version++;
         route = calculateRoute(dest.getPosition());
         return (int) (route.getTotalDistance() / getAverageVelocity());
     }
@@ -470,6 +515,7 @@ public abstract class User implements Entity {
      */
     public int goToPointInCity(GeoPoint point) throws Exception {
         destinationStation = null;
+        version++;
         route = calculateRoute(point);
         return (int) (route.getTotalDistance() / getAverageVelocity());
     }
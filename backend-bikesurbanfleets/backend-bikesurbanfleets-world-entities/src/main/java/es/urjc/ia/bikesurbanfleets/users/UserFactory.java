@@ -1,30 +1,29 @@
 package es.urjc.ia.bikesurbanfleets.users;
 
-import com.google.gson.Gson;
 import com.google.gson.JsonObject;
 
 import es.urjc.ia.bikesurbanfleets.services.SimulationServices;
-import es.urjc.ia.bikesurbanfleets.common.util.MessageGuiFormatter;
-import org.reflections.Reflections;
+import es.urjc.ia.bikesurbanfleets.common.index.TypeIndex;
 
-import java.lang.reflect.Constructor;
-import java.util.Set;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * This class serves to create, in a generic way, user instances.
+ * The constructor of each user type is looked up once and kept as a method handle, so creating
+ * a user costs about the same as calling its constructor.
  * @author IAgroup
  */
 public class UserFactory {
 
-    private Set<Class<?>> userClasses;
-
-    private Gson gson = new Gson();
-
-    public UserFactory() {
-        // Load User classes by reflection using the annotation UserType
-        Reflections reflections = new Reflections();
-        this.userClasses = reflections.getTypesAnnotatedWith(UserType.class);
-    }
+    /**
+     * These are the constructors of the user types, by type name. They are looked up once and
+     * shared by all the factories.
+     */
+    private static final Map<String, MethodHandle> userConstructors = new ConcurrentHashMap<>();
 
     /**
      * It creates a specific type of user.
@@ -33,30 +32,36 @@ public class UserFactory {
      * @return an instance of a specific user type.
      */
     public User createUser(JsonObject userdef, SimulationServices services, int seed) {
- 
-        User user=null;
         //find the usertype
-        String type=userdef.getAsJsonObject("userType").get("typeName").getAsString();
-        
-        //find the constructoir of the type
-        for(Class<?> userClass: userClasses) {
-            String userTypeAnnotation = userClass.getAnnotation(UserType.class).value();
-            if(userTypeAnnotation.equals(type)) {
-                 try {
-                    Constructor constructor = userClass.getConstructor(JsonObject.class, SimulationServices.class, long.class  );
-                    user = (User) constructor.newInstance(userdef, services, seed);
-                    break;
-                }
-                catch(Exception e) {
-                    MessageGuiFormatter.showErrorsForGui("Error Creating user");
-                    MessageGuiFormatter.showErrorsForGui(e);
-                }
-
-            }
+        String type = userdef.getAsJsonObject("userType").get("typeName").getAsString();
+
+        //find the constructor of the type
+        MethodHandle constructor = userConstructors.computeIfAbsent(type, UserFactory::findConstructor);
+        if (constructor == null) {
+            throw new IllegalArgumentException("The type " + type + " doesn't exist");
+        }
+        try {
+            return (User) constructor.invokeExact(userdef, services, (long) seed);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException("Error creating user of type " + type, e);
+        }
+    }
+
+    private static MethodHandle findConstructor(String type) {
+        Class<?> userClass = TypeIndex.findType(UserType.class, UserType::value, type);
+        if (userClass == null) {
+            return null;
+        }
+        try {
+            MethodHandle constructor = MethodHandles.publicLookup().findConstructor(userClass,
+                    MethodType.methodType(void.class, JsonObject.class, SimulationServices.class, long.class));
+            return constructor.asType(constructor.type().changeReturnType(User.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new IllegalStateException("The user type " + type + " has no public constructor "
+                    + "(JsonObject, SimulationServices, long)", e);
         }
-        
-        if (user != null) return user;
-        throw new IllegalArgumentException("The type" + type + "doesn't exists");
     }
 
  }
@@ -1,5 +1,6 @@
 package es.urjc.ia.bikesurbanfleets.users;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -17,7 +18,7 @@ import es.urjc.ia.bikesurbanfleets.infraestructure.entities.Reservation.Reservat
  * @author IAgroup
  *
  */
-public class UserMemory {
+public class UserMemory implements Serializable {
     
     public enum FactType {
         BIKE_RESERVATION_TIMEOUT, BIKE_FAILED_RESERVATION, BIKES_UNAVAILABLE, SLOTS_UNAVAILABLE,
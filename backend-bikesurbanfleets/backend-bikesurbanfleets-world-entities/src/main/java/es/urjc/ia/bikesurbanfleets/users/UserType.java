@@ -1,5 +1,7 @@
 package es.urjc.ia.bikesurbanfleets.users;
 
+import es.urjc.ia.bikesurbanfleets.common.index.Indexed;
+
 import java.lang.annotation.ElementType;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
@@ -10,6 +12,7 @@ import java.lang.annotation.Target;
  * @author IAgrup
  *
  */
+@Indexed
 @Retention(RetentionPolicy.RUNTIME)
 @Target(ElementType.TYPE)
 public @interface UserType {
@@ -15,6 +15,7 @@ import es.urjc.ia.bikesurbanfleets.infraestructure.entities.Station;
 import es.urjc.ia.bikesurbanfleets.users.UserParameters;
 import es.urjc.ia.bikesurbanfleets.users.UserType;
 import es.urjc.ia.bikesurbanfleets.users.User;
+import java.io.Serializable;
 import java.lang.reflect.Field;
 
 import java.util.List;
@@ -32,7 +33,7 @@ import java.util.List;
 public class GeneralUser extends User {
 
     @UserParameters
-    public class Parameters {
+    public class Parameters implements Serializable {
 
         /**
          * It is the maximum time in seconds until which the user will decide to continue walking
@@ -10,6 +10,7 @@ import es.urjc.ia.bikesurbanfleets.users.UserParameters;
 import es.urjc.ia.bikesurbanfleets.users.UserType;
 import es.urjc.ia.bikesurbanfleets.users.User;
 
+import java.io.Serializable;
 import java.util.List;
 
 /**
@@ -30,7 +31,7 @@ import java.util.List;
 public class UserCommuter extends User {
 
     @UserParameters
-    public class Parameters {
+    public class Parameters implements Serializable {
 
         //default constructor used if no parameters are specified
         private Parameters() {}
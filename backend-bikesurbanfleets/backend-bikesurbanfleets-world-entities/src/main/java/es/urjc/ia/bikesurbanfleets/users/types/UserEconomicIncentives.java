@@ -12,6 +12,7 @@ import es.urjc.ia.bikesurbanfleets.users.UserParameters;
 import es.urjc.ia.bikesurbanfleets.users.UserType;
 import es.urjc.ia.bikesurbanfleets.users.User;
 
+import java.io.Serializable;
 import java.util.Comparator;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -31,7 +32,7 @@ import java.util.stream.Collectors;
 public class UserEconomicIncentives extends User {
 
     @UserParameters
-    public class Parameters {
+    public class Parameters implements Serializable {
 
         //default constructor used if no parameters are specified
         private Parameters() {}
@@ -11,6 +11,7 @@ import es.urjc.ia.bikesurbanfleets.users.UserParameters;
 import es.urjc.ia.bikesurbanfleets.users.UserType;
 import es.urjc.ia.bikesurbanfleets.users.User;
 
+import java.io.Serializable;
 import java.util.List;
 
 /**
@@ -28,7 +29,7 @@ import java.util.List;
 public class UserObedient extends User {
 
     @UserParameters
-    public class Parameters {
+    public class Parameters implements Serializable {
 
         //default constructor used if no parameters are specified
         private Parameters() {}
@@ -9,6 +9,7 @@ import es.urjc.ia.bikesurbanfleets.users.UserParameters;
 import es.urjc.ia.bikesurbanfleets.users.UserType;
 import es.urjc.ia.bikesurbanfleets.users.User;
 
+import java.io.Serializable;
 import java.util.List;
 
 /**
@@ -23,7 +24,7 @@ import java.util.List;
 public class UserPaperAT2018Uninformed extends User {
 
     @UserParameters
-    public class Parameters {
+    public class Parameters implements Serializable {
 
        //default constructor used if no parameters are specified
         private Parameters() {}
@@ -9,6 +9,7 @@ import es.urjc.ia.bikesurbanfleets.users.UserParameters;
 import es.urjc.ia.bikesurbanfleets.users.UserType;
 import es.urjc.ia.bikesurbanfleets.users.User;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -25,7 +26,7 @@ import java.util.List;
 public class UserTourist extends User {
 
     @UserParameters
-    public class Parameters {
+    public class Parameters implements Serializable {
 
         /**
          * It indicates the size of the set of stations closest to the user
@@ -10,6 +10,7 @@ import es.urjc.ia.bikesurbanfleets.infraestructure.entities.Station;
 import es.urjc.ia.bikesurbanfleets.users.UserParameters;
 import es.urjc.ia.bikesurbanfleets.users.UserType;
 import es.urjc.ia.bikesurbanfleets.users.User;
+import java.io.Serializable;
 import java.lang.reflect.Field;
 
 import java.util.List;
@@ -26,7 +27,7 @@ import java.util.List;
 public class UserUninformed extends User {
 
     @UserParameters
-    public class Parameters {
+    public class Parameters implements Serializable {
 
        //default constructor used if no parameters are specified
         private Parameters() {}
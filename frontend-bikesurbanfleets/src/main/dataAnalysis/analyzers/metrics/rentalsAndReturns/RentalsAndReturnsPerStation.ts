@@ -4,13 +4,15 @@ import { Observer } from "../../ObserverPattern";
 import { Data } from "../../Data";
 import { SystemInfo } from "../../SystemInfo";
 import { RentalAndReturnData } from './RentalAndReturnData';
+import { SystemRoutes } from '../../../historyEntities/SystemRoutes';
 
 export class RentalsAndReturnsPerStation implements SystemInfo, Observer {
     basicData: Array<Station>;
     data: Data;
+    routes: SystemRoutes;
 
-    public static async create(stations: Array<Station>) {
-        let stationValues = new RentalsAndReturnsPerStation(stations);
+    public static async create(stations: Array<Station>, routes: SystemRoutes) {
+        let stationValues = new RentalsAndReturnsPerStation(stations, routes);
         try {
             await stationValues.init();
         }
@@ -21,8 +23,9 @@ export class RentalsAndReturnsPerStation implements SystemInfo, Observer {
     }
 
 
-    public constructor(stations: Array<Station>) {
+    public constructor(stations: Array<Station>, routes: SystemRoutes) {
         this.basicData = stations;
+        this.routes = routes;
         this.data = new RentalAndReturnData();
     }
 
@@ -102,13 +105,14 @@ export class RentalsAndReturnsPerStation implements SystemInfo, Observer {
     
     /**
      * It finds out the station id from the last point of the route travelled by a user,
-     * looking for which station is at that point.       
+     * looking for which station is at that point. The route is referenced in the route table.
      */
     private obtainNotChangedStationId(user: User): number {
         let stationPosition: any;
-        if (user.route !== undefined) {
-            let lastPos: number = user.route.old.points.length-1;
-            stationPosition = user.route.old.points[lastPos];
+        let route = user.route !== undefined && user.route.old !== null ? this.routes.getRoute(user.route.old.id) : undefined;
+        if (route !== undefined) {
+            let lastPos: number = route.points.length-1;
+            stationPosition = route.points[lastPos];
         } 
         else {
             stationPosition = user.position.new;
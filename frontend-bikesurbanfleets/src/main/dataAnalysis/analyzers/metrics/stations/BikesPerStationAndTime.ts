@@ -1,3 +1,4 @@
+import { lastNewId } from "../../../../../shared/history";
 import { Reservation, Station } from "../../../systemDataTypes/Entities";
 import { TimeEntry, Event } from "../../../systemDataTypes/SystemInternalData";
 import { Observer } from "../../ObserverPattern";
@@ -57,7 +58,6 @@ export class BikesPerStationAndTime implements Observer {
     let instant: number = timeEntry.time;
     let events: Array<Event> = timeEntry.events;
       
-    let lastPos: number;
     let reservationId: number;
     let reservation: Reservation | undefined;
     let station: Station;
@@ -70,8 +70,7 @@ export class BikesPerStationAndTime implements Observer {
           if (eventStations !== undefined) {
             // If there are several bike reservations, only the last can be active
             station = eventStations[eventStations.length-1];
-            lastPos = station.reservations.new.id.length-1;
-            reservationId = station.reservations.new.id[lastPos];
+            reservationId = lastNewId(station.reservations) as number;
             reservation = this.getReservation(reservationId);
                 
             if (reservation !== undefined && reservation.state === "ACTIVE") {  // and, of course, reservationtype = BIKE
@@ -103,8 +102,7 @@ export class BikesPerStationAndTime implements Observer {
                 else { // (station.reservations !== undefined)
                     station = eventStations[eventStations.length-1];
                     
-                    lastPos = station.reservations.new.id.length-1;
-                    reservationId = station.reservations.new.id[lastPos];
+                    reservationId = lastNewId(station.reservations) as number;
                     reservation = this.getReservation(reservationId);
                     if (reservation !== undefined && reservation.state === "ACTIVE") {  // and, of course, reservation.type === "BIKE"  
                         // Decreasing available bikes at the time the UserAppears event''s happened
@@ -10,6 +10,7 @@ import { EmptyStationInfo } from "../analyzers/metrics/stations/EmptyStationInfo
 import { ReservationIterator } from "../analyzers/iterators/ReservationIterator";
 import { TimeEntryIterator } from "../analyzers/iterators/TimeEntryIterator";
 import { SystemReservations } from "../historyEntities/SystemReservations";
+import { SystemRoutes } from "../historyEntities/SystemRoutes";
 import { SystemStations } from "../historyEntities/SystemStations";
 import { SystemUsers } from "../historyEntities/SystemUsers";
 import { CsvGenerator } from "./CsvGenerator";
@@ -38,6 +39,7 @@ export class DataGenerator {
     private systemStations: SystemStations;
     private systemUsers: SystemUsers;
     private systemReservations: SystemReservations;
+    private systemRoutes: SystemRoutes;
     
     private info: Map<string, SystemInfo>;  // it contains all the results of the data analysis
     private globalInfo: SystemGlobalInfo; 
@@ -73,6 +75,7 @@ export class DataGenerator {
         this.systemStations = new SystemStations();
         this.systemUsers = new SystemUsers();
         this.systemReservations = new SystemReservations();
+        this.systemRoutes = new SystemRoutes();
     }
     
     private async init(): Promise<void> {
@@ -120,14 +123,14 @@ export class DataGenerator {
             this.calculateReservations();
         }); 
         
-        // Getting stations' initial state information and initializing data of analysis which need it     
-        this.systemStations.init(this.history).then( () => {
+        // Getting stations' initial state information and the routes, and initializing data of analysis which need them
+        Promise.all([this.systemStations.init(this.history), this.systemRoutes.init(this.history)]).then( () => {
             let reservations: ReservationsPerStation = new ReservationsPerStation(this.systemStations.getStations());
             reservationIterator.subscribe(reservations);
             this.info.set(ReservationsPerStation.name, reservations);
             this.initReservations(reservations);  // it's async
 
-            let rentalsAndReturns: RentalsAndReturnsPerStation = new RentalsAndReturnsPerStation(this.systemStations.getStations()); 
+            let rentalsAndReturns: RentalsAndReturnsPerStation = new RentalsAndReturnsPerStation(this.systemStations.getStations(), this.systemRoutes); 
             timeEntryIterator.subscribe(rentalsAndReturns);
             this.info.set(RentalsAndReturnsPerStation.name, rentalsAndReturns);  
             this.initRentalsAndReturns(rentalsAndReturns);  // it's async
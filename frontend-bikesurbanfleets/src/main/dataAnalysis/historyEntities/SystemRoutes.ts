@@ -0,0 +1,29 @@
+import { HistoryEntitiesJson, ROUTES } from "../../../shared/history";
+import { Geo } from "../../../shared/util";
+import { HistoryReaderController } from "../../controllers/HistoryReaderController";
+
+/**
+ * They're the routes of the route table of the history, which the changes of the users reference.
+ */
+export class SystemRoutes {
+    private routes: Map<number, Geo.Route>;
+
+    public async init(history: HistoryReaderController): Promise<void> {
+        try {
+            let entities: HistoryEntitiesJson = await history.getEntities(ROUTES);
+            this.routes = new Map();
+            for (let route of entities.instances) {
+                this.routes.set(route.id, <Geo.Route> <any> route);
+            }
+        }
+        catch(error) {
+            throw new Error('Error getting routes: '+error);
+        }
+        return;
+    }
+
+    public getRoute(id: number): Geo.Route | undefined {
+        return this.routes.get(id);
+    }
+
+}
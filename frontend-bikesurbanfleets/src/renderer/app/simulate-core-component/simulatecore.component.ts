@@ -25,6 +25,12 @@ export class SimulatecoreComponent{
     private errors: boolean;
     private finished: boolean;
 
+    /**
+     * It is the last line of the console output, which is kept until its newline arrives, as
+     * the output can be split anywhere.
+     */
+    private pendingConsoleOutput: string;
+
     private modal: NgbModalRef;
 
     constructor(@Inject('AjaxProtocol') private ajax: AjaxProtocol, private modalService: NgbModal) {}
@@ -34,6 +40,7 @@ export class SimulatecoreComponent{
         this.exceptions = "";
         this.percentage = 0;
         this.finished = false;
+        this.pendingConsoleOutput = "";
 
         ipcRenderer.on('core-error' , (event: Event, data: string) => this.addErrors(data));
         ipcRenderer.on('core-data', (event: Event, data: string) => this.addConsoleMessage(data));
@@ -70,14 +77,19 @@ export class SimulatecoreComponent{
     }
 
     addConsoleMessage(message: any) {
-        let consoleMessage = message.toString();
+        let consoleMessage = this.pendingConsoleOutput + message.toString();
         let consoleMessageList = consoleMessage.split('\n');
+        this.pendingConsoleOutput = consoleMessageList.pop();
         consoleMessageList.forEach((indMessage: string) => {
-            if(indMessage.includes("[Percentage]")) {
-                let percentageStr = indMessage.replace('[Percentage]', '');
-                let percentage: number = parseFloat(percentageStr);
-                this.percentage = percentage;
-                $('#progress-bar').trigger('click');
+            if(indMessage.includes("[Progress]")) {
+                try {
+                    let progress = JSON.parse(indMessage.replace('[Progress]', ''));
+                    this.percentage = progress.percentage;
+                    $('#progress-bar').trigger('click');
+                }
+                catch(error) {
+                    console.log("Wrong progress line: " + indMessage);
+                }
             }
             if(indMessage.includes("[Error]")) {
                 this.errors = true;
@@ -93,6 +105,7 @@ export class SimulatecoreComponent{
         this.exceptions = "";
         this.percentage = 0;
         this.finished = false;
+        this.pendingConsoleOutput = "";
         let args: CoreSimulatorArgs = {
             globalConfPath: this.globalConfiguration,
             usersConfPath: this.usersConfiguration,
@@ -5,7 +5,9 @@ import { isArray, isEqual } from 'lodash';
 import { IntervalObservable } from 'rxjs/observable/IntervalObservable';
 import { takeWhile } from 'rxjs/operators/takeWhile';
 
-import { EntityChanges, HistoryTimeEntry, IdReference, isIdReference } from '../../../shared/history';
+import {
+    applyIdListChange, EntityChanges, HistoryTimeEntry, IdReference, isIdListChange, isIdReference, ROUTES
+} from '../../../shared/history';
 import { Geo, safe } from '../../../shared/util';
 import { AjaxProtocol } from '../../ajax/AjaxProtocol';
 import { Entity, Historic, HistoricConfiguration } from './entities/Entity';
@@ -61,6 +63,10 @@ export class VisualizationEngine {
         }
     };
 
+    private routes: {
+        [key: number]: Geo.Route
+    };
+
     private referencedEntities: Map<Entity, Map<string, Set<Entity>>>;
 
     private timeEntries: {
@@ -195,6 +201,10 @@ export class VisualizationEngine {
         const deferredReferences = new Map<Entity, Array<[string, IdReference]>>();
 
         this.entities = {};
+        this.routes = {};
+
+        const routeSource = await this.ajax.history.getEntities(ROUTES);
+        routeSource.instances.forEach((route) => this.routes[route.id] = route as any);
 
         for (let Constructor of Object.values(EntityConstructors)) {
             const configuration: HistoricConfiguration = Reflect.getOwnMetadata(Historic, Constructor);
@@ -293,15 +303,26 @@ export class VisualizationEngine {
 
         Object.defineProperty(data, 'id', { enumerable: false });
         Object.keys(data).forEach((name) => {
-            let property = data[name][from];
+            const change = data[name];
+            let property: any;
 
-            if (isIdReference(property)) {
-                if (isArray(property.id)) {
-                    property = property.id.map((id: number) => this.entities[property.type][id] || null);
-                    property.forEach((reference: Entity | null) => this.registerReference(reference, entity, name));
-                } else {
-                    property = this.entities[property.type][property.id] || null;
-                    this.registerReference(property, entity, name);
+            if (isIdListChange(change)) {
+                property = applyIdListChange<Entity>(entity[name], change, from,
+                    (id) => this.entities[change.type][id] || null);
+                property.forEach((reference: Entity | null) => this.registerReference(reference, entity, name));
+            } else {
+                property = change[from];
+
+                if (isIdReference(property)) {
+                    if (property.type === ROUTES) {
+                        property = this.routes[property.id] || null;
+                    } else if (isArray(property.id)) {
+                        property = property.id.map((id: number) => this.entities[property.type][id] || null);
+                        property.forEach((reference: Entity | null) => this.registerReference(reference, entity, name));
+                    } else {
+                        property = this.entities[property.type][property.id] || null;
+                        this.registerReference(property, entity, name);
+                    }
                 }
             }
 
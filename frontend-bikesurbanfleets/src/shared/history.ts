@@ -10,6 +10,22 @@ export interface PropertyChange<T> {
     new: T;
 }
 
+/**
+ * It is the change of a reference to a list of entities: the old and new lengths of the list
+ * and the positions whose identifier has changed. The positions beyond the length are null.
+ */
+export interface IdListChange {
+    type: string;
+    length: PropertyChange<number>;
+    slots: Array<{ index: number } & PropertyChange<number | null>>;
+}
+
+/**
+ * It is the type of the references to the route table, the file of entities with the distinct
+ * routes of the users. The changes of the users reference their routes instead of containing them.
+ */
+export const ROUTES = 'routes';
+
 export interface HistoryEntitiesJson {
     prototype: Array<string>;
     instances: Array<HistoryEntity>;
@@ -18,7 +34,7 @@ export interface HistoryEntitiesJson {
 export type EntityChanges = {
     id: number,
 } & {
-    [key: string]: PropertyChange<any>
+    [key: string]: PropertyChange<any> | IdListChange
 };
 
 export type HistoryTimeEntry = {
@@ -56,3 +72,36 @@ export interface IdReference {
 export function isIdReference(property: any): boolean {
     return isPlainObject(property) && 'type' in property && 'id' in property;
 }
+
+export function isIdListChange(change: any): change is IdListChange {
+    return isPlainObject(change) && 'type' in change && 'length' in change && 'slots' in change;
+}
+
+/**
+ * It applies the change of a list of identifiers, or of the entities they reference, in the
+ * given direction. The list isn't modified.
+ * @param resolve It obtains the element of the list of an identifier.
+ */
+export function applyIdListChange<T>(list: Array<T | null> | null | undefined, change: IdListChange,
+                                     from: 'old' | 'new', resolve: (id: number) => T | null): Array<T | null> {
+    const result = (list || []).slice(0, change.length[from]);
+    while (result.length < change.length[from]) {
+        result.push(null);
+    }
+    change.slots.forEach((slot) => {
+        if (slot.index < result.length) {
+            const id = slot[from];
+            result[slot.index] = id === null ? null : resolve(id);
+        }
+    });
+    return result;
+}
+
+/**
+ * @return the identifier at the last position of the list after the change, or undefined if it
+ * hasn't changed.
+ */
+export function lastNewId(change: IdListChange): number | null | undefined {
+    const slot = change.slots.find((s) => s.index === change.length.new - 1);
+    return slot ? slot.new : undefined;
+}
@@ -1,5 +1,6 @@
 import { JsonSchema } from 'json-schema-builder-ts';
-import { sArray, sInteger, sObject, sString } from 'json-schema-builder-ts/dist/types';
+import { sAnyOf } from 'json-schema-builder-ts/dist/operators/schematical';
+import { sArray, sInteger, sNull, sObject, sString } from 'json-schema-builder-ts/dist/types';
 import { options, UInt } from '../common/index';
 
 const PropertyChange = sObject({
@@ -7,9 +8,25 @@ const PropertyChange = sObject({
     new: {},
 });
 
+const SlotId = sAnyOf(UInt, sNull());
+
+// the change of a reference to a list of entities only has the positions which have changed
+const IdListChange = sObject({
+    type: sString(),
+    length: sObject({
+        old: UInt,
+        new: UInt,
+    }).require.all().restrict(),
+    slots: sArray(sObject({
+        index: UInt,
+        old: SlotId,
+        new: SlotId,
+    }).require.all().restrict()),
+}).require.all().restrict();
+
 const EntityChanges = sObject({
     id: UInt,
-}).additionalProperties(PropertyChange);
+}).additionalProperties(sAnyOf(IdListChange, PropertyChange));
 
 const EventEntry = sObject({
     name: sString(),
@@ -10,6 +10,12 @@ export const GlobalConfig = new JsonSchema(options, sObject({
     randomSeed: sInteger().min(1),
     recommendationSystemType: RecomProperties,
     graphManagerType: sEnum('GRAPH_HOPPER'),
+    eventSchedulerType: sEnum('PRIORITY_QUEUE', 'CALENDAR_QUEUE'),
+    historyType: sEnum('JSON', 'METRICS', 'BINARY'),
+    historyQueueCapacity: sInteger().min(0),
+    routeCacheSize: sInteger().min(0),
+    routeCacheGridSize: sNumber().min(0),
+    stationRouteMatrix: sString(),
     maxDistanceRecommendation: sNumber().min(0),
     boundingBox: sObject({
         northWest: GeoPoint,
@@ -25,6 +31,12 @@ export const layout =
     {key: "randomSeed", placeholder: "Random Seed"},
     {key: "recommendationSystemType", placeholder: "Type of the Recommendation System"},
     {key: "graphManagerType", placeholder: "Type of graph Manager"},
+    {key: "eventSchedulerType", placeholder: "Type of event scheduler"},
+    {key: "historyType", placeholder: "Full history (JSON), full binary history (BINARY) or only final metrics (METRICS)"},
+    {key: "historyQueueCapacity", placeholder: "Pending history records before the simulation waits (0 to write the history synchronously)"},
+    {key: "routeCacheSize", placeholder: "Shortest routes kept to not calculate them again (0 to not cache them)"},
+    {key: "routeCacheGridSize", placeholder: "Grid size in degrees of the route cache (0 to only reuse routes between the same points)"},
+    {key: "stationRouteMatrix", placeholder: "File of the routes between the stations calculated in advance (optional)"},
     {key: "maxDistanceRecommendation", placeholder: "Max distance recommended by the system"},
     {key: "boundingBox", htmlClass: "bold-text"},
     {key: "boundingBox.northWest.latitude", placeholder: "Nort-West latitude", title: "North latitude"},